@@ -252,21 +252,37 @@ public class AppModeActivity extends ServiceBindingActivity {
 	private void addKnownDevice(String name, String address, boolean isDiscovered, boolean isRegistered) {
 		DeviceStatus dvcStatus = isDiscovered ? DeviceStatus.FOUND : DeviceStatus.UNKNOWN;
 
+		mergeKnownDevice(name, address, dvcStatus);
+		_deviceListAdapter.notifyDataSetChanged();
+
+		return;
+	}
+
+	private void addKnownDevices(String names[], String addresses[]) {
+		int iCount = Math.min(names.length, addresses.length);
+		for (int iIdx = 0; iIdx < iCount; iIdx++) {
+			mergeKnownDevice(names[iIdx], addresses[iIdx], DeviceStatus.FOUND);
+		}
+
+		/* Refresh the list once for the whole batch */
+		_deviceListAdapter.notifyDataSetChanged();
+
+		return;
+	}
+
+	private void mergeKnownDevice(String name, String address, DeviceStatus dvcStatus) {
+		KnownDevice newDevice = new KnownDevice(name, address, dvcStatus);
 		for (KnownDevice kd : _registeredDevices) {
-			if (kd.addressMatches(address)) {
+			if (kd.addressMatches(newDevice)) {
 				Logger.info("Not adding duplicate entry for " + address);
 				kd.setName(name);
 				kd.setStatus(dvcStatus);
-				_deviceListAdapter.notifyDataSetChanged();
 				return;
 			}
 		}
 
-		KnownDevice newDevice = new KnownDevice(name, address, dvcStatus);
 		_registeredDevices.add(newDevice);
 
-		_deviceListAdapter.notifyDataSetChanged();
-
 		return;
 	}
 
@@ -289,7 +305,7 @@ public class AppModeActivity extends ServiceBindingActivity {
 		for (KnownDevice rkd : _registeredDevices) {
 			rkd.setRegistered(false);
 			for (KnownDevice skd : savedDevices) {
-				if (rkd.addressMatches(skd.getAddress())) {
+				if (rkd.addressMatches(skd)) {
 					rkd.setRegistered(true);
 					break;
 				}
@@ -410,10 +426,12 @@ public class AppModeActivity extends ServiceBindingActivity {
 	            // Add the name and address to an array adapter to show in a ListView
 	            addKnownDevice(device.getName(), device.getAddress(), true);
 	        } else if (AndroidBluetoothLeBridge.ACTION_LE_DISCOVERED.equals(action)) {
-				// Get the BluetoothDevice object from the Intent
-				BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
-				// Add the name and address to an array adapter to show in a ListView
-				addKnownDevice(device.getName(), device.getAddress(), true);
+				// Each broadcast carries every device seen since the previous one
+				String names[] = intent.getStringArrayExtra("NAMES");
+				String addresses[] = intent.getStringArrayExtra("ADDRESSES");
+				if ((names != null) && (addresses != null)) {
+					addKnownDevices(names, addresses);
+				}
 			} else if (BluetoothAdapter.ACTION_DISCOVERY_STARTED.equals(action)) {
 	        	Logger.info("Service Discovery Started (receiver)");
 	        } else if (BluetoothAdapter.ACTION_DISCOVERY_FINISHED.equals(action)) {
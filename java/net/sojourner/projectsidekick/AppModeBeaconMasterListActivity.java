@@ -31,11 +31,10 @@ public class AppModeBeaconMasterListActivity extends ServiceBindingActivity {
 		_masterListAdapter = new MasterListAdapter(this);
 		listDevices.setAdapter(_masterListAdapter);
 
-		/* Extract the raw master list from the intent and parse it */
+		/* Extract the decoded master list from the intent */
 		Intent intent = getIntent();
 		_deviceAddr = intent.getStringExtra("DEVICE_ADDR");
-		String masterListArr[] = intent.getStringArrayExtra("DEVICES");
-		parseMasterList(masterListArr);
+		parseMasterList(intent);
 
 		/* Add functionality for committing the guard status of our devices */
 		ImageButton btnSave = (ImageButton) findViewById(R.id.btn_save);
@@ -90,21 +89,26 @@ public class AppModeBeaconMasterListActivity extends ServiceBindingActivity {
 		return;
 	}
 
-	private void parseMasterList(String masterListArray[]) {
+	private void parseMasterList(Intent intent) {
 		if (_masterListAdapter == null) {
 			Logger.err("Master list adapter is unavailable");
 			return;
 		}
 		_masterListAdapter.clear();
 
-		/* Cycle through the master list array and parse each one */
-		for (String s : masterListArray) {
-			MasterListItem item = MasterListItem.parse(s);
-			if (item == null) {
-				Logger.warn("Malformed item string: " + s);
-				continue;
-			}
-			_masterListAdapter.add(item);
+		int ids[] = intent.getIntArrayExtra("DEVICE_IDS");
+		String names[] = intent.getStringArrayExtra("DEVICE_NAMES");
+		String addrs[] = intent.getStringArrayExtra("DEVICE_ADDRS");
+		boolean guarded[] = intent.getBooleanArrayExtra("DEVICE_GUARDED");
+		if ((ids == null) || (names == null) || (addrs == null) || (guarded == null)) {
+			Logger.warn("No master list received");
+			return;
+		}
+
+		/* Cycle through the decoded master list and add each item */
+		for (int iIdx = 0; iIdx < ids.length; iIdx++) {
+			_masterListAdapter.add(new MasterListItem(ids[iIdx], names[iIdx],
+					addrs[iIdx], guarded[iIdx]));
 		}
 		_masterListAdapter.notifyDataSetChanged();
 		
@@ -142,7 +146,7 @@ public class AppModeBeaconMasterListActivity extends ServiceBindingActivity {
 			} else if (ProjectSidekickService.ACTION_LIST_CHANGED.equals(action)) {
 				new HandleDeviceListChangedTask().execute();
 			} else if (ProjectSidekickService.ACTION_LIST_RECEIVED.equals(action)) {
-				new HandleDeviceListReceivedTask(intent.getStringArrayExtra("DEVICES")).execute();
+				new HandleDeviceListReceivedTask(intent).execute();
 			}
 		}
 	};
@@ -161,10 +165,10 @@ public class AppModeBeaconMasterListActivity extends ServiceBindingActivity {
 	}
 
 	private class HandleDeviceListReceivedTask extends AsyncTask<Void, Void, Void> {
-		private String _deviceList[];
+		private Intent _deviceList;
 
-		public HandleDeviceListReceivedTask(String listArray[]) {
-			_deviceList = listArray;
+		public HandleDeviceListReceivedTask(Intent listIntent) {
+			_deviceList = listIntent;
 			return;
 		}
 
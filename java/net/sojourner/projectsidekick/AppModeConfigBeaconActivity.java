@@ -784,7 +784,7 @@ public class AppModeConfigBeaconActivity extends ServiceBindingActivity {
 	        		= new Intent(AppModeConfigBeaconActivity.this,
 	        				AppModeBeaconMasterListActivity.class);
 				listIntent.putExtra("DEVICE_ADDR", _deviceAddr);
-				listIntent.putExtra("DEVICES", intent.getStringArrayExtra("DEVICES"));
+				listIntent.putExtras(intent);
 	        	startActivity(listIntent);
 	        } else if (ProjectSidekickService.ACTION_REGISTERED.equals(action)) {
 				cancelProgressBar();
@@ -9,6 +9,7 @@ import net.sojourner.projectsidekick.android.AndroidBluetoothBridge;
 import net.sojourner.projectsidekick.android.AndroidBluetoothLeBridge;
 import net.sojourner.projectsidekick.interfaces.IBluetoothBridge;
 import net.sojourner.projectsidekick.types.KnownDevice;
+import net.sojourner.projectsidekick.types.MacAddress;
 import net.sojourner.projectsidekick.types.PSStatus;
 import net.sojourner.projectsidekick.utils.Logger;
 import android.app.Application;
@@ -76,7 +77,7 @@ public class ProjectSidekickApp extends Application {
     public PSStatus addRegisteredDevice(KnownDevice device) {
     	/* Check if we already have this device in our list */
     	for (KnownDevice kd : _registeredDevices) {
-    		if (kd.addressMatches(device.getAddress())) {
+    		if (kd.addressMatches(device)) {
     			Logger.warn("Device already registered");
     			return PSStatus.OK;
     		}
@@ -93,7 +94,7 @@ public class ProjectSidekickApp extends Application {
     public PSStatus updateRegisteredDevice(KnownDevice device) {
     	/* Check if we already have this device in our list */
     	for (KnownDevice kd : _registeredDevices) {
-    		if (kd.addressMatches(device.getAddress())) {
+    		if (kd.addressMatches(device)) {
     			Logger.warn("Device found");
     			
     			/* Simply update our registered device's name */
@@ -122,6 +123,12 @@ public class ProjectSidekickApp extends Application {
     }
     
     public KnownDevice findRegisteredDevice(String address) {
+    	/* Parse the address once so that each comparison is a single long compare */
+    	MacAddress mac = MacAddress.parse(address);
+    	if (mac != null) {
+    		return findRegisteredDevice(mac);
+    	}
+
     	for (KnownDevice kd : _registeredDevices) {
     		if (kd.addressMatches(address)) {
     			return kd;
@@ -129,6 +136,15 @@ public class ProjectSidekickApp extends Application {
     	}
     	return null;
     }
+
+    public KnownDevice findRegisteredDevice(MacAddress mac) {
+    	for (KnownDevice kd : _registeredDevices) {
+    		if (kd.addressMatches(mac)) {
+    			return kd;
+    		}
+    	}
+    	return null;
+    }
     
     public void restoreRegisteredDevices() {
 		if (android.os.Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
@@ -1,21 +1,37 @@
 package net.sojourner.projectsidekick;
 
-import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
+import net.sojourner.projectsidekick.android.AndroidBluetoothLeBridge;
 import net.sojourner.projectsidekick.interfaces.BluetoothEventHandler;
 import net.sojourner.projectsidekick.interfaces.IBluetoothBridge;
+import net.sojourner.projectsidekick.interfaces.ResponseHandler;
 import net.sojourner.projectsidekick.types.AlarmState;
 import net.sojourner.projectsidekick.types.BTState;
 import net.sojourner.projectsidekick.types.GuardedItem;
+import net.sojourner.projectsidekick.types.KnownDevice;
+import net.sojourner.projectsidekick.types.MacAddress;
+import net.sojourner.projectsidekick.types.MasterListItem;
 import net.sojourner.projectsidekick.types.PSStatus;
+import net.sojourner.projectsidekick.types.PendingRequest;
 import net.sojourner.projectsidekick.types.ReceivedData;
 import net.sojourner.projectsidekick.types.ReportModeInfo;
 import net.sojourner.projectsidekick.types.ServiceState;
+import net.sojourner.projectsidekick.utils.DeviceListDecoder;
+import net.sojourner.projectsidekick.utils.EventBus;
+import net.sojourner.projectsidekick.utils.FrameCodec;
+import net.sojourner.projectsidekick.utils.InboundPipeline;
+import net.sojourner.projectsidekick.utils.PendingRequestTable;
+import net.sojourner.projectsidekick.utils.ProtocolV2;
+import net.sojourner.projectsidekick.utils.RequestEncoder;
+import net.sojourner.projectsidekick.utils.ScanAggregator;
+import net.sojourner.projectsidekick.utils.ScanScheduler;
+import net.sojourner.projectsidekick.utils.ResponseDispatcher;
 import net.sojourner.projectsidekick.utils.SKUtils;
+import net.sojourner.projectsidekick.utils.TxStatistics;
 import net.sojourner.projectsidekick.utils.Logger;
 import android.app.Service;
 import android.bluetooth.BluetoothAdapter;
@@ -24,6 +40,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.content.SharedPreferences;
 import android.media.Ringtone;
 import android.media.RingtoneManager;
 import android.net.Uri;
@@ -58,10 +75,12 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 	public static final int MSG_RENAME_SIDEKICK 	= 20;
 	public static final int MSG_GET_ALARM_STATE		= 21;
 	public static final int MSG_TRIGGER_ALARM		= 22;
+	public static final int MSG_QUERY_TX_STATS		= 23;
 
 	public static final int MSG_RESP_SERVICE_STATE		= 100;
 	public static final int MSG_RESP_BLUETOOTH_STATE	= 101;
 	public static final int MSG_RESP_ALARM_STATE		= 102;
+	public static final int MSG_RESP_TX_STATS			= 103;
 
 	private static final String SERVICE_ACTION 		= "net.sojourner.projectsidekick.action.";
 	public static final String ACTION_CONNECTED 	= SERVICE_ACTION + "CONNECTED";
@@ -79,37 +98,35 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 	public static final String ACTION_ALARM_CHANGED = SERVICE_ACTION + "ALARM_CHANGED";
 	public static final String ACTION_STATE_CHANGED	= SERVICE_ACTION + "STATE_CHANGED";
 
-	private static final String RXX_TERM			= ";";
-	private static final String RXX_DELIM			= ",";
-	private static final String RXX_ACK				= "1" + RXX_TERM;
 	private static final String	RXX_EOT				= Character.toString((char)(0x4));
 
-	private static final String REQ_PREF_REGISTER 		= "XREG";
-	private static final String REQ_PREF_GET_LIST 		= "XLST";
-	private static final String REQ_PREF_SET_NAME 		= "XNME";
-	private static final String REQ_PREF_DELETE 		= "XDEL";
-	private static final String REQ_PREF_GUARD_THEF_SET = "XGSL";
-	private static final String REQ_PREF_GUARD_THEF 	= "XATM";
-	private static final String REQ_PREF_REPORT_THEF 	= "XATO";
-	private static final String REQ_PREF_GUARD_LOSS_SET = "XALS";
-	private static final String REQ_PREF_GUARD_LOSS 	= "XALM";
-	private static final String REQ_PREF_REPORT_LOSS	= "XALO";
-	private static final String REQ_PREF_TRIGGER_ALARM	= "XMAL";
+	private static final int REQ_PREF_REGISTER 			= RequestEncoder.REQ_REGISTER;
+	private static final int REQ_PREF_GET_LIST 			= RequestEncoder.REQ_GET_LIST;
+	private static final int REQ_PREF_SET_NAME 			= RequestEncoder.REQ_SET_NAME;
+	private static final int REQ_PREF_DELETE 			= RequestEncoder.REQ_DELETE;
+	private static final int REQ_PREF_GUARD_THEF_SET 	= RequestEncoder.REQ_GUARD_THEF_SET;
+	private static final int REQ_PREF_GUARD_THEF 		= RequestEncoder.REQ_GUARD_THEF;
+	private static final int REQ_PREF_REPORT_THEF 		= RequestEncoder.REQ_REPORT_THEF;
+	private static final int REQ_PREF_GUARD_LOSS_SET 	= RequestEncoder.REQ_GUARD_LOSS_SET;
+	private static final int REQ_PREF_GUARD_LOSS 		= RequestEncoder.REQ_GUARD_LOSS;
+	private static final int REQ_PREF_REPORT_LOSS		= RequestEncoder.REQ_REPORT_LOSS;
+	private static final int REQ_PREF_TRIGGER_ALARM		= RequestEncoder.REQ_TRIGGER_ALARM;
 
 	private static final String REQ_PREF_DISCONNECT		= "DISC;";
-
-	private static final String RES_PREF_REGISTER		= "RREG";
-	private static final String RES_PREF_GET_LIST 		= "RLST";
-	private static final String RES_PREF_SET_NAME 		= "RNME";
-	private static final String RES_PREF_DELETE 		= "RDEL";
-	private static final String RES_PREF_GUARD_THEF_SET = "RGSL";
-	private static final String RES_PREF_GUARD_THEF 	= "RATM";
-	private static final String RES_PREF_REPORT_THEF 	= "RATO";
-	private static final String RES_PREF_GUARD_LOSS_SET = "RALS";
-	private static final String RES_PREF_GUARD_LOSS 	= "RALM";
-	private static final String RES_PREF_REPORT_LOSS	= "RALO";
-	private static final String RES_PREF_TRIGGER_ALARM	= "RMAL";
-	private static final String RES_PREF_SK_TRIG_ALARM	= "RRED";
+	private static final byte	REQ_DISCONNECT_FRAME[]	= REQ_PREF_DISCONNECT.getBytes();
+
+	private static final int RES_PREF_REGISTER			= FrameCodec.RES_REGISTER;
+	private static final int RES_PREF_GET_LIST 			= FrameCodec.RES_GET_LIST;
+	private static final int RES_PREF_SET_NAME 			= FrameCodec.RES_SET_NAME;
+	private static final int RES_PREF_DELETE 			= FrameCodec.RES_DELETE;
+	private static final int RES_PREF_GUARD_THEF_SET 	= FrameCodec.RES_GUARD_THEF_SET;
+	private static final int RES_PREF_GUARD_THEF 		= FrameCodec.RES_GUARD_THEF;
+	private static final int RES_PREF_REPORT_THEF 		= FrameCodec.RES_REPORT_THEF;
+	private static final int RES_PREF_GUARD_LOSS_SET 	= FrameCodec.RES_GUARD_LOSS_SET;
+	private static final int RES_PREF_GUARD_LOSS 		= FrameCodec.RES_GUARD_LOSS;
+	private static final int RES_PREF_REPORT_LOSS		= FrameCodec.RES_REPORT_LOSS;
+	private static final int RES_PREF_TRIGGER_ALARM		= FrameCodec.RES_TRIGGER_ALARM;
+	private static final int RES_PREF_SK_TRIG_ALARM		= FrameCodec.RES_SK_TRIG_ALARM;
 
 	public static final String ALARM_CODE_DISABLED		= "0";
 	public static final String ALARM_CODE_BEEP			= "1";
@@ -119,13 +136,44 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 	public static final int 	RES_CODE_REG_OK 		= '1';
 	public static final int 	RES_CODE_REG_DUP 		= '2';
 
+	private static final String PROTOCOL_PREFS 		= "PROJECT_SIDEKICK__PROTOCOL";
+
 	private static final long DEFAULT_AWAIT_REPORT_CONN_TIME	= 32000;
 	private static final long DEFAULT_AWAIT_RESPONSE_TIME		= 1000;
-	private static final long DEFAULT_AWAIT_SIDEKICK_CONN		= 6000;
 	private static final long DEFAULT_ALARM_INTERVAL			= 1000;
+	private static final long DEFAULT_REQUEST_TIMEOUT			= 5000;
+	private static final long DEFAULT_FOUND_COALESCE_TIME		= 250;
+	private static final int INBOUND_QUEUE_SIZE					= 64;
+
+	/* In-process topics; only the forwarders below turn these into broadcasts */
+	public static final EventBus.Topic<GuardedItem> TOPIC_UPDATE_FOUND =
+			new EventBus.Topic<GuardedItem>("UPDATE_FOUND", DEFAULT_FOUND_COALESCE_TIME);
+	public static final EventBus.Topic<AlarmState> TOPIC_ALARM_CHANGED =
+			new EventBus.Topic<AlarmState>("ALARM_CHANGED");
+	public static final EventBus.Topic<ServiceState> TOPIC_STATE_CHANGED =
+			new EventBus.Topic<ServiceState>("STATE_CHANGED");
 
 	private ProjectSidekickApp _app = null;
 	private final Messenger _messenger = new Messenger(new MessageHandler());
+	private final Handler _uiHandler = new Handler();
+	private final ResponseDispatcher _responseDispatcher = new ResponseDispatcher();
+	private final RequestEncoder _requestEncoder = new RequestEncoder();
+	private final TxStatistics _txStats = new TxStatistics();
+	private final EventBus _eventBus = EventBus.getInstance();
+	private final InboundPipeline<ReceivedData> _inboundPipeline =
+			new InboundPipeline<ReceivedData>("SidekickInbound", INBOUND_QUEUE_SIZE,
+					new ReceivedDataConsumer());
+	private final PendingRequestTable _pendingRequests = new PendingRequestTable();
+	private final Runnable _requestExpiryCheck = new Runnable() {
+		@Override
+		public void run() {
+			for (PendingRequest req : _pendingRequests.expire(System.currentTimeMillis())) {
+				Logger.warn("Request timed out: " + req);
+			}
+			scheduleRequestExpiry();
+			return;
+		}
+	};
 	private ReportModeWakeReceiver _reportModeWakeAlarm = null;
 	private IBluetoothBridge _bluetoothBridge = null;
 	private ReentrantLock _tStateLock = new ReentrantLock();
@@ -145,6 +193,24 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 	private ReportModeInfo _reportInfo = null;
 	private ReentrantLock _tReportInfoLock = new ReentrantLock();
 
+	/* Device lists are decoded on the bridge thread as their fragments arrive.
+	 *	Only one list is streamed at a time; these are guarded by the decoder.
+	 *	A completed list travels with its frame and is only published once the
+	 *	dispatcher has matched the frame to a request. */
+	private List<MasterListItem> _decodedListItems = new ArrayList<MasterListItem>();
+	private List<MasterListItem> _completedListItems = null;
+	private final FrameCodec _listCodec = new FrameCodec();
+	private String _listStreamAddr = null;
+	private int _iListStreamPos = 0;
+
+	/* Protocol Parameters */
+	/* The device that setup requests without an address of their own go to:
+	 *	the one last registered with or listed */
+	private volatile MacAddress _setupAddress = null;
+	/* Protocol version negotiated with each device, cached from PROTOCOL_PREFS */
+	private final ConcurrentHashMap<MacAddress, Integer> _protocolVersions =
+			new ConcurrentHashMap<MacAddress, Integer>();
+
 	@Override
 	public IBinder onBind(Intent intent) {
 		display("Service bound");
@@ -170,6 +236,11 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 		/* Set this service as an event handler for Bluetooth events */
 		_bluetoothBridge.setEventHandler(this);
 
+		/* Set up the handlers for each of the responses we expect */
+		registerResponseHandlers();
+		_inboundPipeline.start();
+		registerEventForwarders();
+
 		if (_receiver != null) {
 			IntentFilter filter = new IntentFilter(BluetoothDevice.ACTION_FOUND);
 			registerReceiver(_receiver, filter);
@@ -200,6 +271,14 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 
 	@Override
 	public void onDestroy() {
+		/* Return anything that was never handled to the pool */
+		for (ReceivedData recvData : _inboundPipeline.stop()) {
+			recvData.recycle();
+		}
+		/* Nothing will answer the requests still in flight */
+		_pendingRequests.cancelAll();
+		unregisterEventForwarders();
+
 		if (_receiver != null) {
 			unregisterReceiver(_receiver);
 			Logger.info("[ProjectSidekickService] Receiver unregistered");
@@ -211,6 +290,12 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 
 	@Override
 	public void onConnected(String name, String address) {
+		/* Restore the protocol version negotiated with this device, if any */
+		MacAddress mac = MacAddress.parse(address);
+		if (mac != null) {
+			_protocolVersions.put(mac, loadProtocolVersion(address));
+		}
+
 		if (_cyclicAntiTheftReportTask != null) {
 			_cyclicAntiTheftReportTask.interruptForConnection(name, address);
 		}
@@ -226,6 +311,17 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 
 	@Override
 	public void onDisconnected(String name, String address) {
+		/* Responses to requests still in flight on this link will not arrive
+		 *	anymore. Requests on other links are left alone. */
+		MacAddress mac = MacAddress.parse(address);
+		if (mac != null) {
+			for (PendingRequest req : _pendingRequests.cancelAll(mac)) {
+				Logger.warn("Cancelled " + req + " on disconnection from " + mac);
+			}
+		} else {
+			Logger.warn("Disconnected from unknown address: " + address);
+		}
+
 		if (_cyclicAntiTheftReportTask != null) {
 			_cyclicAntiTheftReportTask.interruptForDisconnection();
 		}
@@ -247,6 +343,17 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 
 	@Override
 	public void onDataReceived(String name, String address, byte[] data) {
+		if (data == null) {
+			Logger.warn("Received data is invalid");
+			return;
+		}
+
+		onDataReceived(name, address, data, 0, data.length);
+		return;
+	}
+
+	@Override
+	public void onDataReceived(String name, String address, byte[] data, int iOffs, int iLen) {
 		Logger.info("onDataReceived() invoked");
 		if (address == null) {
 			Logger.warn("Received data has an invalid sender");
@@ -263,21 +370,69 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 			return;
 		}
 
-		if (data.length == 0) {
+		if (iLen <= 0) {
 			Logger.warn("Received data is empty");
 			return;
 		}
 
-		if (data.length > 1024) {
+		if (iLen > ReceivedData.MAX_DATA_LEN) {
 			/* This is also a case for DISCONNECTION since this is a known
 			 *  buffer overloading failure case on some devices */
 			Logger.warn("Received data overloads our buffers");
 			return;
 		}
 
-		/* Start a new AsyncTask to handle it */
-		new HandleReceivedDataTask().executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR,
-				new ReceivedData(name, address, data));
+		/* Finish off a device list before the frame leaves the bridge thread */
+		List<MasterListItem> deviceList = decodeListFrame(address, data, iOffs, iLen);
+
+		/* Queue it for the dispatcher thread so that responses are handled in order.
+		 *	The data may be a slice of a bridge buffer, so it is copied here. */
+		ReceivedData recvData = ReceivedData.obtain(name, address, data, iOffs, iLen);
+		recvData.setDeviceList(deviceList);
+		if (!_inboundPipeline.offer(recvData)) {
+			Logger.warn("Inbound queue full or stopped, dropped data from " + address);
+			recvData.recycle();
+		}
+
+		return;
+	}
+
+	@Override
+	public void onFrameFragment(String name, String address, byte[] data, int iOffs, int iPos, int iLen) {
+		if ((address == null) || (data == null)) {
+			return;
+		}
+
+		synchronized (_deviceListDecoder) {
+			if (address.equals(_listStreamAddr)) {
+				if (iPos == 0) {
+					/* A new frame started, so the list that was streaming got cut off */
+					_listStreamAddr = null;
+				}
+			} else if (_listStreamAddr != null) {
+				/* Another link's list is being decoded */
+				return;
+			}
+
+			int iFrameLen = iPos + iLen;
+			if (_listStreamAddr == null) {
+				/* Start decoding once the frame so far shows that it is a list */
+				_listCodec.wrap(data, iOffs, iFrameLen);
+				int iPrefix = _listCodec.readPrefix();
+				if (_listCodec.hasError() || (iPrefix != RES_PREF_GET_LIST)) {
+					return;
+				}
+
+				_deviceListDecoder.reset();
+				_decodedListItems.clear();
+				_completedListItems = null;
+				_listStreamAddr = address;
+				_iListStreamPos = _listCodec.getPosition();
+			}
+
+			_deviceListDecoder.feed(data, iOffs + _iListStreamPos, iFrameLen - _iListStreamPos);
+			_iListStreamPos = iFrameLen;
+		}
 
 		return;
 	}
@@ -303,6 +458,19 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 		_app = getAppRef();
 		_bluetoothBridge = _app.getBluetoothBridge();
 		_bluetoothBridge.initialize(this, false);
+
+		/* Let LE scans back off while every registered device is in range */
+		if (_bluetoothBridge instanceof AndroidBluetoothLeBridge) {
+			List<MacAddress> registered = new ArrayList<MacAddress>();
+			for (KnownDevice kd : _app.getRegisteredDevices()) {
+				MacAddress mac = MacAddress.parse(kd.getAddress());
+				if (mac != null) {
+					registered.add(mac);
+				}
+			}
+			((AndroidBluetoothLeBridge) _bluetoothBridge).setRegisteredDevices(registered);
+		}
+
 		_bluetoothBridge.startDeviceDiscovery();
 		return PSStatus.OK;
 	}
@@ -325,7 +493,7 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 		_bluetoothBridge.stopDeviceDiscovery();
 
 		/* Broadcast a DISCONNECT signal */
-		_bluetoothBridge.broadcast(REQ_PREF_DISCONNECT.getBytes());
+		_bluetoothBridge.broadcast(REQ_DISCONNECT_FRAME);
 
 		/* Sleep for a bit before actually disconnecting */
 		try {
@@ -350,7 +518,7 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 		_bluetoothBridge.stopDeviceDiscovery();
 
 		/* Broadcast a DISCONNECT signal */
-		_bluetoothBridge.broadcast(REQ_PREF_DISCONNECT.getBytes());
+		_bluetoothBridge.broadcast(REQ_DISCONNECT_FRAME);
 
 		/* Sleep for a bit before performing the closing the connections */
 		try {
@@ -448,149 +616,127 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 		return PSStatus.OK;
 	}
 
-	private PSStatus sendRegisterRequest(String remoteAddr) {
+	private PendingRequest sendRegisterRequest(String remoteAddr) {
 		_tRequestLock.lock();
 		if (getState() != ServiceState.SETUP) {
 			Logger.err("Invalid state for REGISTER request");
 			_tRequestLock.unlock();
-			return PSStatus.FAILED;
+			return PendingRequest.failed("REGISTER");
 		}
 
 		_app = getAppRef();
 		_bluetoothBridge = _app.getBluetoothBridge();
 
-		/* Fix the device name at exactly MAX_DEVICE_NAME_LEN chars */
-		String dvcName = SKUtils.compressDeviceName(_bluetoothBridge.getLocalName());
-
-		/* Sent addresses should not contain separators */
-		String dvcAddr = SKUtils.compressDeviceAddress(_bluetoothBridge.getLocalAddress());
-
-		/* Create the request string */
-		String request = dvcName + RXX_DELIM + dvcAddr + RXX_TERM;
+		String dvcName = _bluetoothBridge.getLocalName();
+		String dvcAddr = _bluetoothBridge.getLocalAddress();
 
 		setState(ServiceState.REGISTERING);
 
-		PSStatus status;
-		status = performBroadcast(_bluetoothBridge, REQ_PREF_REGISTER.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast REGISTER command header to " + remoteAddr);
+		MacAddress target = MacAddress.parse(remoteAddr);
+		_setupAddress = target;
+
+		PendingRequest req = beginRequest("REGISTER", target, RES_PREF_REGISTER);
+		if (isBinaryProtocol(target)) {
+			ProtocolV2.encodeRegister(_requestEncoder, dvcName, dvcAddr, req.getSequence());
+			sendRequest(req, target);
 			_tRequestLock.unlock();
-			return PSStatus.FAILED;
+			return req;
 		}
 
-		status = performBroadcast(_bluetoothBridge, request.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast REGISTER command data to " + remoteAddr);
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
+		/* Fix the device name at exactly MAX_DEVICE_NAME_LEN chars, send the address
+		 * 	without separators and offer the highest protocol version we support */
+		_requestEncoder.begin(REQ_PREF_REGISTER)
+				.putAscii(dvcName, SKUtils.MAX_DEVICE_NAME_LEN).putDelimiter()
+				.putHex(dvcAddr).putDelimiter()
+				.putDecimal(ProtocolV2.VERSION_MAX)
+				.end();
+
+		if (sendRequest(req, target).isFailed()) {
+			Logger.err("Failed to send REGISTER command to " + remoteAddr);
 		}
 
 		_tRequestLock.unlock();
-		return PSStatus.OK;
+		return req;
 	}
 
-	private PSStatus sendGetListRequest(String address) {
+	private PendingRequest sendGetListRequest(String address) {
 		_tRequestLock.lock();
 		_app = getAppRef();
 		_bluetoothBridge = _app.getBluetoothBridge();
 
-		String request = RXX_ACK;
+		MacAddress target = MacAddress.parse(address);
+		_setupAddress = target;
 
-		PSStatus status;
-		status = performBroadcast(_bluetoothBridge, REQ_PREF_GET_LIST.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast LIST command header to " + address);
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
+		PendingRequest req = beginRequest("LIST", target, RES_PREF_GET_LIST);
+		if (isBinaryProtocol(target)) {
+			ProtocolV2.encodeGetList(_requestEncoder, req.getSequence());
+		} else {
+			_requestEncoder.begin(REQ_PREF_GET_LIST).putDecimal(1).end();
 		}
 
-		status = performBroadcast(_bluetoothBridge, request.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast LIST command data to " + address);
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
+		if (sendRequest(req, target).isFailed()) {
+			Logger.err("Failed to send LIST command to " + address);
 		}
 
 		_tRequestLock.unlock();
-		return PSStatus.OK;
+		return req;
 	}
 
-	private PSStatus sendUnregisterRequest(int deviceId) {
+	private PendingRequest sendUnregisterRequest(int deviceId) {
 		_tRequestLock.lock();
 		_app = getAppRef();
 		_bluetoothBridge = _app.getBluetoothBridge();
 
-		PSStatus status;
-		status = performBroadcast(_bluetoothBridge, REQ_PREF_DELETE.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast DELETE command header");
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
-		}
-
-		String request = deviceId + ";";
-		status = performBroadcast(_bluetoothBridge, request.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast DELETE command data");
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
+		MacAddress target = _setupAddress;
+		PendingRequest req = beginRequest("DELETE", target, RES_PREF_DELETE);
+		if (isBinaryProtocol(target)) {
+			ProtocolV2.encodeDelete(_requestEncoder, deviceId, req.getSequence());
+		} else {
+			_requestEncoder.begin(REQ_PREF_DELETE).putDecimal(deviceId).end();
 		}
+		sendRequest(req, target);
 
 		_tRequestLock.unlock();
-		return PSStatus.OK;
+		return req;
 	}
 
-	private PSStatus sendModifyGuardListRequest(String guardListMod) {
+	private PendingRequest sendModifyGuardListRequest(String guardListMod) {
 		_tRequestLock.lock();
 		_app = getAppRef();
 		_bluetoothBridge = _app.getBluetoothBridge();
 
-		PSStatus status;
-		status = performBroadcast(_bluetoothBridge, REQ_PREF_GUARD_THEF_SET.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast MODIFY GUARD LIST command header");
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
-		}
-
-		String request = guardListMod + ";";
-		status = performBroadcast(_bluetoothBridge, request.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast MODIFY GUARD LIST command data");
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
+		MacAddress target = _setupAddress;
+		PendingRequest req = beginRequest("MODIFY GUARD LIST", target, RES_PREF_GUARD_THEF_SET);
+		if (isBinaryProtocol(target)) {
+			ProtocolV2.encodeGuardListMod(_requestEncoder, guardListMod, req.getSequence());
+		} else {
+			_requestEncoder.begin(REQ_PREF_GUARD_THEF_SET).putAscii(guardListMod).end();
 		}
+		sendRequest(req, target);
 
 		_tRequestLock.unlock();
-		return PSStatus.OK;
+		return req;
 	}
 
-	private PSStatus sendRenameRequest(String newName) {
+	private PendingRequest sendRenameRequest(String newName) {
 		_tRequestLock.lock();
 		_app = getAppRef();
 		_bluetoothBridge = _app.getBluetoothBridge();
 
-		PSStatus status;
-		status = performBroadcast(_bluetoothBridge, REQ_PREF_SET_NAME.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast RENAME command header");
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
-		}
-
-		String request = newName + ";";
-		status = performBroadcast(_bluetoothBridge, request.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast RENAME command data");
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
+		MacAddress target = _setupAddress;
+		PendingRequest req = beginRequest("RENAME", target, RES_PREF_SET_NAME);
+		if (isBinaryProtocol(target)) {
+			ProtocolV2.encodeSetName(_requestEncoder, newName, req.getSequence());
+		} else {
+			_requestEncoder.begin(REQ_PREF_SET_NAME).putAscii(newName).end();
 		}
+		sendRequest(req, target);
 
 		_tRequestLock.unlock();
-		return PSStatus.OK;
+		return req;
 	}
 
-	private PSStatus sendTriggerAlarmRequest(String address, String mode) {
+	private PendingRequest sendTriggerAlarmRequest(String address, String mode) {
 		_tRequestLock.lock();
 		_app = getAppRef();
 		_bluetoothBridge = _app.getBluetoothBridge();
@@ -601,46 +747,40 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 			if (status != PSStatus.OK) {
 				Logger.err("Failed to initialize Bluetooth Bridge");
 				_tRequestLock.unlock();
-				return PSStatus.FAILED;
+				return PendingRequest.failed("TRIGGER ALARM");
 			}
 		}
 
 		_bluetoothBridge.setEventHandler(this);
 
+		/* connectDeviceByAddress() only returns once the link is usable, so
+		 *  the request can be sent right away */
 		if (getBluetoothState() != BTState.CONNECTED) {
 			status = _bluetoothBridge.connectDeviceByAddress(address);
 			if (status != PSStatus.OK) {
 				Logger.err("Failed to connect to device: " + address);
 				_tRequestLock.unlock();
-				return PSStatus.FAILED;
+				return PendingRequest.failed("TRIGGER ALARM");
 			}
 		}
 
-		try {
-			Thread.sleep(600);
-		} catch (InterruptedException e) {
-			/* Do Nothing */
-		}
-
-		status = performBroadcast(_bluetoothBridge, REQ_PREF_TRIGGER_ALARM.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast TRIGGER ALARM command header");
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
-		}
+		MacAddress target = MacAddress.parse(address);
+		int iRssi = _bluetoothBridge.getRssi(target);
 
-		try {
-			Thread.sleep(300);
-		} catch (InterruptedException e) {
-			/* Do Nothing */
+		PendingRequest req = beginRequest("TRIGGER ALARM", target, RES_PREF_TRIGGER_ALARM);
+		if (isBinaryProtocol(target)) {
+			ProtocolV2.encodeTriggerAlarm(_requestEncoder, mode.charAt(0) - '0',
+					iRssi, req.getSequence());
+		} else {
+			_requestEncoder.begin(REQ_PREF_TRIGGER_ALARM)
+					.putAscii(mode).putDelimiter()
+					.putDecimal(iRssi)
+					.end();
 		}
 
-		String request = mode + RXX_DELIM + _bluetoothBridge.getRssi() + RXX_TERM;
-		status = performBroadcast(_bluetoothBridge, request.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast TRIGGER ALARM command data");
+		if (sendRequest(req, target).isFailed()) {
 			_tRequestLock.unlock();
-			return PSStatus.FAILED;
+			return req;
 		}
 
 		/* Quietly put us in Alarm State: Emergency so that a PIN code will be needed
@@ -652,63 +792,64 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 		}
 
 		_tRequestLock.unlock();
-		return PSStatus.OK;
+		return req;
 	}
 
-	private PSStatus sendGuardReadyRequest() {
+	private PendingRequest sendGuardReadyRequest(String address) {
 		_tRequestLock.lock();
 		_app = getAppRef();
 		_bluetoothBridge = _app.getBluetoothBridge();
 
-		String deviceAddr = SKUtils.compressDeviceAddress(_bluetoothBridge.getLocalAddress());
-		String request = deviceAddr + ";";
+		String deviceAddr = _bluetoothBridge.getLocalAddress();
 
-		PSStatus status;
-		status = performBroadcast(_bluetoothBridge, REQ_PREF_GUARD_THEF.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast GUARD READY command header");
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
-		}
+		MacAddress target = MacAddress.parse(address);
 
-		status = performBroadcast(_bluetoothBridge, request.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast GUARD READY command data");
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
+		/* The SIDEKICK only answers once it has started guarding, which can
+		 *  take much longer than an ordinary request */
+		PendingRequest req = beginRequest("GUARD READY", target, RES_PREF_GUARD_THEF,
+				DEFAULT_AWAIT_REPORT_CONN_TIME);
+		if (isBinaryProtocol(target)) {
+			ProtocolV2.encodeGuardReady(_requestEncoder, deviceAddr, req.getSequence());
+		} else {
+			/* Sent addresses should not contain separators */
+			_requestEncoder.begin(REQ_PREF_GUARD_THEF).putHex(deviceAddr).end();
 		}
+		sendRequest(req, target);
 
 		_tRequestLock.unlock();
-		return PSStatus.OK;
+		return req;
 	}
 
-	private PSStatus sendReportRequest(int deviceId, String guardStatus, String alarmStatus) {
+	private PendingRequest sendReportRequest(String address, int deviceId, String guardStatus,
+			String alarmStatus) {
 		_tRequestLock.lock();
 		_app = getAppRef();
 		_bluetoothBridge = _app.getBluetoothBridge();
 
-		PSStatus status;
-		status = performBroadcast(_bluetoothBridge, REQ_PREF_REPORT_THEF.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast REPORT command header");
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
-		}
-
-		String deviceIdStr = String.valueOf(deviceId);
+		MacAddress target = MacAddress.parse(address);
+		int iRssi = _bluetoothBridge.getRssi(target);
 
-		String request =  deviceIdStr + RXX_DELIM + guardStatus + RXX_DELIM + alarmStatus +
-				RXX_DELIM + _bluetoothBridge.getRssi() + RXX_DELIM + "1" + RXX_DELIM + "1" +
-				RXX_TERM;
-		status = performBroadcast(_bluetoothBridge, request.getBytes());
-		if (status != PSStatus.OK) {
-			Logger.err("Failed to broadcast REPORT command data");
-			_tRequestLock.unlock();
-			return PSStatus.FAILED;
+		PendingRequest req = beginRequest("REPORT", target, RES_PREF_REPORT_THEF,
+				DEFAULT_AWAIT_RESPONSE_TIME);
+		if (isBinaryProtocol(target)) {
+			/* The whole binary report fits in a single transmission */
+			ProtocolV2.encodeReport(_requestEncoder, deviceId,
+					guardStatus.charAt(0) - '0', alarmStatus.charAt(0) - '0',
+					iRssi, req.getSequence());
+		} else {
+			_requestEncoder.begin(REQ_PREF_REPORT_THEF)
+					.putDecimal(deviceId).putDelimiter()
+					.putAscii(guardStatus).putDelimiter()
+					.putAscii(alarmStatus).putDelimiter()
+					.putDecimal(iRssi).putDelimiter()
+					.putDecimal(1).putDelimiter()
+					.putDecimal(1)
+					.end();
 		}
+		sendRequest(req, target);
 
 		_tRequestLock.unlock();
-		return PSStatus.OK;
+		return req;
 	}
 
 	private PSStatus replyBluetoothState(Messenger replyTo) {
@@ -764,6 +905,409 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 		return PSStatus.OK;
 	}
 
+	private PSStatus replyTxStatistics(Messenger replyTo) {
+		Bundle data = new Bundle();
+		data.putStringArray("TYPES", _txStats.getTypes());
+		data.putLongArray("REQUESTS", _txStats.getRequestCounts());
+		data.putLongArray("BYTES", _txStats.getByteCounts());
+		data.putLongArray("CHUNKS", _txStats.getChunkCounts());
+
+		/* Include the state of the inbound queue as well */
+		data.putInt("RX_QUEUE_DEPTH", _inboundPipeline.getDepth());
+		data.putInt("RX_QUEUE_CAPACITY", _inboundPipeline.getCapacity());
+		data.putInt("RX_MAX_BATCH", _inboundPipeline.getMaxBatchSize());
+		data.putLong("RX_DELIVERED", _inboundPipeline.getDeliveredCount());
+		data.putLong("RX_DROPPED", _inboundPipeline.getDroppedCount());
+		data.putLong("RX_POOL_HITS", ReceivedData.getPoolHits());
+		data.putLong("RX_POOL_MISSES", ReceivedData.getPoolMisses());
+
+		/* ...and of the event bus */
+		data.putLong("EVT_PUBLISHED", _eventBus.getPublishedCount());
+		data.putLong("EVT_DELIVERED", _eventBus.getDeliveredCount());
+		data.putLong("EVT_COALESCED", _eventBus.getCoalescedCount());
+
+		/* ...and the duty cycle that LE scanning actually achieved */
+		if (_bluetoothBridge instanceof AndroidBluetoothLeBridge) {
+			ScanScheduler scheduler = ((AndroidBluetoothLeBridge) _bluetoothBridge).getScanScheduler();
+			data.putFloat("SCAN_DUTY_CYCLE", scheduler.getDutyCycle());
+			data.putFloat("SCAN_TOTAL_DUTY_CYCLE", scheduler.getTotalDutyCycle());
+			data.putLong("SCAN_RADIO_ON_TIME", scheduler.getRadioOnTime());
+			data.putLong("SCAN_SKIPPED", scheduler.getSkippedCount());
+		}
+
+		Message msg = Message.obtain(null, MSG_RESP_TX_STATS, 0, 0);
+		msg.setData(data);
+
+		try {
+			replyTo.send(msg);
+		} catch (Exception e) {
+			Logger.err("Exception occurred: " + e.getMessage());
+		}
+		return PSStatus.OK;
+	}
+
+	/* ************************ */
+	/* Response Handler Methods */
+	/* ************************ */
+	private void registerResponseHandlers() {
+		_responseDispatcher.register(RES_PREF_REGISTER, new ResponseHandler() {
+			@Override
+			public void onResponse(ReceivedData resp, int iOffs) {
+				handleRegisterResponse(resp.getSenderName(), resp.getSenderAddress(),
+						resp.getData(), iOffs, resp.getLength());
+			}
+		}, ServiceState.REGISTERING);
+
+		_responseDispatcher.register(RES_PREF_GET_LIST, new ResponseHandler() {
+			@Override
+			public void onResponse(ReceivedData resp, int iOffs) {
+				handleGetListResponse(resp.getSenderName(), resp.getSenderAddress(),
+						resp.getDeviceList());
+			}
+		});
+
+		_responseDispatcher.register(RES_PREF_DELETE, new ResponseHandler() {
+			@Override
+			public void onResponse(ReceivedData resp, int iOffs) {
+				handleDeleteResponse(resp.getSenderName(), resp.getSenderAddress(),
+						resp.getData(), iOffs, resp.getLength());
+			}
+		}, ServiceState.SETUP);
+
+		_responseDispatcher.register(RES_PREF_GUARD_THEF_SET, new ResponseHandler() {
+			@Override
+			public void onResponse(ReceivedData resp, int iOffs) {
+				handleModifyGuardListResponse(resp.getSenderName(), resp.getSenderAddress(),
+						resp.getData(), iOffs, resp.getLength());
+			}
+		}, ServiceState.SETUP);
+
+		ResponseHandler guardContinueHandler = new ResponseHandler() {
+			@Override
+			public void onResponse(ReceivedData resp, int iOffs) {
+				handleGuardContinueResponse(resp.getSenderName(), resp.getSenderAddress(),
+						resp.getData(), iOffs, resp.getLength());
+			}
+		};
+		_responseDispatcher.register(RES_PREF_GUARD_THEF, guardContinueHandler,
+				ServiceState.AWAIT_GUARD_START, ServiceState.REPORT);
+		_responseDispatcher.register(RES_PREF_REPORT_THEF, guardContinueHandler,
+				ServiceState.AWAIT_GUARD_START, ServiceState.REPORT);
+
+		_responseDispatcher.register(RES_PREF_TRIGGER_ALARM, new ResponseHandler() {
+			@Override
+			public void onResponse(ReceivedData resp, int iOffs) {
+				handleAlarmResponse(resp.getSenderName(), resp.getSenderAddress(),
+						resp.getData(), iOffs, resp.getLength());
+			}
+		});
+
+		_responseDispatcher.register(RES_PREF_SK_TRIG_ALARM, new ResponseHandler() {
+			@Override
+			public void onResponse(ReceivedData resp, int iOffs) {
+				handleSkTriggerAlarmResponse(resp.getSenderName(), resp.getSenderAddress(),
+						resp.getData(), iOffs, resp.getLength());
+			}
+		});
+
+		return;
+	}
+
+	private void handleDeleteResponse(String name, String addr, byte[] data, int iOffs, int iLen) {
+		/* Response code is a single-char in the payload, followed by a semi-colon */
+		int iRespCode = readResponseCode(data, iOffs, iLen);
+		if (iRespCode < 0) {
+			Logger.err("Truncated DELETE response from " + addr);
+			return;
+		}
+
+		if (iRespCode == RES_CODE_REG_FAIL) {
+			// Delete failed
+			postDisplay("Deletion failed");
+			return;
+		} else if (iRespCode == RES_CODE_REG_OK) {
+			// Registration OK
+			postDisplay("Deleted");
+		} else {
+			Logger.err("Unknown Response: " + new String(data, 0, iLen));
+		}
+
+		Intent intent = new Intent(ACTION_DELETED);
+		sendBroadcast(intent);
+
+		return;
+	}
+
+	private void handleRegisterResponse(String name, String addr, byte[] data, int iOffs, int iLen) {
+		/* Response code is a single-char in the payload, optionally followed by
+		 *	the protocol version accepted by the SIDEKICK, then a semi-colon */
+		int iRespCode = readResponseCode(data, iOffs, iLen);
+		if (iRespCode < 0) {
+			Logger.err("Truncated REGISTER response from " + addr);
+			return;
+		}
+
+		/* Devices that do not echo a version only understand the ASCII protocol */
+		int iVersion = ProtocolV2.VERSION_ASCII;
+		FrameCodec codec = new FrameCodec().wrap(data, iOffs + 1, iLen - iOffs - 1);
+		if (codec.peek() == FrameCodec.FIELD_DELIM) {
+			codec.readDelimiter();
+			int iAccepted = codec.readInt();
+			if ((!codec.hasError()) && (iAccepted > 0) && (iAccepted <= ProtocolV2.VERSION_MAX)) {
+				iVersion = iAccepted;
+			}
+		}
+
+		if (iRespCode == RES_CODE_REG_FAIL) {
+			// Registration failed
+			Logger.err("Registration failed");
+			postDisplay("Registration failed");
+
+			Intent intent = new Intent(ACTION_UNREGISTERED);
+			sendBroadcast(intent);
+		} else if (iRespCode == RES_CODE_REG_DUP) {
+			// Already Registered
+			Logger.warn("Already registered");
+			postDisplay("Already registered");
+
+			Intent intent = new Intent(ACTION_REGISTERED);
+			sendBroadcast(intent);
+		} else if (iRespCode == RES_CODE_REG_OK) {
+			// Registration OK
+			Logger.info("Registered");
+			postDisplay("Registered");
+
+			Intent intent = new Intent(ACTION_REGISTERED);
+			sendBroadcast(intent);
+		} else {
+			Logger.err("Unknown Response: " + new String(data, 0, iLen));
+		}
+
+		if ((iRespCode == RES_CODE_REG_OK) || (iRespCode == RES_CODE_REG_DUP)) {
+			saveProtocolVersion(addr, iVersion);
+		}
+
+		setState(ServiceState.SETUP);
+
+		return;
+	}
+
+	private void handleModifyGuardListResponse(String name, String addr, byte[] data, int iOffs, int iLen) {
+		/* Response code is a single-char in the payload, followed by a semi-colon */
+		int iRespCode = readResponseCode(data, iOffs, iLen);
+		if (iRespCode < 0) {
+			Logger.err("Truncated GUARD LIST response from " + addr);
+			return;
+		}
+
+		if (iRespCode == RES_CODE_REG_FAIL) {
+			// Registration failed
+			postDisplay("Guard List Modification failed");
+			return;
+		} else if (iRespCode == RES_CODE_REG_OK) {
+			// Registration OK
+			postDisplay("Guard List Modified");
+		} else {
+			Logger.err("Unknown Response: " + new String(data, 0, iLen));
+		}
+
+		Intent intent = new Intent(ACTION_LIST_CHANGED);
+		sendBroadcast(intent);
+
+		return;
+	}
+
+	private void handleGuardContinueResponse(String name, String addr, byte[] data, int iOffs, int iLen) {
+		int iRespCode = readResponseCode(data, iOffs, iLen);
+		if (iRespCode < 0) {
+			Logger.err("Truncated GUARD response from " + addr);
+			return;
+		}
+
+		if (iRespCode == RES_CODE_REG_FAIL) {
+			postDisplay("Sidekick has terminated guard mode");
+			setState(ServiceState.UNKNOWN);
+			if (_cyclicAntiTheftReportTask != null) {
+				_cyclicAntiTheftReportTask.interruptForCycleFinished();
+			}
+			return;
+		}
+
+		if ((iOffs + 1 < iLen) && (data[iOffs+1] == ';')) {
+			if (iRespCode == '2') {
+				postDisplay("Device not in guard list");
+			} else if (iRespCode == '3') {
+				postDisplay("Device already in guard list");
+			} else if (iRespCode == '4') {
+				postDisplay("Device not yet registered");
+			}
+			setState(ServiceState.UNKNOWN);
+			if (_cyclicAntiTheftReportTask != null) {
+				_cyclicAntiTheftReportTask.interruptForCycleFinished();
+			}
+			return;
+		}
+
+		/* Update our report parameters from the received data */
+		_tReportInfoLock.lock();
+		if (_reportInfo == null) {
+			_reportInfo = new ReportModeInfo(0, 0, 0);
+		}
+		PSStatus status = SKUtils.updateReportParams(_reportInfo, data, iOffs, iLen);
+		_tReportInfoLock.unlock();
+
+		if (status != PSStatus.OK) {
+			Logger.err("Malformed report parameters from " + addr);
+			return;
+		}
+
+		/* Display the sync information */
+		long lNextSync = (_reportInfo.getSyncTime() - System.currentTimeMillis() +
+				SKUtils.calculateChannelWindow(_reportInfo.getChannel())) / 1000;
+		postDisplay("Next sync in " + lNextSync + " secs");
+
+		/* Update the state if we're coming from AWAIT_GUARD_START */
+		if (getState() == ServiceState.AWAIT_GUARD_START) {
+			setState(ServiceState.REPORT);
+		}
+
+		return;
+	}
+
+	private void handleGetListResponse(String name, String addr, List<MasterListItem> deviceList) {
+		/* The list itself has already been decoded by the bridge thread (see
+		 *	decodeListFrame()) */
+		if (deviceList == null) {
+			Logger.err("No device list decoded from " + addr);
+			return;
+		}
+
+		int iItemCount = deviceList.size();
+		int ids[] = new int[iItemCount];
+		String names[] = new String[iItemCount];
+		String addrs[] = new String[iItemCount];
+		boolean guarded[] = new boolean[iItemCount];
+
+		for (int iIdx = 0; iIdx < iItemCount; iIdx++) {
+			MasterListItem item = deviceList.get(iIdx);
+			ids[iIdx] = item.getId();
+			names[iIdx] = item.getName();
+			addrs[iIdx] = item.getAddress();
+			guarded[iIdx] = item.isGuarded();
+		}
+
+		/* Notify any interested activities */
+		Intent intent = new Intent(ACTION_LIST_RECEIVED);
+		intent.putExtra("DEVICE_IDS", ids);
+		intent.putExtra("DEVICE_NAMES", names);
+		intent.putExtra("DEVICE_ADDRS", addrs);
+		intent.putExtra("DEVICE_GUARDED", guarded);
+		sendBroadcast(intent);
+
+		postDisplay("Device list received");
+
+		return;
+	}
+
+	private void handleSkTriggerAlarmResponse(String name, String addr, byte[] data, int iOffs, int iLen) {
+		/* Response is a single-char in the payload, followed by a semi-colon,
+		 * 	representing the alarm mode */
+		int iAlarmMode = readResponseCode(data, iOffs, iLen);
+		if (iAlarmMode < 0) {
+			Logger.err("Truncated SK TRIGGER ALARM response from " + addr);
+			return;
+		}
+
+		if (iAlarmMode == ALARM_CODE_DISABLED.charAt(0)) {
+			stopAlarm();
+		} else {
+			startAlarm(Integer.toString(iAlarmMode));
+		}
+
+		return;
+	}
+
+	private void handleAlarmResponse(String name, String addr, byte[] data, int iOffs, int iLen) {
+		/* Response code is a single-char in the payload, followed by a semi-colon */
+		int iRespCode = readResponseCode(data, iOffs, iLen);
+		if (iRespCode < 0) {
+			Logger.err("Truncated TRIGGER ALARM response from " + addr);
+			return;
+		}
+
+		if (iRespCode == RES_CODE_REG_FAIL) {
+			// Trigger Alarm failed
+			postDisplay("Trigger Alarm failed");
+			setAlarmState(_pastAlarmState);
+			return;
+		} else if (iRespCode == RES_CODE_REG_OK) {
+			/* Overwrite our past alarm state on success */
+			setAlarmState(_alarmState);
+
+			/* Notify any receivers that the alarm state has changed */
+			broadcastAlarmStateChanged();
+			postDisplay("Alarm State Changed: " + _alarmState.toString());
+		} else {
+			Logger.err("Unknown Response: " + new String(data, 0, iLen));
+		}
+
+		return;
+	}
+
+	/**
+	 * Decodes whatever is left of a device list once its frame is complete.
+	 * 	Lists that arrived in a single fragment are decoded here in full.
+	 *
+	 * @return the decoded list, or null if the frame is not a device list
+	 */
+	private List<MasterListItem> decodeListFrame(String address, byte[] data, int iOffs,
+			int iLen) {
+		synchronized (_deviceListDecoder) {
+			if (address.equals(_listStreamAddr)) {
+				_deviceListDecoder.feed(data, iOffs + _iListStreamPos, iLen - _iListStreamPos);
+				_deviceListDecoder.finish();
+				_listStreamAddr = null;
+				return takeCompletedList();
+			}
+
+			_listCodec.wrap(data, iOffs, iLen);
+			int iPrefix = _listCodec.readPrefix();
+			if (_listCodec.hasError() || (iPrefix != RES_PREF_GET_LIST)) {
+				return null;
+			}
+
+			/* This drops any other link's list that was still streaming; that
+			 *	one starts over with its next fragment */
+			_listStreamAddr = null;
+			int iPayloadPos = _listCodec.getPosition();
+			_deviceListDecoder.reset();
+			_decodedListItems.clear();
+			_completedListItems = null;
+			_deviceListDecoder.feed(data, iOffs + iPayloadPos, iLen - iPayloadPos);
+			_deviceListDecoder.finish();
+			return takeCompletedList();
+		}
+	}
+
+	/* Must be called with the decoder lock held */
+	private List<MasterListItem> takeCompletedList() {
+		List<MasterListItem> deviceList = _completedListItems;
+		_completedListItems = null;
+		return deviceList;
+	}
+
+	/**
+	 * @param iLen	length of the whole frame, which the payload at iOffs is part of
+	 * @return the single-char code at the start of the payload, or -1 if the
+	 * 	frame ends before it
+	 */
+	private static int readResponseCode(byte[] data, int iOffs, int iLen) {
+		if ((iOffs < 0) || (iOffs >= iLen) || (iLen > data.length)) {
+			return -1;
+		}
+		return (data[iOffs] & 0xFF);
+	}
+
 	/* *************** */
 	/* Private Methods */
 	/* *************** */
@@ -864,66 +1408,172 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 		return;
 	}
 
-	private PSStatus broadcastDeviceFound(GuardedItem device) {
-		/* Broadcast our received data for our receivers */
-		Intent foundIntent = new Intent(ACTION_UPDATE_FOUND);
-		foundIntent.putExtra("NAME", device.getName());
-		foundIntent.putExtra("ADDRESS", device.getAddress());
-		foundIntent.putExtra("LOST_STATUS", false);
-		foundIntent.putExtra("RSSI", device.getRssi());
-		sendBroadcast(foundIntent);
+	private void postDisplay(final String msg) {
+		/* Toasts can only be shown from the main thread */
+		_uiHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				display(msg);
+				return;
+			}
+		});
+		return;
+	}
 
+	private PSStatus broadcastDeviceFound(GuardedItem device) {
+		/* Repeated sightings of the same device are coalesced by the bus */
+		_eventBus.publish(TOPIC_UPDATE_FOUND, device.getAddress(), device);
 		return PSStatus.OK;
 	}
 
 	private PSStatus broadcastAlarmStateChanged() {
-		/* Broadcast our received data for our receivers */
-		Intent foundIntent = new Intent(ACTION_ALARM_CHANGED);
-		foundIntent.putExtra("MODE", _alarmState.toString());
-		sendBroadcast(foundIntent);
-
+		_eventBus.publish(TOPIC_ALARM_CHANGED, _alarmState);
 		return PSStatus.OK;
 	}
 
 	private PSStatus broadcastServiceStateChanged() {
-		/* Broadcast our received data for our receivers */
-		Intent foundIntent = new Intent(ACTION_STATE_CHANGED);
-		foundIntent.putExtra("STATE", getState().toString());
-		sendBroadcast(foundIntent);
-
+		_eventBus.publish(TOPIC_STATE_CHANGED, getState());
 		return PSStatus.OK;
 	}
 
-	private PSStatus performBroadcast(IBluetoothBridge btBridge, byte data[]) {
-		if (data.length > SKUtils.MAX_TX_LEN) {
-			return broadcastAsStream(btBridge, data);
+	/**
+	 * Subscribes the listeners which forward in-process events to the
+	 * 	activities, which live in another process and can only be reached
+	 * 	through system broadcasts
+	 */
+	private void registerEventForwarders() {
+		_eventBus.subscribe(TOPIC_UPDATE_FOUND, _deviceFoundForwarder);
+		_eventBus.subscribe(TOPIC_ALARM_CHANGED, _alarmChangedForwarder);
+		_eventBus.subscribe(TOPIC_STATE_CHANGED, _stateChangedForwarder);
+		_eventBus.subscribe(AndroidBluetoothLeBridge.TOPIC_LE_SCAN_BATCH, _leScanBatchForwarder);
+		return;
+	}
+
+	private void unregisterEventForwarders() {
+		_eventBus.unsubscribe(TOPIC_UPDATE_FOUND, _deviceFoundForwarder);
+		_eventBus.unsubscribe(TOPIC_ALARM_CHANGED, _alarmChangedForwarder);
+		_eventBus.unsubscribe(TOPIC_STATE_CHANGED, _stateChangedForwarder);
+		_eventBus.unsubscribe(AndroidBluetoothLeBridge.TOPIC_LE_SCAN_BATCH, _leScanBatchForwarder);
+		return;
+	}
+
+	private boolean isBinaryProtocol(MacAddress address) {
+		return (getProtocolVersion(address) >= ProtocolV2.VERSION_BINARY);
+	}
+
+	private PendingRequest beginRequest(String cmdName, MacAddress target, int iResponsePrefix) {
+		return beginRequest(cmdName, target, iResponsePrefix, DEFAULT_REQUEST_TIMEOUT);
+	}
+
+	private PendingRequest beginRequest(String cmdName, MacAddress target, int iResponsePrefix,
+			long lTimeout) {
+		PendingRequest req = _pendingRequests.add(cmdName, target, iResponsePrefix, lTimeout);
+		scheduleRequestExpiry();
+		return req;
+	}
+
+	private void abortRequest(PendingRequest req) {
+		_pendingRequests.remove(req);
+		req.fail();
+		return;
+	}
+
+	/* Sends the request currently held by the request encoder */
+	private PendingRequest sendRequest(PendingRequest req, MacAddress target) {
+		if (transmit(req.getName(), target, _requestEncoder.array(),
+				_requestEncoder.length()) != PSStatus.OK) {
+			Logger.err("Failed to send " + req.getName() + " command to " + target);
+			abortRequest(req);
+		}
+		return req;
+	}
+
+	private static PSStatus toSendStatus(PendingRequest req) {
+		return req.isFailed() ? PSStatus.FAILED : PSStatus.OK;
+	}
+
+	private void scheduleRequestExpiry() {
+		long lNextDeadline = _pendingRequests.getNextDeadline();
+		if (lNextDeadline < 0) {
+			return;
+		}
+
+		_uiHandler.removeCallbacks(_requestExpiryCheck);
+		_uiHandler.postDelayed(_requestExpiryCheck,
+				Math.max(0, lNextDeadline - System.currentTimeMillis()));
+		return;
+	}
+
+	/**
+	 * @return the protocol version negotiated with the given device, or v1 if
+	 * 	none was or the device is not known
+	 */
+	private int getProtocolVersion(MacAddress address) {
+		if (address == null) {
+			return ProtocolV2.VERSION_ASCII;
+		}
+
+		Integer version = _protocolVersions.get(address);
+		if (version == null) {
+			version = loadProtocolVersion(address.toString());
+			_protocolVersions.put(address, version);
 		}
+		return version;
+	}
 
-		return broadcastDirectly(btBridge, data);
+	private int loadProtocolVersion(String address) {
+		SharedPreferences prefs = getSharedPreferences(PROTOCOL_PREFS, MODE_PRIVATE);
+		return prefs.getInt(address, ProtocolV2.VERSION_ASCII);
 	}
 
-	private PSStatus broadcastAsStream(IBluetoothBridge btBridge, byte data[]) {
-		ByteArrayInputStream byteStream = new ByteArrayInputStream(data);
-		byte sendBuffer[] = new byte[SKUtils.MAX_TX_LEN];
+	private void saveProtocolVersion(String address, int iVersion) {
+		MacAddress mac = MacAddress.parse(address);
+		if (mac != null) {
+			_protocolVersions.put(mac, iVersion);
+		}
+
+		/* This runs on the inbound dispatcher, so the write must not block it */
+		SharedPreferences prefs = getSharedPreferences(PROTOCOL_PREFS, MODE_PRIVATE);
+		prefs.edit().putInt(address, iVersion).apply();
 
-		int bytesRemaining = byteStream.available();
-		while (bytesRemaining > 0) {
-			Arrays.fill(sendBuffer, (byte)(0));
+		Logger.info("Using protocol v" + iVersion + " for " + address);
+		return;
+	}
+
+	private PSStatus transmit(String cmdName, MacAddress target, byte data[], int iLen) {
+		/* Split the frame into as few chunks as possible. The last chunk is
+		 *	sent as is, without any padding. Chunks are passed as slices of the
+		 *	frame rather than copies. */
+		int iMaxChunkLen = _bluetoothBridge.getMaxPayloadSize();
+		if (iMaxChunkLen <= 0) {
+			iMaxChunkLen = SKUtils.MAX_TX_LEN;
+		}
+
+		int iChunks = 0;
+		int iOffs = 0;
+		while (iOffs < iLen) {
+			int iChunkLen = Math.min(iLen - iOffs, iMaxChunkLen);
+
+			/* Send only to the request's target, so that other links are left
+			 *	alone. Broadcast if the target is not known. */
+			PSStatus status;
+			if (target != null) {
+				status = _bluetoothBridge.send(target, data, iOffs, iChunkLen);
+			} else {
+				status = _bluetoothBridge.broadcast(data, iOffs, iChunkLen);
+			}
 
-			/* Read up to MAX_TX_LEN bytes from the stream */
-			byteStream.read(sendBuffer, 0, SKUtils.MAX_TX_LEN);
-			if (btBridge.broadcast(sendBuffer) != PSStatus.OK) {
+			if (status != PSStatus.OK) {
 				return PSStatus.FAILED;
 			}
 
-			bytesRemaining = byteStream.available();
+			iOffs += iChunkLen;
+			iChunks++;
 		}
 
-		return PSStatus.OK;
-	}
+		_txStats.record(cmdName, iLen, iChunks);
 
-	private PSStatus broadcastDirectly(IBluetoothBridge btBridge, byte data[]) {
-		return btBridge.broadcast(data);
+		return PSStatus.OK;
 	}
 
 	/* ********************* */
@@ -971,7 +1621,7 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 					break;
 				}
 				String remoteAddr = data.getString("DEVICE_ADDR", "");
-				status = sendRegisterRequest(remoteAddr);
+				status = toSendStatus(sendRegisterRequest(remoteAddr));
 				break;
 			case MSG_SEND_GET_LIST:
 				if (data == null) {
@@ -979,7 +1629,7 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 					break;
 				}
 				String listFromAddr = data.getString("DEVICE_ADDR", "");
-				status = sendGetListRequest(listFromAddr);
+				status = toSendStatus(sendGetListRequest(listFromAddr));
 				break;
 			case MSG_DISCONNECT:
 				if (data == null) {
@@ -1001,7 +1651,7 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 					break;
 				}
 				int unregDvcId = data.getInt("DEVICE_ID", -1);
-				status = sendUnregisterRequest(unregDvcId);
+				status = toSendStatus(sendUnregisterRequest(unregDvcId));
 				break;
 			case MSG_SET_ALARM_TOGGLE:
 				if (data == null) {
@@ -1017,7 +1667,7 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 					break;
 				}
 				String edtGuardDataStr = data.getString("GUARD_SETUP", "");
-				status = sendModifyGuardListRequest(edtGuardDataStr);
+				status = toSendStatus(sendModifyGuardListRequest(edtGuardDataStr));
 				break;
 			case MSG_RENAME_SIDEKICK:
 				if (data == null) {
@@ -1025,7 +1675,7 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 					break;
 				}
 				String renameStr = data.getString("DEVICE_NAME", "");
-				status = sendRenameRequest(renameStr);
+				status = toSendStatus(sendRenameRequest(renameStr));
 				break;
 			case MSG_TRIGGER_ALARM:
 				if (data == null) {
@@ -1034,11 +1684,14 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 				}
 				String alarmAddrStr = data.getString("DEVICE_ADDR", "");
 				String alarmModeStr = data.getString("MODE", ALARM_CODE_DISABLED);
-				status = sendTriggerAlarmRequest(alarmAddrStr, alarmModeStr);
+				status = toSendStatus(sendTriggerAlarmRequest(alarmAddrStr, alarmModeStr));
 				break;
 			case MSG_GET_ALARM_STATE:
 				status = replyAlarmState(msg.replyTo);
 				break;
+			case MSG_QUERY_TX_STATS:
+				status = replyTxStatistics(msg.replyTo);
+				break;
 			default:
 				super.handleMessage(msg);
 				break;
@@ -1139,15 +1792,6 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 			return;
 		}
 
-		public void interrupt() {
-			_runThreadLock.lock();
-			if (_runThread != null) {
-				_runThread.interrupt();
-			}
-			_runThreadLock.unlock();
-			return;
-		}
-
 		/* ********************** */
 		/* Main Procedure Methods */
 		/* ********************** */
@@ -1167,13 +1811,16 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 			setState(ServiceState.AWAIT_GUARD_START);
 
 			/* Send the initial Anti-Theft Mode Guard Start Request */
-			if (sendGuardReadyRequest() != PSStatus.OK) {
+			PendingRequest req = sendGuardReadyRequest(_sidekickAddress);
+			if (req.isFailed()) {
 				return PSStatus.FAILED;
 			}
 
 			/* Wait for the Anti-Theft Mode Guard Start Response */
 			try {
-				Thread.sleep(DEFAULT_AWAIT_REPORT_CONN_TIME);
+				if (req.await() != PendingRequest.Status.COMPLETED) {
+					Logger.warn("No response to " + req);
+				}
 			} catch (InterruptedException e) {
 				Logger.warn("Interrupted");
 			} catch (Exception e) {
@@ -1299,18 +1946,12 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 				return PSStatus.FAILED;
 			}
 
-			/* Wait for the connection to complete */
-			try {
-				Thread.sleep(DEFAULT_AWAIT_SIDEKICK_CONN);
-			} catch (InterruptedException e) {
-				Logger.warn("Interrupted connectToSidekick()");
-				/* Handle interrupts due to termination */
-				if (getState() != ServiceState.REPORT) {
-					return PSStatus.FATAL_ERROR;
-				}
-			} catch (Exception e) {
-				Logger.err("Exception occurred: " + e.getMessage());
-				return PSStatus.FATAL_ERROR;
+			/* The bridge only returns once the link is ready or has failed,
+			 *	so there is nothing left to wait for. Report mode may have been
+			 *	stopped while we were connecting, though. */
+			if (getState() != ServiceState.REPORT) {
+				Logger.warn("Report mode stopped during connectToSidekick()");
+				return PSStatus.INTERRUPTED;
 			}
 
 			if (getBluetoothState() == BTState.CONNECTED) {
@@ -1341,29 +1982,32 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 			}
 
 			/* Send a report request to the SIDEKICK device */
-			if (sendReportRequest(iChannel, "1", alarmStatus) != PSStatus.OK) {
+			PendingRequest req = sendReportRequest(_sidekickAddress, iChannel, "1", alarmStatus);
+			if (req.isFailed()) {
 				Logger.err("Failed to send REPORT request");
 				return PSStatus.FAILED;
 			}
 
 			Logger.info("Waiting for response...");
 			try {
-				Thread.sleep(DEFAULT_AWAIT_RESPONSE_TIME);
+				req.await();
 			} catch (InterruptedException e) {
 				Logger.warn("Interrupted");
 				/* Handle interrupts due to termination */
 				if (getState() != ServiceState.REPORT) {
 					return PSStatus.INTERRUPTED;
 				}
-
-				/* Normal interruptions should proceed as usual */
-				Logger.info("Response received.");
-				return PSStatus.OK;
+				/* Other interruptions fall through to the request's own status */
 			} catch (Exception e) {
 				Logger.err("Exception occurred: " + e.getMessage());
 				return PSStatus.FATAL_ERROR;
 			}
 
+			if (req.getStatus() == PendingRequest.Status.COMPLETED) {
+				Logger.info("Response received.");
+				return PSStatus.OK;
+			}
+
 			/* Return FAILED if we do not receive any responses before the timeout */
 			return PSStatus.FAILED;
 		}
@@ -1380,7 +2024,7 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 			}
 
 			/* Send a report request to the SIDEKICK device */
-			if (sendReportRequest(iChannel, "0", alarmStatus) != PSStatus.OK) {
+			if (sendReportRequest(_sidekickAddress, iChannel, "0", alarmStatus).isFailed()) {
 				Logger.err("Failed to send REPORT END request");
 				return PSStatus.FAILED;
 			}
@@ -1498,283 +2142,161 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 		}
 	}
 
-	private class HandleReceivedDataTask extends
-			AsyncTask<ReceivedData, String, Void> {
+	/* Runs on the inbound pipeline's dispatcher thread, one response at a time */
+	private class ReceivedDataConsumer implements InboundPipeline.Consumer<ReceivedData> {
+		/* Only ever used from the dispatcher thread */
+		private final FrameCodec _codec = new FrameCodec();
 
 		@Override
-		protected Void doInBackground(ReceivedData... params) {
-			// publishProgress("Handle Received Data Task Started");
-
-			ReceivedData recvData = params[0];
-
+		public void onItem(ReceivedData recvData) {
 			/* SAN-check that the received data is not null */
 			if (recvData == null) {
 				Logger.err("Received data is NULL");
-				return null;
-			}
-
-			String sender = recvData.getSenderName();
-			String address = recvData.getSenderAddress();
-			byte data[] = recvData.getData();
-			if (data.length < 4) {
-				Logger.err("Invalid data received: " + new String(data).trim());
-				return null;
-			}
-			String cmdPrefix = new String(data, 0, 4).trim();
-			boolean suppressDisplay = false;
-
-			/* Check request contents */
-			if (cmdPrefix.startsWith(RES_PREF_REGISTER)) {
-				handleRegisterResponse(sender, address, data);
-				suppressDisplay = true;
-			} else if (cmdPrefix.startsWith(RES_PREF_GET_LIST)) {
-				handleGetListResponse(sender, address, data);
-				suppressDisplay = true;
-			} else if (cmdPrefix.startsWith(RES_PREF_DELETE)) {
-				handleDeleteResponse(sender, address, data);
-				suppressDisplay = true;
-			} else if (cmdPrefix.startsWith(RES_PREF_GUARD_THEF_SET)) {
-				handleModifyGuardListResponse(sender, address, data);
-				suppressDisplay = true;
-			} else if (cmdPrefix.startsWith(RES_PREF_GUARD_THEF)) {
-				handleGuardContinueResponse(sender, address, data);
-				suppressDisplay = true;
-			} else if (cmdPrefix.startsWith(RES_PREF_REPORT_THEF)) {
-				handleGuardContinueResponse(sender, address, data);
-				suppressDisplay = true;
-			} else if (cmdPrefix.startsWith(RES_PREF_TRIGGER_ALARM)) {
-				handleAlarmResponse(sender, address, data);
-				suppressDisplay = true;
-			} else if (cmdPrefix.startsWith(RES_PREF_SK_TRIG_ALARM)) {
-				handleSkTriggerAlarmResponse(sender, address, data);
-				suppressDisplay = true;
-			} else {
-				Logger.warn("Unknown handling for received data: " + new String(data));
-			}
-
-			/* Broadcast our received data for our receivers */
-			if (!suppressDisplay) {
-				Intent intent = new Intent(ACTION_DATA_RECEIVE);
-				intent.putExtra("SENDER_NAME", sender);
-				intent.putExtra("SENDER_ADDR", address);
-				intent.putExtra("SENDER_DATA", new String(data));
-				sendBroadcast(intent);
-			}
-
-			// publishProgress("Handle Received Data Task Finished");
-			return null;
-		}
-
-		@Override
-		protected void onProgressUpdate(String... values) {
-			if (values[0] == null) {
 				return;
 			}
 
-			display(values[0]);
+			handleReceivedData(recvData);
 
-			super.onProgressUpdate(values);
+			/* Nothing holds on to the envelope once it has been handled */
+			recvData.recycle();
 			return;
 		}
 
-		private void handleDeleteResponse(String name, String addr, byte[] data) {
-			if (getState() != ServiceState.SETUP) {
-				Logger.warn("Invalid state for DELETE responses");
+		private void handleReceivedData(ReceivedData recvData) {
+			/* Read the prefix, or the opcode for binary (v2) responses. Either way
+			 *	the payload should follow it. */
+			byte data[] = recvData.getData();
+			FrameCodec codec = _codec.wrap(data, 0, recvData.getLength());
+			int iPrefix = codec.readPrefix();
+			if (!codec.hasRemaining()) {
+				Logger.err("Invalid data received: " + recvData.getText().trim());
 				return;
 			}
 
-			/* Response code is a single-char in the payload, followed by a semi-colon */
-			int iRespCode = data[SKUtils.IDX_PAYLOAD_DATA_OFFS];
-
-			if (iRespCode == RES_CODE_REG_FAIL) {
-				// Delete failed
-				publishProgress("Deletion failed");
+			/* Match the response against the request it answers on the same
+			 *	link. Responses that echo a sequence number we are no longer
+			 *	waiting on are stale. */
+			int iSeq = codec.getSequence();
+			MacAddress sender = MacAddress.parse(recvData.getSenderAddress());
+			PendingRequest req = _pendingRequests.take(sender, iPrefix, iSeq);
+			if ((req == null) && (iSeq != PendingRequestTable.SEQ_NONE)) {
+				Logger.warn("Dropping late " + FrameCodec.prefixToString(iPrefix) +
+						" response #" + iSeq);
 				return;
-			} else if (iRespCode == RES_CODE_REG_OK) {
-				// Registration OK
-				publishProgress("Deleted");
-			} else {
-				Logger.err("Unknown Response: " + new String(data));
 			}
 
-			Intent intent = new Intent(ACTION_DELETED);
-			sendBroadcast(intent);
-
-			return;
-		}
+			/* Look up the handler for this response through its packed prefix */
+			ResponseDispatcher.Result result = _responseDispatcher.dispatch(iPrefix,
+					getState(), recvData, codec.getPosition());
 
-		private void handleRegisterResponse(String name, String addr, byte[] data) {
-			if (getState() != ServiceState.REGISTERING) {
-				Logger.warn("Invalid state for REGISTER responses");
-				return;
+			/* Only release anyone waiting on the request after its handler ran.
+			 *	A response the handler never saw does not count as an answer. */
+			if (req != null) {
+				if (result == ResponseDispatcher.Result.HANDLED) {
+					req.complete();
+				} else {
+					Logger.warn("Response to " + req + " was not handled: " + result);
+					req.fail();
+				}
 			}
 
-			/* Response code is a single-char in the payload, followed by a semi-colon */
-			int iRespCode = data[SKUtils.IDX_PAYLOAD_DATA_OFFS];
-			if (iRespCode == RES_CODE_REG_FAIL) {
-				// Registration failed
-				Logger.err("Registration failed");
-				publishProgress("Registration failed");
+			/* Broadcast unknown data for our receivers */
+			if (result == ResponseDispatcher.Result.UNKNOWN) {
+				Logger.warn("Unknown handling for received data: " + recvData.getText());
 
-				Intent intent = new Intent(ACTION_UNREGISTERED);
-				sendBroadcast(intent);
-			} else if (iRespCode == RES_CODE_REG_DUP) {
-				// Already Registered
-				Logger.warn("Already registered");
-				publishProgress("Already registered");
-
-				Intent intent = new Intent(ACTION_REGISTERED);
-				sendBroadcast(intent);
-			} else if (iRespCode == RES_CODE_REG_OK) {
-				// Registration OK
-				Logger.info("Registered");
-				publishProgress("Registered");
-
-				Intent intent = new Intent(ACTION_REGISTERED);
+				Intent intent = new Intent(ACTION_DATA_RECEIVE);
+				intent.putExtra("SENDER_NAME", recvData.getSenderName());
+				intent.putExtra("SENDER_ADDR", recvData.getSenderAddress());
+				intent.putExtra("SENDER_DATA", recvData.getText());
 				sendBroadcast(intent);
-			} else {
-				Logger.err("Unknown Response: " + new String(data));
-			}
-
-			setState(ServiceState.SETUP);
-
-			return;
-		}
-
-		private void handleModifyGuardListResponse(String name, String addr, byte[] data) {
-			if (getState() != ServiceState.SETUP) {
-				Logger.warn("Invalid state for MODIFY GUARD LIST responses");
-				return;
 			}
 
-			/* Response code is a single-char in the payload, followed by a semi-colon */
-			int iRespCode = data[SKUtils.IDX_PAYLOAD_DATA_OFFS];
-
-			if (iRespCode == RES_CODE_REG_FAIL) {
-				// Registration failed
-				publishProgress("Guard List Modification failed");
-				return;
-			} else if (iRespCode == RES_CODE_REG_OK) {
-				// Registration OK
-				publishProgress("Guard List Modified");
-			} else {
-				Logger.err("Unknown Response: " + new String(data));
-			}
-
-			Intent intent = new Intent(ACTION_LIST_CHANGED);
-			sendBroadcast(intent);
-
 			return;
 		}
+	}
 
-		private void handleGuardContinueResponse(String name, String addr, byte[] data) {
-			if ((getState() != ServiceState.AWAIT_GUARD_START) &&
-					(getState() != ServiceState.REPORT)) {
-				Logger.warn("Invalid state for GUARD CONTINUE responses");
-				return;
-			}
-
-			if (data[SKUtils.IDX_PAYLOAD_DATA_OFFS] == RES_CODE_REG_FAIL) {
-				publishProgress("Sidekick has terminated guard mode");
-				setState(ServiceState.UNKNOWN);
-				if (_cyclicAntiTheftReportTask != null) {
-					_cyclicAntiTheftReportTask.interruptForCycleFinished();
+	private final DeviceListDecoder _deviceListDecoder = new DeviceListDecoder(
+			new DeviceListDecoder.Listener() {
+				@Override
+				public void onItemDecoded(MasterListItem item) {
+					_decodedListItems.add(item);
+					return;
 				}
-				return;
-			}
 
-			if (data[SKUtils.IDX_PAYLOAD_DATA_OFFS+1] == ';') {
-				if (data[SKUtils.IDX_PAYLOAD_DATA_OFFS] == '2') {
-					publishProgress("Device not in guard list");
-				} else if (data[SKUtils.IDX_PAYLOAD_DATA_OFFS] == '3') {
-					publishProgress("Device already in guard list");
-				} else if (data[SKUtils.IDX_PAYLOAD_DATA_OFFS] == '4') {
-					publishProgress("Device not yet registered");
+				@Override
+				public void onListComplete(int iItemCount) {
+					/* Nothing is published until the dispatcher matches the frame
+					 *	to its request (see handleGetListResponse()) */
+					_completedListItems = new ArrayList<MasterListItem>(_decodedListItems);
+					return;
 				}
-				setState(ServiceState.UNKNOWN);
-				if (_cyclicAntiTheftReportTask != null) {
-					_cyclicAntiTheftReportTask.interruptForCycleFinished();
+			});
+
+	/* **************** */
+	/* Event Forwarders */
+	/* **************** */
+	private final EventBus.Listener<GuardedItem> _deviceFoundForwarder =
+			new EventBus.Listener<GuardedItem>() {
+				@Override
+				public void onEvent(GuardedItem device) {
+					/* Broadcast our received data for our receivers */
+					Intent foundIntent = new Intent(ACTION_UPDATE_FOUND);
+					foundIntent.putExtra("NAME", device.getName());
+					foundIntent.putExtra("ADDRESS", device.getAddress());
+					foundIntent.putExtra("LOST_STATUS", false);
+					foundIntent.putExtra("RSSI", device.getRssi());
+					foundIntent.putExtra("RSSI_SLOPE", device.getRssiSlope());
+					sendBroadcast(foundIntent);
+					return;
 				}
-				return;
-			}
-
-			/* Update our report parameters from the received data */
-			_tReportInfoLock.lock();
-			if (_reportInfo == null) {
-				_reportInfo = new ReportModeInfo(0, 0, 0);
-			}
-			SKUtils.updateReportParams(_reportInfo, data, SKUtils.IDX_PAYLOAD_DATA_OFFS);
-			_tReportInfoLock.unlock();
-
-			/* Display the sync information */
-			long lNextSync = (_reportInfo.getSyncTime() - System.currentTimeMillis() +
-					SKUtils.calculateChannelWindow(_reportInfo.getChannel())) / 1000;
-			publishProgress("Next sync in " + lNextSync + " secs");
-
-			/* Update the state if we're coming from AWAIT_GUARD_START */
-			if (getState() == ServiceState.AWAIT_GUARD_START) {
-				setState(ServiceState.REPORT);
-			}
-
-			if (_cyclicAntiTheftReportTask != null) {
-				_cyclicAntiTheftReportTask.interrupt();
-			}
-
-			return;
-		}
-
-		private void handleGetListResponse(String name, String addr, byte[] data) {
-			/* Handle the GET LIST response */
-			String dvcListStr = SKUtils.decodeBinaryDeviceList(data, SKUtils.IDX_PAYLOAD_DATA_OFFS);
-			String devices[] = dvcListStr.split(",");
-
-			publishProgress("Device list received");
-			
-			/* Notify any interested activities */
-			Intent intent = new Intent(ACTION_LIST_RECEIVED);
-			intent.putExtra("DEVICES", devices);
-			sendBroadcast(intent);
-
-			return;
-		}
-
-		private void handleSkTriggerAlarmResponse(String name, String addr, byte[] data) {
-			/* Response is a single-char in the payload, followed by a semi-colon,
-			 * 	representing the alarm mode */
-			int iAlarmMode = data[SKUtils.IDX_PAYLOAD_DATA_OFFS];
-
-			if (iAlarmMode == ALARM_CODE_DISABLED.charAt(0)) {
-				stopAlarm();
-			} else {
-				startAlarm(Integer.toString(iAlarmMode));
-			}
-
-			return;
-		}
-
-		private void handleAlarmResponse(String name, String addr, byte[] data) {
-			/* Response code is a single-char in the payload, followed by a semi-colon */
-			int iRespCode = data[SKUtils.IDX_PAYLOAD_DATA_OFFS];
-
-			if (iRespCode == RES_CODE_REG_FAIL) {
-				// Trigger Alarm failed
-				publishProgress("Trigger Alarm failed");
-				setAlarmState(_pastAlarmState);
-				return;
-			} else if (iRespCode == RES_CODE_REG_OK) {
-				/* Overwrite our past alarm state on success */
-				setAlarmState(_alarmState);
-
-				/* Notify any receivers that the alarm state has changed */
-				broadcastAlarmStateChanged();
-				publishProgress("Alarm State Changed: " + _alarmState.toString());
-			} else {
-				Logger.err("Unknown Response: " + new String(data));
-			}
+			};
+
+	private final EventBus.Listener<AlarmState> _alarmChangedForwarder =
+			new EventBus.Listener<AlarmState>() {
+				@Override
+				public void onEvent(AlarmState alarmState) {
+					Intent intent = new Intent(ACTION_ALARM_CHANGED);
+					intent.putExtra("MODE", alarmState.toString());
+					sendBroadcast(intent);
+					return;
+				}
+			};
+
+	private final EventBus.Listener<ServiceState> _stateChangedForwarder =
+			new EventBus.Listener<ServiceState>() {
+				@Override
+				public void onEvent(ServiceState state) {
+					Intent intent = new Intent(ACTION_STATE_CHANGED);
+					intent.putExtra("STATE", state.toString());
+					sendBroadcast(intent);
+					return;
+				}
+			};
+
+	private final EventBus.Listener<List<ScanAggregator.Sighting>> _leScanBatchForwarder =
+			new EventBus.Listener<List<ScanAggregator.Sighting>>() {
+				@Override
+				public void onEvent(List<ScanAggregator.Sighting> batch) {
+					/* The whole batch goes out as a single broadcast */
+					int iCount = batch.size();
+					String names[] = new String[iCount];
+					String addresses[] = new String[iCount];
+					int rssis[] = new int[iCount];
+					for (int iIdx = 0; iIdx < iCount; iIdx++) {
+						ScanAggregator.Sighting sighting = batch.get(iIdx);
+						names[iIdx] = sighting.getName();
+						addresses[iIdx] = sighting.getAddress();
+						rssis[iIdx] = sighting.getRssi();
+					}
 
-			return;
-		}
-	}
+					Intent intent = new Intent(AndroidBluetoothLeBridge.ACTION_LE_DISCOVERED);
+					intent.putExtra("NAMES", names);
+					intent.putExtra("ADDRESSES", addresses);
+					intent.putExtra("RSSI", rssis);
+					sendBroadcast(intent);
+					return;
+				}
+			};
 
 	private final BroadcastReceiver _receiver = new BroadcastReceiver() {
 		public void onReceive(Context context, Intent intent) {
@@ -1787,8 +2309,9 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 				String address = device.getAddress();
 				String name = device.getName();
 
+				GuardedItem foundItem = new GuardedItem(name, address);
 				for (GuardedItem item : _foundDevices) {
-					if (item.addressMatches(address)) {
+					if (item.addressMatches(foundItem)) {
 						item.setIsLost(false);
 						item.setRssi(uRssi);
 
@@ -1799,13 +2322,12 @@ public class ProjectSidekickService extends Service implements BluetoothEventHan
 						return;
 					}
 				}
-				GuardedItem newItem = new GuardedItem(name, address);
-				newItem.setIsLost(false);
-				newItem.setRssi(uRssi);
-				_foundDevices.add(newItem);
+				foundItem.setIsLost(false);
+				foundItem.setRssi(uRssi);
+				_foundDevices.add(foundItem);
 
-				Logger.info("Added found device: " + newItem.toString());
-				broadcastDeviceFound(newItem);
+				Logger.info("Added found device: " + foundItem.toString());
+				broadcastDeviceFound(foundItem);
 
 				return;
 			}
@@ -8,14 +8,20 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import net.sojourner.projectsidekick.interfaces.BluetoothEventHandler;
 import net.sojourner.projectsidekick.interfaces.IBluetoothBridge;
 import net.sojourner.projectsidekick.types.BTState;
+import net.sojourner.projectsidekick.types.MacAddress;
 import net.sojourner.projectsidekick.types.PSStatus;
+import net.sojourner.projectsidekick.types.ReceivedData;
+import net.sojourner.projectsidekick.utils.DiscoveryIndex;
+import net.sojourner.projectsidekick.utils.FrameAssembler;
 import net.sojourner.projectsidekick.utils.Logger;
+import net.sojourner.projectsidekick.utils.SKUtils;
 
 import android.annotation.SuppressLint;
 import android.annotation.TargetApi;
@@ -45,8 +51,8 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 
 	/* Device list maps */
 	private HashMap<String, String> _pairedDevices 						= null;
-	private HashMap<String, String> _discoveredDevices 					= null;
-	private HashMap<String, BluetoothConnection> _currentConnections 	= null;
+	private volatile DiscoveryIndex _discoveredDevices 					= null;
+	private ConcurrentHashMap<MacAddress, BluetoothConnection> _currentConnections = null;
 	
 	/* Threads and Event Handlers */
 	private BluetoothEventHandler _eventHandler 			= null;
@@ -222,7 +228,13 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 			return PSStatus.FAILED;
 		}
 		
-		if (_currentConnections.containsKey(address) == true) {
+		MacAddress mac = MacAddress.parse(address);
+		if (mac == null) {
+			Logger.err("Invalid bluetooth hardware address: " + address);
+			return PSStatus.FAILED;
+		}
+
+		if (_currentConnections.containsKey(mac) == true) {
 			Logger.err("Already connected");
 			return PSStatus.OK;
 		}
@@ -256,7 +268,7 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 		/* Check if the address being connected to is already in the
 		 *  current connections list. If not, the connect operation
 		 *  was unsuccessful. */
-		if (_currentConnections.containsKey(address) == false) {
+		if (_currentConnections.containsKey(mac) == false) {
 			if (_bluetoothConnectThread != null) {
 				_bluetoothConnectThread.cancel();
 			}
@@ -299,11 +311,15 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 		String address = "";
 		if (_pairedDevices.containsKey(name)) {
 			address = _pairedDevices.get(name);
-		} else if (_discoveredDevices.containsKey(name)) {
-			address = _discoveredDevices.get(name);
+		} else {
+			String discoveredAddress = _discoveredDevices.findAddress(name);
+			if (discoveredAddress != null) {
+				address = discoveredAddress;
+			}
 		}
 		
-		if (address.length() > 0 && _currentConnections.containsKey(address)) {
+		MacAddress mac = MacAddress.parse(address);
+		if ((mac != null) && _currentConnections.containsKey(mac)) {
 			Logger.info("Already connected");
 			return PSStatus.OK;
 		}
@@ -315,20 +331,34 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 
 	@Override
 	public PSStatus disconnectDeviceByAddress(String address) {
-		if (!_currentConnections.containsKey(address)) {
+		if (_currentConnections == null) {
+			Logger.err("No connections found");
+			return PSStatus.FAILED;
+		}
+
+		MacAddress mac = MacAddress.parse(address);
+		if (mac == null) {
+			Logger.err("Invalid bluetooth hardware address: " + address);
+			return PSStatus.FAILED;
+		}
+
+		BluetoothConnection conn = _currentConnections.remove(mac);
+		if (conn == null) {
 			return PSStatus.FAILED;
 		}
 		
-		BluetoothConnection conn = _currentConnections.get(address);
 		conn.cancel();
-
-		_currentConnections.remove(conn);
 		
 		return PSStatus.OK;
 	}
 
 	@Override
 	public PSStatus broadcast(byte[] data) {
+		return broadcast(data, 0, data.length);
+	}
+
+	@Override
+	public PSStatus broadcast(byte[] data, int iOffs, int iLen) {
 		/* Allow broadcast only if we're in the connected state */
 		if (_state != BTState.CONNECTED) {
 			Logger.err("Invalid state for broadcast()");
@@ -345,13 +375,65 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 			return PSStatus.FAILED;
 		}
 		
-		for (Map.Entry<String, BluetoothConnection> conn : _currentConnections.entrySet()) {
-			conn.getValue().write(data);
+		for (Map.Entry<MacAddress, BluetoothConnection> conn : _currentConnections.entrySet()) {
+			conn.getValue().write(data, iOffs, iLen);
 		}
 		
 		return PSStatus.OK;
 	}
 
+	@Override
+	public PSStatus send(MacAddress address, byte[] data) {
+		return send(address, data, 0, data.length);
+	}
+
+	@Override
+	public PSStatus send(MacAddress address, byte[] data, int iOffs, int iLen) {
+		ConcurrentHashMap<MacAddress, BluetoothConnection> connections = _currentConnections;
+		if (connections == null) {
+			Logger.err("Current connections list unavailable");
+			return PSStatus.FAILED;
+		}
+
+		if (address == null) {
+			Logger.err("No address given");
+			return PSStatus.FAILED;
+		}
+
+		BluetoothConnection conn = findConnection(connections, address);
+		if (conn == null) {
+			Logger.err("Not connected to " + address);
+			return PSStatus.FAILED;
+		}
+
+		conn.write(data, iOffs, iLen);
+		
+		return PSStatus.OK;
+	}
+
+	/**
+	 * A connection is only listed once its socket is up
+	 */
+	@Override
+	public BTState getState(MacAddress address) {
+		ConcurrentHashMap<MacAddress, BluetoothConnection> connections = _currentConnections;
+		if ((connections == null) || (address == null) ||
+				(findConnection(connections, address) == null)) {
+			return BTState.DISCONNECTED;
+		}
+
+		return BTState.CONNECTED;
+	}
+
+	/**
+	 * RFCOMM has no per-write limit of its own, so writes are kept to the
+	 * 	size that the SIDEKICK's serial buffer was designed around
+	 */
+	@Override
+	public int getMaxPayloadSize() {
+		return SKUtils.MAX_TX_LEN;
+	}
+
 	@Override
 	public PSStatus read(String address){
 		return PSStatus.FAILED;
@@ -377,10 +459,9 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 	public ArrayList<String> getDiscoveredDeviceNames() {
 		ArrayList<String> devices = new ArrayList<String>();
 
-		for (String key : _discoveredDevices.keySet()) {
-			if (key != null) {
-				devices.add(key);
-			}
+		DiscoveryIndex discovered = _discoveredDevices;
+		if (discovered != null) {
+			devices.addAll(discovered.getNames());
 		}
 		return devices;
 	}
@@ -415,10 +496,10 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 
 	public ArrayList<String> getConnectedDeviceNames() {
 		ArrayList<String> devices = new ArrayList<String>();
-		Set<String> connectedDevices = _currentConnections.keySet();
+		Set<MacAddress> connectedDevices = _currentConnections.keySet();
 
 		if (connectedDevices.size() > 0) {
-			for (String device : connectedDevices) {
+			for (MacAddress device : connectedDevices) {
 				BluetoothConnection c = _currentConnections.get(device);
 				devices.add(c.getDeviceName() + "(" + device + ")");
 			}
@@ -440,6 +521,17 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 		return RSSI_VALUE_UNKNOWN;
 	}
 
+	/* RFCOMM links do not report their RSSI */
+	@Override
+	public int getRssi(MacAddress address) {
+		return RSSI_VALUE_UNKNOWN;
+	}
+
+	@Override
+	public float getRssiSlope(MacAddress address) {
+		return 0.0f;
+	}
+
 	/*********************/
 	/** Private Methods **/
 	/*********************/
@@ -480,7 +572,7 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 		_connThreadLock.unlock();
 	
 		if (_currentConnections != null) {
-			for (String key : _currentConnections.keySet()) {
+			for (MacAddress key : _currentConnections.keySet()) {
 				_currentConnections.get(key).cancel();
 				if (_currentConnections.get(key) != null) {
 					try {
@@ -530,14 +622,19 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 	private synchronized PSStatus connectDevice(BluetoothSocket socket) {
 		BluetoothDevice device = socket.getRemoteDevice();
 		String deviceAddr = device.getAddress();
+		MacAddress deviceMac = MacAddress.parse(deviceAddr);
+		if (deviceMac == null) {
+			Logger.err("Invalid address: " + deviceAddr);
+			return PSStatus.FAILED;
+		}
 		
 		/* Prevent redundant connections -- disconnect the current connection
 		 *  before proceeding on to re-establishing the connection */
-		if (_currentConnections.containsKey(deviceAddr)) {
+		if (_currentConnections.containsKey(deviceMac)) {
 			Logger.warn(deviceAddr + " is already connected.");
 			
-			_currentConnections.get(deviceAddr).cancel();
-			_currentConnections.remove(deviceAddr);
+			_currentConnections.get(deviceMac).cancel();
+			_currentConnections.remove(deviceMac);
 		}
 		
 		/* Cancel ongoing connect threads (client only case) */
@@ -554,7 +651,7 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 		BluetoothConnection bluetoothConn = new BluetoothConnection(socket);
 		bluetoothConn.start();
 		
-		_currentConnections.put(deviceAddr, bluetoothConn);
+		_currentConnections.put(deviceMac, bluetoothConn);
 		setState(BTState.CONNECTED);
 		
 		Logger.info("Bluetooth connected!");
@@ -576,7 +673,8 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 			return PSStatus.FAILED;
 		}
 		
-		if (_currentConnections.containsKey(conn.getDeviceAddress())) {
+		MacAddress mac = conn.getMacAddress();
+		if ((mac != null) && _currentConnections.containsKey(mac)) {
 //			conn.cancel();
 //			try {
 //				conn.join(1000);
@@ -584,7 +682,7 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 //				System.out.println("[E] connection join() interrupted. ");
 //			}
 			
-			_currentConnections.remove(conn.getDeviceAddress());
+			_currentConnections.remove(mac);
 		}
 		
 		setState(BTState.DISCONNECTED);
@@ -592,6 +690,20 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 		return PSStatus.OK;
 	}
 	
+	/**
+	 * Connections are keyed by the address of their socket, while onConnected()
+	 * 	reports the address as corrected by correctRemoteDeviceInfo(). On stacks
+	 * 	which reverse addresses the two differ, so both orders are tried.
+	 */
+	private BluetoothConnection findConnection(
+			ConcurrentHashMap<MacAddress, BluetoothConnection> connections, MacAddress address) {
+		BluetoothConnection conn = connections.get(address);
+		if (conn == null) {
+			conn = connections.get(address.reverse());
+		}
+		return conn;
+	}
+
 	private void clearDeviceLists() {
 		
 		if (_pairedDevices != null) {
@@ -602,9 +714,7 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 		}
 		
 		if (_discoveredDevices != null) {
-			if (_discoveredDevices.isEmpty() == false) {
-				_discoveredDevices.clear();
-			}
+			_discoveredDevices.clear();
 			_discoveredDevices = null;
 		}
 		
@@ -620,8 +730,8 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 	
 	private void setupDeviceLists() {
 		_pairedDevices = new HashMap<String, String>();
-		_discoveredDevices = new HashMap<String, String>();
-		_currentConnections = new HashMap<String, BluetoothConnection>();
+		_discoveredDevices = new DiscoveryIndex();
+		_currentConnections = new ConcurrentHashMap<MacAddress, BluetoothConnection>();
 		
 		return;
 	}
@@ -632,28 +742,6 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 		return;
 	}
 
-	private static String getReversedMacAddress(String address) {
-		String newAddr = "";
-
-		int targIdx = 0;
-		int offset = 2;
-
-		targIdx = address.length() - offset;
-		while (targIdx >= 0) {
-
-			newAddr += address.charAt(targIdx++);
-			newAddr += address.charAt(targIdx);
-
-			offset += 3;
-			targIdx = address.length() - offset;
-
-			if (targIdx >= 0) {
-				newAddr += ":";
-			}
-		}
-
-		return newAddr;
-	}
 	/***************************/
 	/** Private Inner Classes **/
 	/***************************/
@@ -664,9 +752,10 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 			if (BluetoothDevice.ACTION_FOUND.equals(action)) {
 				BluetoothDevice device = intent
 						.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
-				if (device != null) {
-					_discoveredDevices.put(device.getName(), 
-							device.getAddress());
+				short uRssi = intent.getShortExtra(BluetoothDevice.EXTRA_RSSI, (short)0);
+				DiscoveryIndex discovered = _discoveredDevices;
+				if ((device != null) && (discovered != null)) {
+					discovered.update(device.getName(), device.getAddress(), uRssi);
 					Logger.info("New Device Discovered: " + 
 							device.getName());
 				}
@@ -688,8 +777,36 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 
 		private String _remoteName = "";
 		private String _remoteAddress = "";
+		private MacAddress _macAddress = null;
+		
+		/* Received bytes are collected here until a frame terminator arrives */
+		private final FrameAssembler _frameAssembler = new FrameAssembler(
+				ReceivedData.MAX_DATA_LEN, new FrameAssembler.Listener() {
+					@Override
+					public void onFrame(byte[] data, int iOffs, int iLen) {
+						if (_eventHandler != null) {
+							_eventHandler.onDataReceived(getDeviceName(), getDeviceAddress(),
+									data, iOffs, iLen);
+						} else {
+							Logger.warn("AndroidBluetoothBridge event handler not set");
+						}
+						return;
+					}
+				});
 		
 		public BluetoothConnection(BluetoothSocket socket) {
+			/* Let the event handler look at long frames while they arrive */
+			_frameAssembler.setFragmentListener(new FrameAssembler.FragmentListener() {
+				@Override
+				public void onFragment(byte[] data, int iOffs, int iPos, int iLen) {
+					if (_eventHandler != null) {
+						_eventHandler.onFrameFragment(getDeviceName(), getDeviceAddress(),
+								data, iOffs, iPos, iLen);
+					}
+					return;
+				}
+			});
+
 			if (socket == null) {
 				Logger.err("Invalid bluetooth connection socket");
 				return;
@@ -700,6 +817,7 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 			_socket = socket;
 			_remoteName = _socket.getRemoteDevice().getName();
 			_remoteAddress = _socket.getRemoteDevice().getAddress();
+			_macAddress = MacAddress.parse(_remoteAddress);
 			
 			try {
 				_inputStream = _socket.getInputStream();
@@ -722,12 +840,17 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 			return this._remoteAddress;
 		}
 		
+		/* Connections are keyed on the address reported by the socket, which
+		 *	is kept even if _remoteAddress is corrected afterwards */
+		public MacAddress getMacAddress() {
+			return this._macAddress;
+		}
+		
 		public String getDeviceName() {
 			return this._remoteName;
 		}
 		
 		public void run() {
-			int readableBytes = 0;
 			if ( (_inputStream == null) || (_outputStream == null) ) {
 				Logger.err("No streams available for this BluetoothConnection");
 				return;
@@ -743,53 +866,21 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 			Logger.info("New connection started: " + _remoteName + "/" + _remoteAddress);
 			
 			while (_state == BTState.CONNECTED) {
+				int iBytesRead;
 				try {
-					readableBytes = _inputStream.available();
+					/* Block until the remote device sends something. Closing the
+					 *	socket (see cancel()) unblocks this with an IOException.
+					 *	Complete frames are delivered from within the assembler. */
+					iBytesRead = _frameAssembler.readFrom(_inputStream);
 				} catch (IOException e) {
-					Logger.err("Encountered an IOEXCEPTION upon checking stream");
-					e.printStackTrace();
+					Logger.err("Encountered an IOEXCEPTION upon reading from stream");
 					break;
 				}
 				
-				if (readableBytes > 255) {
-					/* Disconnect if we have to many bytes buffered on the inputStream as
-					 *  this may indicate a socket failure */
-					Logger.err("Buffer overload");
+				if (iBytesRead < 0) {
+					Logger.info("End of stream reached");
 					break;
-				} else if (readableBytes > 0) {
-					int bytesRead = 0;
-					byte[] buffer = new byte[readableBytes];
-					
-					try {
-						bytesRead = _inputStream.read(buffer, 0, readableBytes);
-					} catch (IOException e) {
-						Logger.err("Encountered an IOEXCEPTION upon reading from stream");
-					}
-					
-					/* Notify the BluetoothController here */
-					if (_eventHandler != null) {
-						Logger.info("Notifying handlers from AndroidBluetoothBridge...");
-						Logger.info("    Buffer Len: " + bytesRead);
-						_eventHandler.onDataReceived(getDeviceName(), getDeviceAddress(), buffer);
-					} else {
-						Logger.warn("AndroidBluetoothBridge event handler not set");
-					}
-					
-				} else {
-					try {
-						Thread.sleep(1000);
-					} catch (InterruptedException e) {
-						Logger.info("BluetoothConnection thread interrupted");
-						if (_state != BTState.CONNECTED) {
-							break;
-						}
-					}
 				}
-				
-//				if (_socket.isConnected() == false) {
-//					Logger.err("Connection lost!");
-//					break;
-//				}
 			}
 			detachConnection();
 			
@@ -809,6 +900,11 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 		}
 		
 		public void write(byte[] buffer) {
+			write(buffer, 0, buffer.length);
+			return;
+		}
+
+		public void write(byte[] buffer, int iOffs, int iLen) {
 			if (buffer == null) {
 				Logger.err("Invalid parameters");
 				return;
@@ -820,7 +916,8 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 			}
 			
 			try {
-				_outputStream.write(buffer);
+				/* Written straight from the caller's buffer without copying */
+				_outputStream.write(buffer, iOffs, iLen);
 			} catch (IOException e) {
 				Logger.err("Encountered an IOEXCEPTION upon writing to stream: " + e.getMessage());
 				setState(BTState.DISCONNECTED);
@@ -846,6 +943,15 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 			
 			setState(BTState.DISCONNECTED);
 			
+			/* Unblock the read in run(), which then detaches and closes the streams */
+			if (_socket != null) {
+				try {
+					_socket.close();
+				} catch (IOException e) {
+					Logger.err("Failed to close BluetoothConnection socket");
+				}
+			}
+			
 			Logger.info("Bluetooth Connection cancelled");
 			
 			return;
@@ -899,15 +1005,22 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 				_remoteName = retrieveName(deviceAddr, _pairedDevices);
 				return;
 			}
-			if (_discoveredDevices.containsKey(deviceAddr)) {
-				_remoteName = retrieveName(deviceAddr, _pairedDevices);
+			DiscoveryIndex.Entry discovered = _discoveredDevices.get(deviceAddr);
+			if (discovered != null) {
+				_remoteName = discovered.getName();
 				return;
 			}
 			
 			Logger.warn("Not matched against current lists of devices. " +
 						"Attempting with a reversed MAC address instead...");
 			
-			String reversedAddr = getReversedMacAddress(deviceAddr);
+			MacAddress deviceMac = MacAddress.parse(deviceAddr);
+			if (deviceMac == null) {
+				Logger.err("Invalid address: " + deviceAddr);
+				return;
+			}
+			
+			String reversedAddr = deviceMac.reverse().toString();
 			/* If no matches have been found yet, attempt to use the
 			 * 	reversed mac address instead */
 			if (_pairedDevices.containsValue(reversedAddr)) {
@@ -915,9 +1028,10 @@ public class AndroidBluetoothBridge implements IBluetoothBridge {
 				_remoteName = retrieveName(reversedAddr, _pairedDevices);
 				return;
 			}
-			if (_discoveredDevices.containsValue(reversedAddr)) {
+			discovered = _discoveredDevices.get(reversedAddr);
+			if (discovered != null) {
 				_remoteAddress = reversedAddr;
-				_remoteName = retrieveName(reversedAddr, _discoveredDevices);
+				_remoteName = discovered.getName();
 				return;
 			}
 			
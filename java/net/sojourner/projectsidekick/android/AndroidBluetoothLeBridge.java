@@ -14,34 +14,64 @@ import android.content.Intent;
 import android.content.IntentFilter;
 import android.os.Build;
 import android.os.Handler;
+import android.os.Looper;
 
 import net.sojourner.projectsidekick.interfaces.BluetoothEventHandler;
 import net.sojourner.projectsidekick.interfaces.IBluetoothBridge;
 import net.sojourner.projectsidekick.types.BTState;
+import net.sojourner.projectsidekick.types.MacAddress;
 import net.sojourner.projectsidekick.types.PSStatus;
+import net.sojourner.projectsidekick.types.ReceivedData;
+import net.sojourner.projectsidekick.utils.EventBus;
+import net.sojourner.projectsidekick.utils.DiscoveryIndex;
+import net.sojourner.projectsidekick.utils.FrameAssembler;
 import net.sojourner.projectsidekick.utils.Logger;
+import net.sojourner.projectsidekick.utils.RssiFilter;
+import net.sojourner.projectsidekick.utils.ScanAggregator;
+import net.sojourner.projectsidekick.utils.ScanScheduler;
 
-import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
 public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 	public static final String ACTION_LE_DISCOVERED = "net.sojourner.android.AndroidBluetoothLeBridge.DISCOVERED";
 
+	/* Devices seen during each scan reporting window, one batch per window */
+	public static final EventBus.Topic<List<ScanAggregator.Sighting>> TOPIC_LE_SCAN_BATCH =
+			new EventBus.Topic<List<ScanAggregator.Sighting>>("LE_SCAN_BATCH");
+
 	private static final int BLUNO_BAUD_RATE = 115200;
-	private static final long MAX_BLE_SCAN_DURATION = 10000;
 	private static final String BLUNO_MODEL_NUM_RESP_PREFIX = "DF BLUNO";
 	private static final String BLUNO_COMMAND_PASSWORD_STR = "AT+PASSWOR=DFRobot\r\n";
 	private static final String BLUNO_COMMAND_BAUD_RATE_STR = "AT+CURRUART=" + BLUNO_BAUD_RATE + "\r\n";
 
 	private static final int RSSI_VALUE_UNKNOWN = -65535;
 
+	/* Every ATT notification or write carries a 3-byte header (opcode + handle) */
+	private static final int DEFAULT_ATT_MTU = 23;
+	private static final int ATT_HEADER_LEN = 3;
+	private static final int REQUESTED_ATT_MTU = 247;
+	private static final int DEFAULT_WRITE_CREDITS = 8;
+
+	private static final long DEFAULT_CONNECT_TIMEOUT = 15000;
+	private static final long DEFAULT_DISCONNECT_TIMEOUT = 5000;
+
+	/* How often the RSSI of each ready link is read */
+	private static final long RSSI_SAMPLE_INTERVAL = 1000;
+
+	/* Per-packet messages are logged under this tag so that they can be silenced */
+	private static final Logger.Tag LOG_TAG = Logger.tag("BluetoothLe");
+
 	private final UUID UUID_SERIAL 		= UUID.fromString("0000dfb1-0000-1000-8000-00805F9B34FB");
 	private final UUID UUID_COMMAND 	= UUID.fromString("0000dfb2-0000-1000-8000-00805F9B34FB");
 	private final UUID UUID_MODEL_NUM	= UUID.fromString("00002a24-0000-1000-8000-00805F9B34FB");
@@ -51,20 +81,50 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 	private BluetoothAdapter 	_bluetoothAdapter 	= BluetoothAdapter.getDefaultAdapter();
 	private boolean 			_isServer 			= false;
 	private boolean				_isScanning			= false;
+	private boolean				_isRadioScanning	= false;
 	private boolean				_isRecvrRegistered	= false;
+	private boolean				_bWriteNoResponse	= false;
 	private BTState				_state 				= BTState.UNKNOWN;
 
 	/* Device list maps */
 	private HashMap<String, String> _pairedDevices 						= null;
-	private HashMap<String, String> _discoveredDevices 					= null;
-	private HashMap<String, BluetoothLeConnection> _currentConnections 	= null;
+	private volatile DiscoveryIndex _discoveredDevices 					= null;
+	private ConcurrentHashMap<MacAddress, BluetoothLeConnection> _currentConnections = null;
 
 	/* Threads and Event Handlers */
 	private BluetoothEventHandler 	_eventHandler 			= null;
-	private Thread 					_waitingThread 			= null;
+	private volatile long			_lConnectTimeout		= DEFAULT_CONNECT_TIMEOUT;
 
 	private Context _context = null;
 
+	/* Scan results are folded per device before anyone is told about them */
+	private final ScanAggregator _scanAggregator = new ScanAggregator(new ScanAggregator.Listener() {
+		@Override
+		public void onScanBatch(List<ScanAggregator.Sighting> batch) {
+			EventBus.getInstance().publish(TOPIC_LE_SCAN_BATCH, batch);
+			return;
+		}
+	});
+	private GattProfileCache _gattCache = null;
+
+	/* Scans are run in windows chosen by the scheduler until discovery is stopped */
+	private final ScanScheduler _scanScheduler = new ScanScheduler();
+	private final Handler _scanHandler = new Handler(Looper.getMainLooper());
+	private final Runnable _scanCycleTask = new Runnable() {
+		@Override
+		public void run() {
+			runScanCycle();
+			return;
+		}
+	};
+	private final Runnable _scanWindowEndTask = new Runnable() {
+		@Override
+		public void run() {
+			stopLeScan();
+			return;
+		}
+	};
+
 	private AndroidBluetoothLeBridge() {
 		return;
 	}
@@ -130,6 +190,7 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 		}
 
 		setupDeviceLists();
+		_gattCache = new GattProfileCache(_context);
 
 		/* Register our receivers */
 		IntentFilter filter = new IntentFilter();
@@ -154,24 +215,35 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			return;
 		}
 
-		_bluetoothAdapter.startLeScan(_leScanCbf);
+		_scanAggregator.clear();
 		_isScanning = true;
+		runScanCycle();
 
-		/* Automatically terminate BLE scan after MAX_BLE_SCAN_DURATION */
-		new Handler().postDelayed(
-				new Runnable() {
-					@Override
-					public void run() {
-						if (_leScanCbf != null) {
-							stopDeviceDiscovery();
-						}
-					}
-				}, MAX_BLE_SCAN_DURATION
-		);
 		Logger.info("Service Discovery started.");
 		return;
 	}
 
+	/**
+	 * Sets the devices that discovery should look out for. Scans back off
+	 * 	while all of them are in range.
+	 */
+	public void setRegisteredDevices(Collection<MacAddress> devices) {
+		_scanScheduler.setRegisteredDevices(devices);
+		return;
+	}
+
+	public ScanScheduler getScanScheduler() {
+		return _scanScheduler;
+	}
+
+	/**
+	 * Sets how long scan results are collected before they are reported
+	 */
+	public void setScanReportWindow(long lWindow) {
+		_scanAggregator.setWindow(lWindow);
+		return;
+	}
+
 	@Override
 	public void stopDeviceDiscovery() {
 		if (!_isScanning) {
@@ -179,9 +251,13 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			return;
 		}
 
-		_bluetoothAdapter.stopLeScan(_leScanCbf);
 		_isScanning = false;
-		Logger.info("Service Discovery stopped.");
+		_scanHandler.removeCallbacks(_scanCycleTask);
+		_scanHandler.removeCallbacks(_scanWindowEndTask);
+		stopLeScan();
+
+		Logger.info("Service Discovery stopped. Scan duty cycle: " +
+				(int) (_scanScheduler.getDutyCycle() * 100) + "%");
 		return;
 	}
 
@@ -199,8 +275,8 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			return PSStatus.FAILED;
 		}
 		
-		/* Allow connect only if we're coming from the disconnected state */
-		if (_state != BTState.DISCONNECTED) {
+		/* Allow connect once initialized. Other links may be up or connecting. */
+		if (_state == BTState.UNKNOWN) {
 			Logger.err("Invalid state for connectDeviceByAddress()");
 			return PSStatus.FAILED;
 		}
@@ -215,49 +291,86 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			Logger.err("Invalid Bluetooth device address");
 			return PSStatus.FAILED;
 		}
-		BluetoothLeConnection bleConn;
-		if (_currentConnections.containsKey(address)) {
-			if (_currentConnections.get(address).isConnected()) {
+		MacAddress mac = MacAddress.parse(address);
+		if (mac == null) {
+			Logger.err("Invalid bluetooth hardware address: " + address);
+			return PSStatus.FAILED;
+		}
+
+		BluetoothLeConnection bleConn = _currentConnections.get(mac);
+		if (bleConn != null) {
+			BTState linkState = bleConn.getState();
+			if (linkState == BTState.CONNECTED) {
 				Logger.warn("Already connected");
+				return PSStatus.OK;
+			} else if (linkState == BTState.CONNECTING) {
+				Logger.err("Already connecting to " + address);
+				return PSStatus.FAILED;
 			}
+		}
 
-			/* Attempt to re-connect using the existing inactive BLE connection */
-			bleConn = _currentConnections.get(address);
-			if (bleConn != null) {
-				bleConn.disconnect();
+		/* Attempt to re-connect using the existing GATT client, if it is still usable */
+		boolean bReused = false;
+		if (bleConn != null) {
+			bleConn.prepareConnect();
+			bReused = bleConn.reconnect();
+			if (!bReused) {
+				Logger.info("Cached GATT client is unusable for " + address);
+				bleConn.close();
+				_currentConnections.remove(mac, bleConn);
 			}
-		} else {
-			/* Connect using an entirely new BLE connection */
-			bleConn = new BluetoothLeConnection(device.getName(), address);
 		}
 
-		_waitingThread = Thread.currentThread();
-		/* Attempt to connect to this remote device */
-		BluetoothGatt bleGatt = device.connectGatt(_context, false, bleConn.getCallbackHandler());
-		try {
-			Thread.sleep(15000);
-		} catch (InterruptedException e) {
-			/* Proceed normally for interrupts */
-		} catch (Exception e) {
-			Logger.err("Exception occurred: " + e.getMessage());
-		}
-		_waitingThread = null;
+		if (!bReused) {
+			/* Connect using an entirely new BLE connection. It is listed right
+			 *	away so that a concurrent connect to the same device backs off. */
+			bleConn = new BluetoothLeConnection(device.getName(), address);
+			bleConn.prepareConnect();
+			if (_currentConnections.putIfAbsent(mac, bleConn) != null) {
+				Logger.err("Already connecting to " + address);
+				return PSStatus.FAILED;
+			}
 
-		/* If not connected, then exit unsuccessfully */
-		if (!bleConn.isConnected()) {
-			Logger.err("Connection unsuccessful: Exiting at state " + this.getState());
-			return PSStatus.FAILED;
+			BluetoothGatt bleGatt = device.connectGatt(_context, false, bleConn.getCallbackHandler());
+			if (bleGatt == null) {
+				Logger.err("Failed to create a GATT client for " + address);
+				_currentConnections.remove(mac, bleConn);
+				bleConn.close();
+				return PSStatus.FAILED;
+			}
+
+			/* Save the BluetoothGatt reference in our BluetoothLeConnection object */
+			bleConn.setBluetoothGatt(bleGatt);
 		}
 
-		/* Save the BluetoothGatt reference in our BluetoothLeConnection object */
-		bleConn.setBluetoothGatt(bleGatt);
+		/* Wait until the connection is ready for use or has been dropped. Only
+		 *	this link's own callbacks can end the wait. */
+		if (!bleConn.awaitReady(_lConnectTimeout)) {
+			Logger.err("Connection to " + address + " unsuccessful: Exiting at state " +
+					bleConn.getState());
 
-		/* Add it to our list of current connections */
-		_currentConnections.put(address, bleConn);
+			/* Cancel the attempt still pending in the stack. A reused client is
+			 *	kept so that the next attempt can use it again. */
+			bleConn.disconnect();
+			if (!bReused) {
+				_currentConnections.remove(mac, bleConn);
+				bleConn.close();
+			}
+			return PSStatus.FAILED;
+		}
 		
 		return PSStatus.OK;
 	}
 
+	/**
+	 * Sets how long connectDeviceByAddress() waits for a connection to
+	 * 	become ready before giving up
+	 */
+	public void setConnectTimeout(long lTimeout) {
+		_lConnectTimeout = lTimeout;
+		return;
+	}
+
 	@Override
 	public PSStatus connectDeviceByName(String name) {
 		/* Allow listen only if started as a Bluetooth client */
@@ -266,8 +379,8 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			return PSStatus.FAILED;
 		}
 		
-		/* Allow connect only if we're coming from the disconnected state */
-		if (_state != BTState.DISCONNECTED) {
+		/* Allow connect once initialized. Other links may be up or connecting. */
+		if (_state == BTState.UNKNOWN) {
 			Logger.err("Invalid state for connectDeviceByName()");
 			return PSStatus.FAILED;
 		}
@@ -290,8 +403,11 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 		String address = "";
 		if (_pairedDevices.containsKey(name)) {
 			address = _pairedDevices.get(name);
-		} else if (_discoveredDevices.containsKey(name)) {
-			address = _discoveredDevices.get(name);
+		} else {
+			String discoveredAddress = _discoveredDevices.findAddress(name);
+			if (discoveredAddress != null) {
+				address = discoveredAddress;
+			}
 		}
 		
 		Logger.info("Found device address: " + address);
@@ -306,7 +422,13 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			return PSStatus.FAILED;
 		}
 
-		BluetoothLeConnection bleConn = _currentConnections.get(address);
+		MacAddress mac = MacAddress.parse(address);
+		if (mac == null) {
+			Logger.err("Invalid bluetooth hardware address: " + address);
+			return PSStatus.FAILED;
+		}
+
+		BluetoothLeConnection bleConn = _currentConnections.get(mac);
 		if (bleConn == null) {
 			Logger.err("No connections found for this address: " + address);
 			return PSStatus.FAILED;
@@ -324,11 +446,11 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 		bleConn.setConnected(false);
 
 		/* Remove it from the list */
-		if (_currentConnections.remove(address) == null) {
+		if (_currentConnections.remove(mac) == null) {
 			Logger.err("Device not found in list: " + address);
 		}
 
-		setState(BTState.DISCONNECTED);
+		refreshState();
 		
 		return PSStatus.OK;
 	}
@@ -351,13 +473,26 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			return PSStatus.FAILED;
 		}
 
+		/* Links that are still connecting are skipped */
 		boolean bWriteFailed = false;
-		for (Map.Entry<String, BluetoothLeConnection> conn : _currentConnections.entrySet()) {
-			if (!conn.getValue().write(data)) {
+		int iWritten = 0;
+		for (BluetoothLeConnection bleConn : _currentConnections.values()) {
+			if (bleConn.getState() != BTState.CONNECTED) {
+				continue;
+			}
+
+			if (bleConn.write(data)) {
+				iWritten++;
+			} else {
 				bWriteFailed = true;
 			}
 		}
 
+		if (iWritten == 0) {
+			Logger.err("No connected link to broadcast to");
+			return PSStatus.FAILED;
+		}
+
 		if (bWriteFailed) {
 			return PSStatus.FAILED;
 		}
@@ -365,6 +500,99 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 		return PSStatus.OK;
 	}
 
+	@Override
+	public PSStatus broadcast(byte[] data, int iOffs, int iLen) {
+		/* GATT writes are queued, so the queue needs its own copy of the data
+		 *	unless the caller passed the whole array */
+		if ((iOffs == 0) && (iLen == data.length)) {
+			return broadcast(data);
+		}
+		return broadcast(Arrays.copyOfRange(data, iOffs, iOffs + iLen));
+	}
+
+	@Override
+	public PSStatus send(MacAddress address, byte[] data) {
+		ConcurrentHashMap<MacAddress, BluetoothLeConnection> connections = _currentConnections;
+		if (connections == null) {
+			Logger.err("Current connections list unavailable");
+			return PSStatus.FAILED;
+		}
+
+		if (address == null) {
+			Logger.err("No address given");
+			return PSStatus.FAILED;
+		}
+
+		BluetoothLeConnection bleConn = connections.get(address);
+		if ((bleConn == null) || (bleConn.getState() != BTState.CONNECTED)) {
+			Logger.err("Not connected to " + address);
+			return PSStatus.FAILED;
+		}
+
+		/* Each link has its own operation queue, so this never waits on another link */
+		if (!bleConn.write(data)) {
+			return PSStatus.FAILED;
+		}
+
+		return PSStatus.OK;
+	}
+
+	@Override
+	public PSStatus send(MacAddress address, byte[] data, int iOffs, int iLen) {
+		/* GATT writes are queued, so the queue needs its own copy of the data
+		 *	unless the caller passed the whole array */
+		if ((iOffs == 0) && (iLen == data.length)) {
+			return send(address, data);
+		}
+		return send(address, Arrays.copyOfRange(data, iOffs, iOffs + iLen));
+	}
+
+	@Override
+	public BTState getState(MacAddress address) {
+		ConcurrentHashMap<MacAddress, BluetoothLeConnection> connections = _currentConnections;
+		if ((connections == null) || (address == null)) {
+			return BTState.DISCONNECTED;
+		}
+
+		BluetoothLeConnection bleConn = connections.get(address);
+		if (bleConn == null) {
+			return BTState.DISCONNECTED;
+		}
+
+		return bleConn.getState();
+	}
+
+	/**
+	 * @return the largest chunk which fits in a single ATT write on every
+	 * 	current connection
+	 */
+	@Override
+	public int getMaxPayloadSize() {
+		int iMtu = Integer.MAX_VALUE;
+		if (_currentConnections != null) {
+			for (BluetoothLeConnection conn : _currentConnections.values()) {
+				iMtu = Math.min(iMtu, conn.getMtu());
+			}
+		}
+
+		if (iMtu == Integer.MAX_VALUE) {
+			iMtu = DEFAULT_ATT_MTU;
+		}
+
+		return iMtu - ATT_HEADER_LEN;
+	}
+
+	/**
+	 * Sends serial port writes without waiting for a response from the
+	 * 	remote device, if it supports it. Every DEFAULT_WRITE_CREDITS writes,
+	 * 	one write still asks for a response so that the remote device is not
+	 * 	overrun. Applies to connections made afterwards.
+	 */
+	public void setWriteWithoutResponse(boolean bEnabled) {
+		_bWriteNoResponse = bEnabled;
+		return;
+	}
+
 	@Override
 	public PSStatus read(String address){
 		/* Allow read only if we're in the connected state */
@@ -383,7 +611,19 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			return PSStatus.FAILED;
 		}
 
-		_currentConnections.get(address).read();
+		MacAddress mac = MacAddress.parse(address);
+		if (mac == null) {
+			Logger.err("Invalid bluetooth hardware address: " + address);
+			return PSStatus.FAILED;
+		}
+
+		BluetoothLeConnection bleConn = _currentConnections.get(mac);
+		if (bleConn == null) {
+			Logger.err("No connections found for this address: " + address);
+			return PSStatus.FAILED;
+		}
+
+		bleConn.read();
 
 		return PSStatus.OK;
 	}
@@ -408,10 +648,9 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 	public ArrayList<String> getDiscoveredDeviceNames() {
 		ArrayList<String> devices = new ArrayList<String>();
 
-		for (String key : _discoveredDevices.keySet()) {
-			if (key != null) {
-				devices.add(key);
-			}
+		DiscoveryIndex discovered = _discoveredDevices;
+		if (discovered != null) {
+			devices.addAll(discovered.getNames());
 		}
 		return devices;
 	}
@@ -446,10 +685,10 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 
 	public ArrayList<String> getConnectedDeviceNames() {
 		ArrayList<String> devices = new ArrayList<String>();
-		Set<String> connectedDevices = _currentConnections.keySet();
+		Set<MacAddress> connectedDevices = _currentConnections.keySet();
 
 		if (connectedDevices.size() > 0) {
-			for (String address : connectedDevices) {
+			for (MacAddress address : connectedDevices) {
 				BluetoothLeConnection c = _currentConnections.get(address);
 				devices.add(c.getDeviceName() + "(" + address + ")");
 			}
@@ -477,34 +716,65 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			return RSSI_VALUE_UNKNOWN;
 		}
 
-		for (Map.Entry<String, BluetoothLeConnection> conn : _currentConnections.entrySet()) {
+		for (Map.Entry<MacAddress, BluetoothLeConnection> conn : _currentConnections.entrySet()) {
 			return conn.getValue().getRssi();
 		}
 
 		return RSSI_VALUE_UNKNOWN;
 	}
 
+	/**
+	 * @return the filtered RSSI of the link to this device, or
+	 * 	RSSI_VALUE_UNKNOWN if there is no link or no reading yet
+	 */
+	@Override
+	public int getRssi(MacAddress address) {
+		ConcurrentHashMap<MacAddress, BluetoothLeConnection> connections = _currentConnections;
+		if ((connections == null) || (address == null)) {
+			return RSSI_VALUE_UNKNOWN;
+		}
+
+		BluetoothLeConnection bleConn = connections.get(address);
+		if (bleConn == null) {
+			return RSSI_VALUE_UNKNOWN;
+		}
+
+		return bleConn.getRssi();
+	}
+
+	/**
+	 * @return the RSSI trend of the link to this device in dB per second,
+	 * 	which is negative while it moves away
+	 */
+	@Override
+	public float getRssiSlope(MacAddress address) {
+		ConcurrentHashMap<MacAddress, BluetoothLeConnection> connections = _currentConnections;
+		if ((connections == null) || (address == null)) {
+			return 0.0f;
+		}
+
+		BluetoothLeConnection bleConn = connections.get(address);
+		if (bleConn == null) {
+			return 0.0f;
+		}
+
+		return bleConn.getRssiSlope();
+	}
+
 	/*********************/
 	/** Private Methods **/
 	/*********************/
 	private PSStatus stop() {
+		if (_isScanning) {
+			stopDeviceDiscovery();
+		}
+
 		if (_currentConnections != null) {
-			for (String key : _currentConnections.keySet()) {
+			for (MacAddress key : _currentConnections.keySet()) {
 				BluetoothLeConnection bleConn = _currentConnections.get(key);
 
 				/* Attempt to disconnect the connection */
-				_waitingThread = Thread.currentThread();
-				bleConn.disconnect();
-				try {
-					Thread.sleep(5000);
-				} catch (InterruptedException e) {
-					/* Allow normal interrupts */
-				} catch (Exception e) {
-					Logger.err("Exception occurred: " + e.getMessage());
-				}
-				_waitingThread = null;
-
-				if (bleConn.isConnected()) {
+				if (!bleConn.disconnectAndWait(DEFAULT_DISCONNECT_TIMEOUT)) {
 					Logger.err("Failed to disconnect!");
 				}
 
@@ -546,22 +816,17 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			return PSStatus.FAILED;
 		}
 
-		if (_currentConnections.containsKey(address)) {
-			BluetoothLeConnection bleConn = _currentConnections.get(address);
+		MacAddress mac = MacAddress.parse(address);
+		if (mac == null) {
+			Logger.err("Invalid bluetooth hardware address: " + address);
+			return PSStatus.FAILED;
+		}
+
+		if (_currentConnections.containsKey(mac)) {
+			BluetoothLeConnection bleConn = _currentConnections.get(mac);
 			if (bleConn.isConnected()) {
 				/* Attempt to disconnect the connection */
-				_waitingThread = Thread.currentThread();
-				bleConn.disconnect();
-				try {
-					Thread.sleep(5000);
-				} catch (InterruptedException e) {
-					/* Allow normal interrupts */
-				} catch (Exception e) {
-					Logger.err("Exception occurred: " + e.getMessage());
-				}
-				_waitingThread = null;
-
-				if (bleConn.isConnected()) {
+				if (!bleConn.disconnectAndWait(DEFAULT_DISCONNECT_TIMEOUT)) {
 					Logger.err("Failed to disconnect!");
 				}
 			}
@@ -569,10 +834,10 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			/* Close the connection */
 			bleConn.close();
 
-			_currentConnections.remove(address);
+			_currentConnections.remove(mac);
 		}
 
-		setState(BTState.DISCONNECTED);
+		refreshState();
 
 		return PSStatus.OK;
 	}
@@ -587,9 +852,7 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 		}
 		
 		if (_discoveredDevices != null) {
-			if (!_discoveredDevices.isEmpty()) {
-				_discoveredDevices.clear();
-			}
+			_discoveredDevices.clear();
 			_discoveredDevices = null;
 		}
 		
@@ -605,12 +868,45 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 	
 	private void setupDeviceLists() {
 		_pairedDevices = new HashMap<String, String>();
-		_discoveredDevices = new HashMap<String, String>();
-		_currentConnections = new HashMap<String, BluetoothLeConnection>();
+		_discoveredDevices = new DiscoveryIndex();
+		_currentConnections = new ConcurrentHashMap<MacAddress, BluetoothLeConnection>();
 		
 		return;
 	}
 
+	private void runScanCycle() {
+		if (!_isScanning) {
+			return;
+		}
+
+		ScanScheduler.Plan plan = _scanScheduler.next();
+		if (plan.getWindow() > 0) {
+			if (_bluetoothAdapter.startLeScan(_leScanCbf)) {
+				_isRadioScanning = true;
+				_scanScheduler.onScanStarted();
+				_scanHandler.postDelayed(_scanWindowEndTask, plan.getWindow());
+			} else {
+				Logger.err("Failed to start LE scan");
+			}
+		} else {
+			Logger.info(LOG_TAG, "Hourly scan budget used up, skipping scan");
+		}
+
+		_scanHandler.postDelayed(_scanCycleTask, plan.getInterval());
+		return;
+	}
+
+	private void stopLeScan() {
+		if (!_isRadioScanning) {
+			return;
+		}
+
+		_bluetoothAdapter.stopLeScan(_leScanCbf);
+		_isRadioScanning = false;
+		_scanScheduler.onScanStopped();
+		return;
+	}
+
 	private synchronized void setState(BTState state) {
 		_state = state;
 		Logger.info("Bluetooth Bridge State is now " + _state.toString());
@@ -627,8 +923,33 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 		return;
 	}
 
+	/**
+	 * The bridge is CONNECTED for as long as any of its links is
+	 */
+	private synchronized void refreshState() {
+		if (_state == BTState.UNKNOWN) {
+			return;
+		}
+
+		BTState state = BTState.DISCONNECTED;
+		ConcurrentHashMap<MacAddress, BluetoothLeConnection> connections = _currentConnections;
+		if (connections != null) {
+			for (BluetoothLeConnection bleConn : connections.values()) {
+				if (bleConn.getState() == BTState.CONNECTED) {
+					state = BTState.CONNECTED;
+					break;
+				}
+			}
+		}
+
+		if (state != _state) {
+			setState(state);
+		}
+		return;
+	}
+
 	private void notifyOnDisconnected(String name, String address) {
-		setState(BTState.DISCONNECTED);
+		refreshState();
 		/* Notify the event handler that we've disconnected */
 		if (_eventHandler != null) {
 			_eventHandler.onDisconnected(name, address);
@@ -675,98 +996,106 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 				return;
 			}
 
-			if (!_discoveredDevices.containsValue(device.getAddress())) {
-				_discoveredDevices.put(device.getName(), device.getAddress());
+			DiscoveryIndex discovered = _discoveredDevices;
+			if (discovered != null) {
+				discovered.update(device.getName(), device.getAddress(), rssi);
 			}
 
-			if (_context == null) {
-				Logger.err("No context for intent broadcast!");
-			}
+			_scanAggregator.record(device.getName(), device.getAddress(), rssi);
 
-			Intent intent = new Intent(AndroidBluetoothLeBridge.ACTION_LE_DISCOVERED);
-			intent.putExtra(BluetoothDevice.EXTRA_DEVICE, device);
-			_context.sendBroadcast(intent);
+			MacAddress mac = MacAddress.parse(device.getAddress());
+			if (mac != null) {
+				_scanScheduler.onDeviceSeen(mac);
+			}
 
 			return;
 		}
 	};
 
-	private class BluetoothGattRequest {
-		private BluetoothGattCharacteristic _characteristic;
-		private boolean _isWrite = false;
-		private byte _data[];
-
-		public BluetoothGattRequest(BluetoothGattCharacteristic characteristic,
-										 byte data[]) {
-			_characteristic = characteristic;
-			_data = data;
-			_isWrite = true;
-			return;
-		}
-
-		public BluetoothGattRequest(BluetoothGattCharacteristic characteristic,
-										 String data) {
-			_characteristic = characteristic;
-			_data = data.getBytes();
-			_isWrite = true;
-			return;
-		}
-
-		public BluetoothGattRequest(BluetoothGattCharacteristic characteristic) {
-			_characteristic = characteristic;
-			_data = null;
-			_isWrite = false;
-			return;
-		}
-
-		public BluetoothGattCharacteristic getCharacteristic() {
-			return _characteristic;
-		}
-
-		public String getCharacteristicName() {
-			UUID uuid = _characteristic.getUuid();
-			if (uuid.equals(UUID_COMMAND)) {
-				return "COMMAND";
-			} else if (uuid.equals(UUID_MODEL_NUM)) {
-				return "MODEL NO";
-			} else if (uuid.equals(UUID_SERIAL)) {
-				return "SERIAL";
-			}
-
-			return "UNKNOWN";
-		}
-
-		public byte[] getData() {
-			return _data;
-		}
-
-		public boolean isWrite() { return _isWrite; }
-	}
-
 	private class BluetoothLeConnection {
 		private String _deviceName = "";
 		private String _deviceAddress = "";
 		private BluetoothGatt _bluetoothGatt = null;
-		private int _rssi = -1;
-		private boolean _isConnected = false;
-		private ByteArrayOutputStream _incomingData = null;
-		private byte[] _dataBuffer = null;
+		private volatile int _iMtu = DEFAULT_ATT_MTU;
+		private volatile boolean _isConnected = false;
+		private volatile boolean _isReady = false;
+		private volatile BTState _linkState = BTState.DISCONNECTED;
+		private volatile boolean _isClosed = false;
+
+		/* Counted down once the connection is ready for use or has dropped */
+		private CountDownLatch _readyLatch = null;
+		/* Counted down once the connection has dropped */
+		private CountDownLatch _disconnectLatch = null;
+		/* Notified bytes are collected here until a frame terminator arrives */
+		private final FrameAssembler _frameAssembler = new FrameAssembler(
+				ReceivedData.MAX_DATA_LEN, new FrameAssembler.Listener() {
+					@Override
+					public void onFrame(byte[] data, int iOffs, int iLen) {
+						_bCacheUnconfirmed = false;
+						if (_eventHandler != null) {
+							_eventHandler.onDataReceived(_deviceName, _deviceAddress,
+									data, iOffs, iLen);
+						}
+						return;
+					}
+				});
 		boolean _bInternalQueueFailed = false;
 
-		private List<BluetoothGattCharacteristic> _gattCharacteristics = new ArrayList<BluetoothGattCharacteristic>();
 		private BluetoothGattCharacteristic _modelNumCharacteristic = null;
 		private BluetoothGattCharacteristic _serialPortCharacteristic = null;
 		private BluetoothGattCharacteristic _commandCharacteristic = null;
 		private BluetoothGattCharacteristic _targetCharacteristic = null;
 
-		private List<BluetoothGattRequest> _gattTaskQueue = null;
+		/* Set while the handshake was skipped based on the GATT cache and no
+		 *	data has come in yet to prove that the cache was right */
+		private volatile boolean _bCacheUnconfirmed = false;
+
+		private final GattOperationQueue _gattQueue;
+
+		/* RSSI is sampled periodically while the link is ready. Only one read
+		 *	is queued at a time so that samples never pile up behind writes. */
+		private final RssiFilter _rssiFilter = new RssiFilter();
+		private final Handler _rssiHandler = new Handler(Looper.getMainLooper());
+		private volatile boolean _bRssiReadPending = false;
+		private final Runnable _rssiSampleTask = new Runnable() {
+			@Override
+			public void run() {
+				if (!_isReady || _isClosed) {
+					return;
+				}
+
+				/* An idle queue means that an earlier read was dropped or cleared */
+				if (_bRssiReadPending && _gattQueue.isIdle()) {
+					_bRssiReadPending = false;
+				}
+
+				if (!_bRssiReadPending) {
+					_bRssiReadPending = true;
+					_gattQueue.enqueueRssiRead();
+				}
+				_rssiHandler.postDelayed(this, RSSI_SAMPLE_INTERVAL);
+				return;
+			}
+		};
 
 		private BluetoothGattCallbackHandler _callbackHandler = new BluetoothGattCallbackHandler();
 
 		public BluetoothLeConnection(String name, String address) {
 			_deviceName = name;
 			_deviceAddress = address;
-			_gattTaskQueue = new ArrayList<BluetoothGattRequest>();
+			_gattQueue = new GattOperationQueue(name + "/" + address);
+
+			/* Let the event handler look at long frames while they arrive */
+			_frameAssembler.setFragmentListener(new FrameAssembler.FragmentListener() {
+				@Override
+				public void onFragment(byte[] data, int iOffs, int iPos, int iLen) {
+					if (_eventHandler != null) {
+						_eventHandler.onFrameFragment(_deviceName, _deviceAddress,
+								data, iOffs, iPos, iLen);
+					}
+					return;
+				}
+			});
 			return;
 		}
 
@@ -776,6 +1105,7 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 
 		public void setBluetoothGatt(BluetoothGatt gatt) {
 			_bluetoothGatt = gatt;
+			_gattQueue.setBluetoothGatt(gatt);
 			return;
 		}
 
@@ -800,7 +1130,26 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			return _deviceAddress;
 		}
 
-		public int getRssi() { return _rssi; };
+		/**
+		 * @return the filtered RSSI, or RSSI_VALUE_UNKNOWN if none was read yet
+		 */
+		public int getRssi() {
+			if (!_rssiFilter.hasValue()) {
+				return RSSI_VALUE_UNKNOWN;
+			}
+			return _rssiFilter.getValue();
+		}
+
+		/**
+		 * @return the RSSI trend in dB per second
+		 */
+		public float getRssiSlope() {
+			return _rssiFilter.getSlope();
+		}
+
+		public int getMtu() {
+			return _iMtu;
+		}
 
 		public boolean disconnect() {
 			if (_bluetoothGatt == null) {
@@ -820,10 +1169,127 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			}
 
 			_bluetoothGatt.close();
+			_isClosed = true;
+			_isReady = false;
+			_linkState = BTState.DISCONNECTED;
+			_rssiHandler.removeCallbacks(_rssiSampleTask);
 
 			return true;
 		}
 
+		/**
+		 * Re-opens the link using the existing GATT client
+		 *
+		 * @return false if there is no usable GATT client to re-connect with
+		 */
+		public boolean reconnect() {
+			if ((_bluetoothGatt == null) || _isClosed) {
+				return false;
+			}
+
+			return _bluetoothGatt.connect();
+		}
+
+		public boolean isReady() {
+			return _isReady;
+		}
+
+		/**
+		 * @return the state of this link alone
+		 */
+		public BTState getState() {
+			return _linkState;
+		}
+
+		/**
+		 * Arms the wait for awaitReady(). Must be called before the connection
+		 * 	attempt is started so that a quick outcome is not missed.
+		 */
+		public synchronized void prepareConnect() {
+			_isReady = false;
+			_linkState = BTState.CONNECTING;
+			_readyLatch = new CountDownLatch(1);
+			return;
+		}
+
+		/**
+		 * @param lTimeout
+		 * @return true if the connection became ready within the timeout
+		 */
+		public boolean awaitReady(long lTimeout) {
+			CountDownLatch latch;
+			synchronized (this) {
+				latch = _readyLatch;
+			}
+
+			if (latch != null) {
+				try {
+					latch.await(lTimeout, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Logger.warn("Connect wait interrupted");
+				}
+			}
+
+			return _isReady;
+		}
+
+		/**
+		 * @param lTimeout
+		 * @return true if the link is down, whether it was already or it went
+		 * 	down within the timeout
+		 */
+		public boolean disconnectAndWait(long lTimeout) {
+			CountDownLatch latch;
+			synchronized (this) {
+				if (!_isConnected) {
+					return true;
+				}
+				_disconnectLatch = new CountDownLatch(1);
+				latch = _disconnectLatch;
+			}
+
+			if (!disconnect()) {
+				return false;
+			}
+
+			try {
+				latch.await(lTimeout, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Logger.warn("Disconnect wait interrupted");
+			}
+
+			return !_isConnected;
+		}
+
+		private synchronized void signalReady() {
+			_isReady = true;
+			_linkState = BTState.CONNECTED;
+			if (_readyLatch != null) {
+				_readyLatch.countDown();
+			}
+
+			/* Samples from an earlier connection say nothing about this one */
+			_rssiFilter.reset();
+			_bRssiReadPending = false;
+			_rssiHandler.removeCallbacks(_rssiSampleTask);
+			_rssiHandler.post(_rssiSampleTask);
+			return;
+		}
+
+		private synchronized void signalDisconnected() {
+			/* A pending connect fails right away instead of timing out */
+			_isReady = false;
+			_linkState = BTState.DISCONNECTED;
+			_rssiHandler.removeCallbacks(_rssiSampleTask);
+			if (_readyLatch != null) {
+				_readyLatch.countDown();
+			}
+			if (_disconnectLatch != null) {
+				_disconnectLatch.countDown();
+			}
+			return;
+		}
+
 		public boolean write(byte data[]) {
 			if (!_isConnected) {
 				 Logger.err("Not connected to " + _deviceName + "/" + _deviceAddress);
@@ -847,13 +1313,9 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 				return false;
 			}
 
-			/* Add it to the writing queue */
-			_gattTaskQueue.add(new BluetoothGattRequest(_targetCharacteristic, data));
-
-			/* Nudge the Queue */
-			if (!nudgeQueue()) {
-				return false;
-			}
+			/* Add it to the writing queue; it is written once the writes
+			 *	before it have completed */
+			_gattQueue.enqueueUnacknowledgedWrite(_targetCharacteristic, data);
 
 			return true;
 		}
@@ -874,104 +1336,63 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 			}
 
 			/* Add it to the read queue */
-			_gattTaskQueue.add(new BluetoothGattRequest(characteristic));
+			_gattQueue.enqueueRead(characteristic);
 
 			return true;
 		}
 
-		private boolean nudgeQueue() {
-			synchronized (this) {
-				if (_gattTaskQueue.isEmpty()) {
-					return true;
-				}
-
-				if (!_isConnected) {
-					Logger.err("Not connected to " + _deviceName + "/" + _deviceAddress);
-					Logger.info("nudgeQueue() invoked; elements in queue: " + _gattTaskQueue.size());
-					return false;
-				}
-
-				if (_bluetoothGatt == null) {
-					Logger.err("nudgeQueue() : No BluetoothGatt reference for " + _deviceName + "/" + _deviceAddress);
-					return false;
-				}
-
-				/* Retrieve the write request and reconstruct the characteristic */
-				BluetoothGattRequest request = _gattTaskQueue.get(0);
-				BluetoothGattCharacteristic characteristic = request.getCharacteristic();
-				Logger.info("Processing request: " + request.getCharacteristicName() +
-						", isWrite=" + request.isWrite());
-				if (request.isWrite()) {
-					byte data[] = request.getData();
-					characteristic.setValue(data);
-
-					/* Write the characteristic through GATT */
-					if (!_bluetoothGatt.writeCharacteristic(characteristic)) {
-						Logger.err("Write failed: " + new String(data));
-						return false;
-					}
-					Logger.info("Write finished: " + new String(data));
-				} else {
-					/* Read the characteristic through GATT */
-					if (!_bluetoothGatt.readCharacteristic(characteristic)) {
-						Logger.err("Read failed");
-						return false;
-					}
-					Logger.info("Read finished");
-				}
-
-				/* Remove it from the queue once successfully sent */
-				_gattTaskQueue.remove(request);
-
-				try {
-					Thread.sleep(500);
-				} catch (InterruptedException e) {
-					/* Allow normal interruptions */
-				} catch (Exception e) {
-					Logger.err("Exception occurred: " + e.getMessage());
-				}
-			}
+		/**
+		 * Looks up the Bluno characteristics directly in the services recorded
+		 * 	in the cache entry
+		 *
+		 * @return false if any of them could not be found there
+		 */
+		private boolean resolveCharacteristics(BluetoothGatt gatt, GattProfileCache.Entry entry) {
+			_modelNumCharacteristic = findCharacteristic(gatt, entry.getModelNumService(), UUID_MODEL_NUM);
+			_serialPortCharacteristic = findCharacteristic(gatt, entry.getSerialService(), UUID_SERIAL);
+			_commandCharacteristic = findCharacteristic(gatt, entry.getCommandService(), UUID_COMMAND);
 
-			return true;
+			return (_modelNumCharacteristic != null) && (_serialPortCharacteristic != null) &&
+					(_commandCharacteristic != null);
 		}
 
-		private boolean parseReceived(BluetoothGattCharacteristic characteristic) {
-			if (_incomingData == null) {
-				Logger.info("New data incoming...");
-				_dataBuffer = null;
-				_incomingData = new ByteArrayOutputStream();
+		private BluetoothGattCharacteristic findCharacteristic(BluetoothGatt gatt, UUID serviceUuid,
+				UUID charUuid) {
+			BluetoothGattService gattService = gatt.getService(serviceUuid);
+			if (gattService == null) {
+				return null;
 			}
-
-			try {
-				_incomingData.write(characteristic.getValue());
-				if (hasTerminatingChar(characteristic.getValue())) {
-					/* Retrieve the byte array */
-					_dataBuffer = _incomingData.toByteArray();
-
-					/* Notify our event handler/s */
-					if (_eventHandler != null) {
-						_eventHandler.onDataReceived(_deviceName, _deviceAddress, _dataBuffer);
+			return gattService.getCharacteristic(charUuid);
+		}
+
+		/**
+		 * Walks every discovered service for the Bluno characteristics
+		 */
+		private void findCharacteristics(BluetoothGatt gatt) {
+			UUID uuid;
+			for (BluetoothGattService gattService : gatt.getServices()) {
+				/* Loop through the service's characteristics */
+				for (BluetoothGattCharacteristic gattChar : gattService.getCharacteristics()) {
+					uuid = gattChar.getUuid();
+					Logger.info(LOG_TAG, "Processing: %s", uuid);
+
+					if (uuid.equals(UUID_MODEL_NUM)) {
+						_modelNumCharacteristic = gattChar;
+					} else if (uuid.equals(UUID_SERIAL)) {
+						_serialPortCharacteristic = gattChar;
+					} else if (uuid.equals(UUID_COMMAND)) {
+						_commandCharacteristic = gattChar;
 					}
-
-					/* Close our old data stream */
-					_incomingData.close();
-					_incomingData = null;
 				}
-			} catch (Exception e) {
-				Logger.err("Exception occurred: " + e.getMessage());
 			}
 
-			return true;
+			return;
 		}
 
-		private boolean hasTerminatingChar(byte[] dataArr) {
-			for (byte b : dataArr) {
-				if (b == ';') {
-					return true;
-				}
-			}
-
-			return false;
+		private boolean parseReceived(BluetoothGattCharacteristic characteristic) {
+			/* A notification may hold several frames or just part of one */
+			_frameAssembler.feed(characteristic.getValue());
+			return true;
 		}
 
 		private class BluetoothGattCallbackHandler extends BluetoothGattCallback {
@@ -986,24 +1407,33 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 						}
 					} else if (newState == BluetoothProfile.STATE_DISCONNECTED) {
 						_isConnected = false;
-						_gattTaskQueue.clear();
+						_iMtu = DEFAULT_ATT_MTU;
+						_gattQueue.clear();
+						_frameAssembler.reset();
+
+						/* The link dropped before the cached setup was proven to work,
+						 *	so do the full handshake next time */
+						if (_bCacheUnconfirmed) {
+							Logger.warn("Unconfirmed GATT cache entry dropped: " + _deviceAddress);
+							_gattCache.invalidate(_deviceAddress);
+							_bCacheUnconfirmed = false;
+						}
 
 						/* Unset our previously known characteristics */
 						_modelNumCharacteristic = null;
 						_serialPortCharacteristic = null;
 						_commandCharacteristic = null;
 
+						/* Mark the link as down and wake up whoever is waiting on it
+						 *	before the bridge state is recomputed from the links */
+						signalDisconnected();
+
 						if (gatt.getDevice() == null) {
 							Logger.warn("Received NULL BluetoothDevice reference");
 							notifyOnDisconnected("", "");
 						} else {
 							notifyOnDisconnected(gatt.getDevice().getName(), gatt.getDevice().getAddress());
 						}
-
-						/* Interrupt any waiting threads */
-						if (_waitingThread != null) {
-							_waitingThread.interrupt();
-						}
 					}
 
 					Logger.dbg("Bluetooth LE Conn State Changed: " + newState);
@@ -1025,49 +1455,50 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 						gatt.setCharacteristicNotification(_targetCharacteristic, false);
 
 						_targetCharacteristic = _commandCharacteristic;
-						_gattTaskQueue.add(new BluetoothGattRequest(_targetCharacteristic, BLUNO_COMMAND_PASSWORD_STR));
-						_gattTaskQueue.add(new BluetoothGattRequest(_targetCharacteristic, BLUNO_COMMAND_BAUD_RATE_STR));
-
-						nudgeQueue();
+						_gattQueue.enqueueWrite(_targetCharacteristic, BLUNO_COMMAND_PASSWORD_STR.getBytes());
+						_gattQueue.enqueueWrite(_targetCharacteristic, BLUNO_COMMAND_BAUD_RATE_STR.getBytes());
 
 						_targetCharacteristic = _serialPortCharacteristic;
 						gatt.setCharacteristicNotification(_targetCharacteristic, true);
 
+						/* Later connections may skip all of this */
+						_gattCache.setConfigured(_deviceAddress, BLUNO_BAUD_RATE);
+
 						/* At this point our connection is ready */
-						/* Interrupt any waiting threads */
-						if (_waitingThread != null) {
-							_waitingThread.interrupt();
-						}
+						signalReady();
 						notifyOnConnected(getDeviceName(), getDeviceAddress());
 					} else {
 						Logger.err("Unexpected data received: " + data);
 					}
 				} else if (_targetCharacteristic == _serialPortCharacteristic) {
 					/* Handle data pushed through the serial port characteristic */
-					if (_eventHandler != null) {
-						_eventHandler.onDataReceived(_deviceName, _deviceAddress, binaryData);
-					}
+					_frameAssembler.feed(binaryData);
 				}
 
-				Logger.info("Read from " + characteristic.getUuid() + ": " + new String(binaryData));
+				if (Logger.isEnabled(LOG_TAG, Logger.LEVEL_INFO)) {
+					Logger.info(LOG_TAG, "Read from %s: %s", characteristic.getUuid(),
+							new String(binaryData));
+				}
+
+				/* Issue the next queued operation */
+				_gattQueue.onOperationComplete(GattOperationQueue.OP_READ,
+						(status == BluetoothGatt.GATT_SUCCESS));
 				return;
 			}
 
 			@Override
 			public void onCharacteristicWrite(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic, int status) {
-				/* Attempt to update our remote RSSI everytime a WRITE is initiated */
-				if (gatt != null) {
-					if (!gatt.readRemoteRssi()) {
-						Logger.err("Failed to initiate RSSI read");
+				if (status == BluetoothGatt.GATT_SUCCESS) {
+					if (Logger.isEnabled(LOG_TAG, Logger.LEVEL_INFO)) {
+						Logger.info(LOG_TAG, "Wrote at %s with %s", characteristic.getUuid(),
+								new String(characteristic.getValue()));
 					}
 				}
 
-				if (status == BluetoothGatt.GATT_SUCCESS) {
-
-					Logger.info("Wrote at " + characteristic.getUuid() + " with " + new String(characteristic.getValue()));
-					/* Write the next set of data once this is successful */
-					nudgeQueue();
-				}
+				/* Write the next set of data, or retry this one if it failed */
+				_gattQueue.onOperationComplete(GattOperationQueue.OP_WRITE,
+						(status == BluetoothGatt.GATT_SUCCESS));
+				return;
 			}
 
 			@Override
@@ -1077,28 +1508,16 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 					Logger.err("Failed to discover services");
 					return;
 				}
-				/* Clear our previous list of characteristics */
-				_gattCharacteristics.clear();
-
-				/* Upon successful discovery of services, check and cache the ones we can use */
-				UUID uuid;
-				for (BluetoothGattService gattService : gatt.getServices()) {
-					//uuid = gattService.getUuid();
-					/* Loop through the service's characteristics */
-					for (BluetoothGattCharacteristic gattChar : gattService.getCharacteristics()) {
-						uuid = gattChar.getUuid();
-						Logger.info("Processing: " + uuid);
-
-						if (uuid.equals(UUID_MODEL_NUM)) {
-							_modelNumCharacteristic = gattChar;
-						} else if (uuid.equals(UUID_SERIAL)) {
-							_serialPortCharacteristic = gattChar;
-						} else if (uuid.equals(UUID_COMMAND)) {
-							_commandCharacteristic = gattChar;
-						}
-
-						_gattCharacteristics.add(gattChar);
+				/* Look the characteristics up in the services we found them in last
+				 *	time, and only walk everything if that does not work out */
+				GattProfileCache.Entry cached = _gattCache.get(_deviceAddress);
+				if ((cached == null) || (!resolveCharacteristics(gatt, cached))) {
+					if (cached != null) {
+						Logger.warn("GATT cache is stale for " + _deviceAddress);
+						_gattCache.invalidate(_deviceAddress);
+						cached = null;
 					}
+					findCharacteristics(gatt);
 				}
 
 				/* Check if we were able to get all the characteristics needed by DFRobot's Bluno */
@@ -1108,20 +1527,49 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 					return;
 				}
 
+				if (cached == null) {
+					_gattCache.putServices(_deviceAddress,
+							_serialPortCharacteristic.getService().getUuid(),
+							_commandCharacteristic.getService().getUuid(),
+							_modelNumCharacteristic.getService().getUuid());
+				}
+
 				Logger.info("Get characteristics done");
 
+				setBluetoothGatt(gatt); // TODO Hacky
+
+				/* Ask for room for longer writes before anything else is sent */
+				if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+					_gattQueue.enqueueMtuRequest(REQUESTED_ATT_MTU);
+				}
+
+				/* Only the serial port may be written to without a response */
+				int iProperties = _serialPortCharacteristic.getProperties();
+				if (_bWriteNoResponse &&
+						((iProperties & BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE) != 0)) {
+					_gattQueue.setWriteCredits(DEFAULT_WRITE_CREDITS);
+				} else {
+					_gattQueue.setWriteCredits(0);
+				}
+
+				if ((cached != null) && cached.isConfiguredFor(BLUNO_BAUD_RATE)) {
+					/* This Bluno has been set up before, so skip the handshake. The
+					 *	first frame received from it confirms that this was right. */
+					Logger.info("Bluno already configured: " + _deviceAddress);
+					_bCacheUnconfirmed = true;
+
+					_targetCharacteristic = _serialPortCharacteristic;
+					gatt.setCharacteristicNotification(_targetCharacteristic, true);
+
+					signalReady();
+					notifyOnConnected(getDeviceName(), getDeviceAddress());
+					return;
+				}
+
 				/* Read the model number off our Bluno device */
 				_targetCharacteristic = _modelNumCharacteristic;
 				gatt.setCharacteristicNotification(_targetCharacteristic, true);
-
-				_bluetoothGatt = gatt; // TODO Hacky
-				try {
-					Thread.sleep(500);
-				} catch (InterruptedException e) {
-					Logger.warn("Read delay interrupted");
-				}
 				read(_targetCharacteristic);
-				nudgeQueue();
 
 				return;
 			}
@@ -1136,12 +1584,29 @@ public class AndroidBluetoothLeBridge implements IBluetoothBridge {
 				return;
 			}
 
+			@Override
+			public void onMtuChanged(BluetoothGatt gatt, int mtu, int status) {
+				if (status == BluetoothGatt.GATT_SUCCESS) {
+					_iMtu = mtu;
+					Logger.info("ATT MTU for " + _deviceAddress + " is now " + mtu);
+				}
+				_gattQueue.onOperationComplete(GattOperationQueue.OP_REQUEST_MTU,
+						(status == BluetoothGatt.GATT_SUCCESS));
+				return;
+			}
+
 			@Override
 			public void onReadRemoteRssi(BluetoothGatt gatt, int rssi, int status) {
+				_bRssiReadPending = false;
 				if (status == BluetoothGatt.GATT_SUCCESS) {
-					_rssi = rssi;
-					Logger.info("RSSI: " + _rssi);
+					if (!_rssiFilter.add(rssi)) {
+						Logger.dbg(LOG_TAG, "RSSI: %d rejected", rssi);
+					} else {
+						Logger.dbg(LOG_TAG, "RSSI: %d (filtered %d)", rssi, _rssiFilter.getValue());
+					}
 				}
+				_gattQueue.onOperationComplete(GattOperationQueue.OP_READ_RSSI,
+						(status == BluetoothGatt.GATT_SUCCESS));
 				super.onReadRemoteRssi(gatt, rssi, status);
 				return;
 			}
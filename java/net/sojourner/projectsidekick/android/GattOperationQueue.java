@@ -0,0 +1,350 @@
+package net.sojourner.projectsidekick.android;
+
+import android.annotation.TargetApi;
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import net.sojourner.projectsidekick.utils.Logger;
+
+import java.util.ArrayDeque;
+
+/**
+ * Serializes the GATT operations of a single connection.
+ *
+ * Android only allows one outstanding GATT operation per connection, so
+ * 	operations are queued and the next one is only issued once the callback
+ * 	for the current one arrives (see onOperationComplete()). Callers never
+ * 	block. An operation which the stack refuses or reports as failed is
+ * 	retried a limited number of times before it is dropped. So is one whose
+ * 	callback does not arrive within the timeout, except for writes: the
+ * 	remote device may already have received a timed out write, so it is
+ * 	dropped rather than sent twice.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+class GattOperationQueue {
+	public static final int OP_READ			= 0;
+	public static final int OP_WRITE		= 1;
+	public static final int OP_READ_RSSI	= 2;
+	public static final int OP_REQUEST_MTU	= 3;
+
+	private static final long DEFAULT_OP_TIMEOUT	= 2000;
+	private static final long RETRY_DELAY			= 20;
+	private static final int MAX_ATTEMPTS			= 3;
+
+	private static final Logger.Tag LOG_TAG = Logger.tag("BluetoothLe");
+
+	private static final class Operation {
+		private final int _iType;
+		private final BluetoothGattCharacteristic _characteristic;
+		private final byte _data[];
+		private final int _iValue;
+		private int _iAttempts = 0;
+		private int _iWriteType = BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT;
+
+		private Operation(int iType, BluetoothGattCharacteristic characteristic, byte data[],
+				int iValue) {
+			_iType = iType;
+			_characteristic = characteristic;
+			_data = data;
+			_iValue = iValue;
+			return;
+		}
+
+		public String toString() {
+			switch (_iType) {
+				case OP_READ:
+					return "READ " + _characteristic.getUuid();
+				case OP_WRITE:
+					return "WRITE " + _characteristic.getUuid() + " (" + _data.length + " bytes)";
+				case OP_REQUEST_MTU:
+					return "REQUEST MTU " + _iValue;
+				default:
+					return "READ RSSI";
+			}
+		}
+	}
+
+	private final ArrayDeque<Operation> _queue = new ArrayDeque<Operation>();
+	private final Handler _handler = new Handler(Looper.getMainLooper());
+	private final String _name;
+
+	private BluetoothGatt _bluetoothGatt = null;
+	private Operation _current = null;
+
+	/* Writes which may go out without a response; each one uses up a credit
+	 * 	and a write with response, which proves that the remote device has
+	 * 	kept up, restores them */
+	private int _iMaxWriteCredits = 0;
+	private int _iWriteCredits = 0;
+
+	private long _lCompleted = 0;
+	private long _lRetried = 0;
+	private long _lDropped = 0;
+
+	private final Runnable _timeoutCheck = new Runnable() {
+		@Override
+		public void run() {
+			synchronized (GattOperationQueue.this) {
+				if (_current == null) {
+					return;
+				}
+				Logger.warn("GATT operation timed out: " + _current + " on " + _name);
+				if (_current._iType == OP_WRITE) {
+					drop();
+				} else {
+					retryOrDrop();
+				}
+			}
+			return;
+		}
+	};
+
+	private final Runnable _issueNext = new Runnable() {
+		@Override
+		public void run() {
+			synchronized (GattOperationQueue.this) {
+				issueNext();
+			}
+			return;
+		}
+	};
+
+	/**
+	 * @param name used to identify the connection in logs
+	 */
+	public GattOperationQueue(String name) {
+		_name = name;
+		return;
+	}
+
+	public synchronized void setBluetoothGatt(BluetoothGatt gatt) {
+		_bluetoothGatt = gatt;
+		return;
+	}
+
+	/**
+	 * Lets up to iCredits consecutive writes queued through
+	 * 	enqueueUnacknowledgedWrite() go out without a response
+	 *
+	 * @param iCredits	zero to always write with response
+	 */
+	public synchronized void setWriteCredits(int iCredits) {
+		_iMaxWriteCredits = iCredits;
+		_iWriteCredits = iCredits;
+		return;
+	}
+
+	public synchronized void enqueueWrite(BluetoothGattCharacteristic characteristic, byte data[]) {
+		enqueue(new Operation(OP_WRITE, characteristic, data, 0));
+		return;
+	}
+
+	/**
+	 * Queues a write which is sent without a response if a write credit is
+	 * 	left, and with one otherwise
+	 */
+	public synchronized void enqueueUnacknowledgedWrite(BluetoothGattCharacteristic characteristic,
+			byte data[]) {
+		enqueue(new Operation(OP_WRITE, characteristic, data, 1));
+		return;
+	}
+
+	public synchronized void enqueueRead(BluetoothGattCharacteristic characteristic) {
+		enqueue(new Operation(OP_READ, characteristic, null, 0));
+		return;
+	}
+
+	public synchronized void enqueueRssiRead() {
+		enqueue(new Operation(OP_READ_RSSI, null, null, 0));
+		return;
+	}
+
+	public synchronized void enqueueMtuRequest(int iMtu) {
+		enqueue(new Operation(OP_REQUEST_MTU, null, null, iMtu));
+		return;
+	}
+
+	/**
+	 * Completes the outstanding operation and issues the next one. Called from
+	 * 	the BluetoothGattCallback method which corresponds to the operation.
+	 *
+	 * @param iType		type of the operation which the callback is for
+	 * @param bSuccess	whether the callback reported GATT_SUCCESS
+	 */
+	public synchronized void onOperationComplete(int iType, boolean bSuccess) {
+		if ((_current == null) || (_current._iType != iType)) {
+			/* Not ours; e.g. a late callback for an operation that timed out */
+			return;
+		}
+
+		_handler.removeCallbacks(_timeoutCheck);
+
+		if (!bSuccess) {
+			Logger.warn("GATT operation failed: " + _current + " on " + _name);
+			retryOrDrop();
+			return;
+		}
+
+		if ((_current._iType == OP_WRITE) &&
+				(_current._iWriteType == BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT)) {
+			/* The remote device has acknowledged everything written so far */
+			_iWriteCredits = _iMaxWriteCredits;
+		}
+
+		_lCompleted++;
+		_current = null;
+		issueNext();
+
+		return;
+	}
+
+	/**
+	 * Drops all pending operations, e.g. upon disconnection
+	 */
+	public synchronized void clear() {
+		_handler.removeCallbacks(_timeoutCheck);
+		_handler.removeCallbacks(_issueNext);
+		_queue.clear();
+		_current = null;
+		return;
+	}
+
+	/**
+	 * @return true if there is neither an outstanding nor a queued operation
+	 */
+	public synchronized boolean isIdle() {
+		return (_current == null) && _queue.isEmpty();
+	}
+
+	/* ******* */
+	/* Getters */
+	/* ******* */
+	public synchronized int getSize() {
+		return _queue.size() + ((_current != null) ? 1 : 0);
+	}
+
+	public synchronized long getCompletedCount() {
+		return _lCompleted;
+	}
+
+	public synchronized long getRetriedCount() {
+		return _lRetried;
+	}
+
+	public synchronized long getDroppedCount() {
+		return _lDropped;
+	}
+
+	/* *************** */
+	/* Private Methods */
+	/* *************** */
+	private void enqueue(Operation op) {
+		_queue.addLast(op);
+		if (_current == null) {
+			issueNext();
+		}
+		return;
+	}
+
+	private void issueNext() {
+		if (_current != null) {
+			return;
+		}
+
+		Operation op = _queue.pollFirst();
+		if (op == null) {
+			return;
+		}
+
+		if (_bluetoothGatt == null) {
+			Logger.err("No BluetoothGatt reference for " + _name);
+			_lDropped++;
+			_queue.clear();
+			return;
+		}
+
+		_current = op;
+		op._iAttempts++;
+		Logger.info(LOG_TAG, "Processing request: %s", op);
+
+		boolean bIssued;
+		switch (op._iType) {
+			case OP_WRITE:
+				if ((op._iValue != 0) && (_iMaxWriteCredits > 0)) {
+					/* Otherwise the characteristic keeps its own write type */
+					op._iWriteType = BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT;
+					if (_iWriteCredits > 0) {
+						op._iWriteType = BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE;
+						_iWriteCredits--;
+					}
+					op._characteristic.setWriteType(op._iWriteType);
+				}
+				op._characteristic.setValue(op._data);
+				bIssued = _bluetoothGatt.writeCharacteristic(op._characteristic);
+				break;
+			case OP_READ:
+				bIssued = _bluetoothGatt.readCharacteristic(op._characteristic);
+				break;
+			case OP_REQUEST_MTU:
+				bIssued = requestMtu(op._iValue);
+				break;
+			default:
+				bIssued = _bluetoothGatt.readRemoteRssi();
+				break;
+		}
+
+		if (!bIssued) {
+			/* The stack is still busy or refused the request outright */
+			Logger.warn(LOG_TAG, "Could not issue %s", op);
+			retryOrDrop();
+			return;
+		}
+
+		_handler.postDelayed(_timeoutCheck, DEFAULT_OP_TIMEOUT);
+		return;
+	}
+
+	@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+	private boolean requestMtu(int iMtu) {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+			return false;
+		}
+		return _bluetoothGatt.requestMtu(iMtu);
+	}
+
+	private void retryOrDrop() {
+		Operation op = _current;
+		_current = null;
+
+		if (op._iAttempts < MAX_ATTEMPTS) {
+			/* Put it back at the head of the queue so that ordering is kept */
+			_lRetried++;
+			_queue.addFirst(op);
+		} else {
+			Logger.err("Dropped GATT operation after " + op._iAttempts + " attempts: " + op);
+			_lDropped++;
+		}
+
+		issueNextDelayed();
+		return;
+	}
+
+	private void drop() {
+		Logger.err("Dropped GATT operation: " + _current);
+		_lDropped++;
+		_current = null;
+
+		issueNextDelayed();
+		return;
+	}
+
+	private void issueNextDelayed() {
+		/* Give the stack a moment instead of issuing from within this call */
+		_handler.removeCallbacks(_issueNext);
+		_handler.postDelayed(_issueNext, RETRY_DELAY);
+		return;
+	}
+}
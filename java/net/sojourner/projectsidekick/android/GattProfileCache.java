@@ -0,0 +1,166 @@
+package net.sojourner.projectsidekick.android;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import net.sojourner.projectsidekick.utils.Logger;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers, per device address, which services hold the characteristics
+ * 	used with a Bluno and whether the Bluno has already been configured.
+ *
+ * Entries are kept in memory and persisted to SharedPreferences so they
+ * 	survive app restarts. Writes go through apply() since they are made
+ * 	from GATT callbacks in the middle of a connect.
+ *
+ * Entries are not checked when stored. A connection that relies on an
+ * 	entry has to confirm it once it has used it, and must invalidate it if
+ * 	that fails.
+ */
+class GattProfileCache {
+	private static final String GATT_CACHE_PREFS = "PROJECT_SIDEKICK__GATT_CACHE";
+	private static final char DELIM = '|';
+
+	static final class Entry {
+		private final UUID _serialService;
+		private final UUID _commandService;
+		private final UUID _modelNumService;
+		private final int _iBaudRate;
+
+		Entry(UUID serialService, UUID commandService, UUID modelNumService, int iBaudRate) {
+			_serialService = serialService;
+			_commandService = commandService;
+			_modelNumService = modelNumService;
+			_iBaudRate = iBaudRate;
+			return;
+		}
+
+		public UUID getSerialService() {
+			return _serialService;
+		}
+
+		public UUID getCommandService() {
+			return _commandService;
+		}
+
+		public UUID getModelNumService() {
+			return _modelNumService;
+		}
+
+		/**
+		 * @return true if the Bluno was configured for the given baud rate
+		 */
+		public boolean isConfiguredFor(int iBaudRate) {
+			return _iBaudRate == iBaudRate;
+		}
+
+		private Entry withBaudRate(int iBaudRate) {
+			return new Entry(_serialService, _commandService, _modelNumService, iBaudRate);
+		}
+
+		private String encode() {
+			return _serialService.toString() + DELIM + _commandService.toString() + DELIM +
+					_modelNumService.toString() + DELIM + _iBaudRate;
+		}
+
+		private static Entry decode(String encoded) {
+			String fields[] = encoded.split("\\" + DELIM);
+			if (fields.length != 4) {
+				return null;
+			}
+
+			try {
+				return new Entry(UUID.fromString(fields[0]), UUID.fromString(fields[1]),
+						UUID.fromString(fields[2]), Integer.parseInt(fields[3]));
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+	}
+
+	private final SharedPreferences _prefs;
+	private final ConcurrentHashMap<String, Entry> _entries = new ConcurrentHashMap<String, Entry>();
+
+	GattProfileCache(Context context) {
+		_prefs = context.getSharedPreferences(GATT_CACHE_PREFS, Context.MODE_PRIVATE);
+		return;
+	}
+
+	/**
+	 * @param address
+	 * @return the entry for this device, loaded from storage on first use, or
+	 * 	null if there is none
+	 */
+	public Entry get(String address) {
+		Entry entry = _entries.get(address);
+		if (entry != null) {
+			return entry;
+		}
+
+		String encoded = _prefs.getString(address, null);
+		if (encoded == null) {
+			return null;
+		}
+
+		entry = Entry.decode(encoded);
+		if (entry == null) {
+			Logger.warn("Discarding unreadable GATT cache entry for " + address);
+			invalidate(address);
+			return null;
+		}
+
+		_entries.put(address, entry);
+		return entry;
+	}
+
+	/**
+	 * Stores the services found for this device. Any configuration recorded
+	 * 	earlier is kept only if the services did not change.
+	 */
+	public void putServices(String address, UUID serialService, UUID commandService,
+			UUID modelNumService) {
+		int iBaudRate = 0;
+		Entry old = get(address);
+		if ((old != null) && old._serialService.equals(serialService) &&
+				old._commandService.equals(commandService) &&
+				old._modelNumService.equals(modelNumService)) {
+			iBaudRate = old._iBaudRate;
+		}
+
+		store(address, new Entry(serialService, commandService, modelNumService, iBaudRate));
+		return;
+	}
+
+	/**
+	 * Records that the device has been configured for the given baud rate
+	 */
+	public void setConfigured(String address, int iBaudRate) {
+		Entry entry = get(address);
+		if (entry == null) {
+			return;
+		}
+
+		if (!entry.isConfiguredFor(iBaudRate)) {
+			store(address, entry.withBaudRate(iBaudRate));
+		}
+		return;
+	}
+
+	public void invalidate(String address) {
+		_entries.remove(address);
+		_prefs.edit().remove(address).apply();
+		return;
+	}
+
+	/* *************** */
+	/* Private Methods */
+	/* *************** */
+	private void store(String address, Entry entry) {
+		_entries.put(address, entry);
+		_prefs.edit().putString(address, entry.encode()).apply();
+		return;
+	}
+}
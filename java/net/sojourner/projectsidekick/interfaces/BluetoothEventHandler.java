@@ -5,4 +5,6 @@ public interface BluetoothEventHandler {
 	public void onDisconnected(String name, String address);
 	public void onDeactivated();
 	public void onDataReceived(String name, String address, byte[] data);
+	public void onDataReceived(String name, String address, byte[] data, int iOffs, int iLen);
+	public void onFrameFragment(String name, String address, byte[] data, int iOffs, int iPos, int iLen);
 }
@@ -1,6 +1,7 @@
 package net.sojourner.projectsidekick.interfaces;
 
 import net.sojourner.projectsidekick.types.BTState;
+import net.sojourner.projectsidekick.types.MacAddress;
 import net.sojourner.projectsidekick.types.PSStatus;
 
 public interface IBluetoothBridge {
@@ -19,6 +20,13 @@ public interface IBluetoothBridge {
 	public PSStatus connectDeviceByName(String name);
 	public PSStatus disconnectDeviceByAddress(String address);
 	public PSStatus broadcast(byte[] data);
+	public PSStatus broadcast(byte[] data, int iOffs, int iLen);
+	public PSStatus send(MacAddress address, byte[] data);
+	public PSStatus send(MacAddress address, byte[] data, int iOffs, int iLen);
+	public BTState getState(MacAddress address);
+	public int getRssi(MacAddress address);
+	public float getRssiSlope(MacAddress address);
+	public int getMaxPayloadSize();
 	public PSStatus read(String address);
 	public PSStatus destroy();
 	public PSStatus setEventHandler(BluetoothEventHandler eventHandler);
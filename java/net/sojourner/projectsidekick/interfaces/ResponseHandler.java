@@ -0,0 +1,7 @@
+package net.sojourner.projectsidekick.interfaces;
+
+import net.sojourner.projectsidekick.types.ReceivedData;
+
+public interface ResponseHandler {
+	public void onResponse(ReceivedData response, int iPayloadOffs);
+}
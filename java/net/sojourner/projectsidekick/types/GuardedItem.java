@@ -1,10 +1,15 @@
 package net.sojourner.projectsidekick.types;
 
+import net.sojourner.projectsidekick.utils.RssiFilter;
+
 public class GuardedItem extends KnownDevice {
 	private long 	_lReportWindow = 0;
 	private boolean _isLost = false;
 	private short	_uRssi	= 0;
 
+	/* Scan RSSI is noisy, so each sighting goes through a filter first */
+	private final RssiFilter _rssiFilter = new RssiFilter();
+
 	public GuardedItem(String name, String address) {
 		super(name, address);
 	}
@@ -25,9 +30,20 @@ public class GuardedItem extends KnownDevice {
 		return _isLost;
 	}
 
+	/**
+	 * @return the filtered RSSI of the sightings so far
+	 */
 	public short getRssi() {
 		return _uRssi;
 	}
+
+	/**
+	 * @return the RSSI trend in dB per second, which is negative while the
+	 * 	device moves away
+	 */
+	public float getRssiSlope() {
+		return _rssiFilter.getSlope();
+	}
 	
 	public void setIsLost(boolean isLost) {
 		_isLost = isLost;
@@ -35,7 +51,8 @@ public class GuardedItem extends KnownDevice {
 	}
 
 	public void setRssi(short uRssi) {
-		_uRssi = uRssi;
+		_rssiFilter.add(uRssi);
+		_uRssi = (short) _rssiFilter.getValue();
 		return;
 	}
 	
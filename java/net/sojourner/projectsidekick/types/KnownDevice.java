@@ -8,7 +8,7 @@ public class KnownDevice {
 	
 	private String 		 _name 	 			= "";
 	private String 		 _addr 	 			= "";
-	private String 		 _reverseAddr 	 	= "";
+	private MacAddress	 _mac				= null;
 	private DeviceStatus _status 			= DeviceStatus.UNKNOWN;
 	private boolean 	 _isRegistered  	= false;
 	private boolean		 _isAddrReversed	= false;
@@ -29,7 +29,7 @@ public class KnownDevice {
 	public KnownDevice(String name, String address) {
 		_name = name;
 		_addr = address;
-		_reverseAddr = KnownDevice.getReversedMacAddress(address);
+		_mac = MacAddress.parse(address);
 		
 		return;
 	}
@@ -60,13 +60,35 @@ public class KnownDevice {
 	}
 	
 	public boolean addressMatches(String address) {
-		/* Check if we can match with the reversed address as well */
-		if (_addr.equals(address)) {
+		MacAddress mac = MacAddress.parse(address);
+
+		/* Fall back to a plain comparison for addresses we cannot parse */
+		if ((mac == null) || (_mac == null)) {
+			return _addr.equals(address);
+		}
+		
+		return addressMatches(mac);
+	}
+	
+	public boolean addressMatches(KnownDevice device) {
+		if ((device._mac == null) || (_mac == null)) {
+			return _addr.equals(device._addr);
+		}
+		
+		return addressMatches(device._mac);
+	}
+	
+	public boolean addressMatches(MacAddress mac) {
+		if ((mac == null) || (_mac == null)) {
+			return false;
+		}
+		
+		if (_mac.equals(mac)) {
 			return true;
 		}
 		
 		/* Check if we can match with the reversed address as well */
-		if (_reverseAddr.equals(address)) {
+		if (_mac.matches(mac)) {
 			setAddressReversed(true);
 			return true;
 		}
@@ -82,6 +104,10 @@ public class KnownDevice {
 		return _addr;
 	}
 	
+	public MacAddress getMacAddress() {
+		return _mac;
+	}
+	
 	public DeviceStatus getStatus() {
 		return _status;
 	}
@@ -90,27 +116,4 @@ public class KnownDevice {
 		String prefix = _isRegistered ? "[R] " : "[U] ";
 		return (prefix + _name + "\n" + _addr + "\n" + _status.toString());
 	}
-
-	private static String getReversedMacAddress(String address) {
-		String newAddr = "";
-
-		int targIdx = 0;
-		int offset = 2;
-
-		targIdx = address.length() - offset;
-		while (targIdx >= 0) {
-
-			newAddr += address.charAt(targIdx++);
-			newAddr += address.charAt(targIdx);
-
-			offset += 3;
-			targIdx = address.length() - offset;
-
-			if (targIdx >= 0) {
-				newAddr += ":";
-			}
-		}
-
-		return newAddr;
-	}
 }
@@ -0,0 +1,155 @@
+package net.sojourner.projectsidekick.types;
+
+/**
+ * Immutable 48-bit Bluetooth MAC address packed into the low bits of a long.
+ *
+ * The first octet of the address ("AA" in "AA:BB:CC:DD:EE:FF") is kept in
+ *  the most significant position so that the packed value orders the same
+ *  way as the formatted String.
+ */
+public final class MacAddress {
+    public static final int LENGTH = 6;
+
+    private static final long MASK = 0xFFFFFFFFFFFFL;
+    private static final char HEX_DIGITS[] = "0123456789ABCDEF".toCharArray();
+
+    private final long _lValue;
+
+    private MacAddress(long lValue) {
+        _lValue = lValue & MASK;
+        return;
+    }
+
+    public static MacAddress fromLong(long lValue) {
+        return new MacAddress(lValue);
+    }
+
+    public static MacAddress fromBytes(byte[] data, int iOffs) {
+        long lValue = 0;
+        for (int iIdx = 0; iIdx < LENGTH; iIdx++) {
+            lValue = (lValue << 8) | (data[iOffs + iIdx] & 0xFF);
+        }
+        return new MacAddress(lValue);
+    }
+
+    /**
+     * Parses an address of 12 hex digits, optionally separated by ':' or '-'
+     *  after every octet (e.g. "AA:BB:CC:DD:EE:FF" or "AABBCCDDEEFF")
+     *
+     * @param address
+     * @return the parsed address or null if it is malformed
+     */
+    public static MacAddress parse(String address) {
+        if (address == null) {
+            return null;
+        }
+
+        int iLen = address.length();
+        boolean bSeparated;
+        if (iLen == (LENGTH * 3) - 1) {
+            bSeparated = true;
+        } else if (iLen == (LENGTH * 2)) {
+            bSeparated = false;
+        } else {
+            return null;
+        }
+
+        long lValue = 0;
+        int iPos = 0;
+        for (int iOctet = 0; iOctet < LENGTH; iOctet++) {
+            if (bSeparated && (iOctet > 0)) {
+                char cSep = address.charAt(iPos++);
+                if ((cSep != ':') && (cSep != '-')) {
+                    return null;
+                }
+            }
+
+            int iHi = Character.digit(address.charAt(iPos++), 16);
+            int iLo = Character.digit(address.charAt(iPos++), 16);
+            if ((iHi < 0) || (iLo < 0)) {
+                return null;
+            }
+
+            lValue = (lValue << 8) | (iHi << 4) | iLo;
+        }
+
+        return new MacAddress(lValue);
+    }
+
+    public long toLong() {
+        return _lValue;
+    }
+
+    public void writeTo(byte[] data, int iOffs) {
+        for (int iIdx = LENGTH - 1; iIdx >= 0; iIdx--) {
+            data[iOffs + iIdx] = (byte) (_lValue >>> (8 * (LENGTH - 1 - iIdx)));
+        }
+        return;
+    }
+
+    /**
+     * Some Bluetooth stacks report MAC addresses with their octets reversed,
+     *  so lookups may need to check this form as well
+     *
+     * @return the address with its octet order reversed
+     */
+    public MacAddress reverse() {
+        return new MacAddress(Long.reverseBytes(_lValue) >>> 16);
+    }
+
+    /**
+     * @return true if this address equals the other in either octet order
+     */
+    public boolean matches(MacAddress other) {
+        if (other == null) {
+            return false;
+        }
+        return (_lValue == other._lValue) || (_lValue == (Long.reverseBytes(other._lValue) >>> 16));
+    }
+
+    /**
+     * @return the address as 12 hex digits without separators, the form
+     *  expected by the SIDEKICK in requests
+     */
+    public String toCompactString() {
+        char cAddr[] = new char[LENGTH * 2];
+        int iPos = 0;
+        for (int iShift = 40; iShift >= 0; iShift -= 8) {
+            int iOctet = (int) (_lValue >>> iShift) & 0xFF;
+            cAddr[iPos++] = HEX_DIGITS[iOctet >>> 4];
+            cAddr[iPos++] = HEX_DIGITS[iOctet & 0xF];
+        }
+        return new String(cAddr);
+    }
+
+    @Override
+    public String toString() {
+        char cAddr[] = new char[(LENGTH * 3) - 1];
+        int iPos = 0;
+        for (int iShift = 40; iShift >= 0; iShift -= 8) {
+            if (iPos > 0) {
+                cAddr[iPos++] = ':';
+            }
+            int iOctet = (int) (_lValue >>> iShift) & 0xFF;
+            cAddr[iPos++] = HEX_DIGITS[iOctet >>> 4];
+            cAddr[iPos++] = HEX_DIGITS[iOctet & 0xF];
+        }
+        return new String(cAddr);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MacAddress)) {
+            return false;
+        }
+        return _lValue == ((MacAddress) obj)._lValue;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (_lValue ^ (_lValue >>> 32));
+    }
+}
@@ -136,16 +136,14 @@ public class MasterListAdapter extends ArrayAdapter<MasterListItem> {
     }
 
     public String getGuardSetup() {
-        String guardStr = "";
         int iSize = this.getCount();
+        StringBuilder guardStr = new StringBuilder(iSize * 4);
 
         for (int iIdx = 0; iIdx < iSize; iIdx++) {
-            MasterListItem item = getItem(iIdx);
-            guardStr += item.getId();
-            guardStr += (item.isGuarded() ? "1" : "0");
+            getItem(iIdx).appendGuardSetup(guardStr);
         }
 
-        return guardStr;
+        return guardStr.toString();
     }
 
     private MasterListItem getMasterListItem(String address) {
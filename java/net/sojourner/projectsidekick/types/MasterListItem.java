@@ -11,7 +11,8 @@ public class MasterListItem {
     private String 	_addr = "";
     private boolean _bIsGuarded = false;
     private boolean _bIsModified = false;
-    private static String _delim = "\\|";
+    private static final char DELIM = '|';
+    private static final int FIELD_COUNT = 4;
 
     /**
      * A convenience function which directly parses an item string intended
@@ -23,9 +24,38 @@ public class MasterListItem {
      * @return
      */
     public static MasterListItem parse(String itemStr) {
-        String itemStrPart[] = itemStr.split(_delim);
-        if (itemStrPart.length != 4) {
-            Logger.err("Invalid input string: " + itemStrPart.length);
+        /* Split on the delimiter by hand since this runs once per list item.
+         *  Trailing empty fields are dropped before counting, the same as
+         *  String.split() does, so the same strings are rejected. */
+        int iLen = itemStr.length();
+        while ((iLen > 0) && (itemStr.charAt(iLen - 1) == DELIM)) {
+            iLen--;
+        }
+
+        String itemStrPart[] = new String[FIELD_COUNT];
+        int iPart = 0;
+        int iStart = 0;
+        while (true) {
+            int iEnd = itemStr.indexOf(DELIM, iStart);
+            if ((iEnd < 0) || (iEnd > iLen)) {
+                iEnd = iLen;
+            }
+            if (iPart < FIELD_COUNT) {
+                itemStrPart[iPart] = itemStr.substring(iStart, iEnd);
+            }
+            iPart++;
+            if (iEnd >= iLen) {
+                break;
+            }
+            iStart = iEnd + 1;
+        }
+
+        if ((iLen == 0) && (itemStr.length() > 0)) {
+            /* Nothing but delimiters, which split() turns into no fields */
+            iPart = 0;
+        }
+        if (iPart != FIELD_COUNT) {
+            Logger.err("Invalid input string: " + iPart);
             return null;
         }
         int id = -1;
@@ -64,6 +94,15 @@ public class MasterListItem {
         return;
     }
 
+    public MasterListItem(int id, String name, String address, boolean isGuarded) {
+        _id = id;
+        _name = name;
+        _addr = address;
+        _bIsGuarded = isGuarded;
+
+        return;
+    }
+
     public int getId() {
         return _id;
     }
@@ -94,6 +133,19 @@ public class MasterListItem {
         return;
     }
 
+    /**
+     * Appends this item's entry in the guard setup string sent with a
+     *  MODIFY GUARD LIST request.
+     *
+     *  Format: "<id><0|1>"
+     *
+     * @param guardStr
+     * @return guardStr
+     */
+    public StringBuilder appendGuardSetup(StringBuilder guardStr) {
+        return guardStr.append(_id).append(_bIsGuarded ? '1' : '0');
+    }
+
     private String getGuardStatus() {
         return ( _bIsGuarded ? "Guarded" : "Not Guarded");
     }
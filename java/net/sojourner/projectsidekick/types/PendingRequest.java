@@ -0,0 +1,164 @@
+package net.sojourner.projectsidekick.types;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A request that has been sent to the SIDEKICK and is waiting for its
+ *  response. Responses are correlated with their request either through the
+ *  sequence number (protocol v2) or, when the device does not echo one,
+ *  in FIFO order among the requests expecting the same response prefix.
+ *
+ * Callers can block on a request with await() until it is completed,
+ *  times out, is cancelled or fails. Requests that could not be sent at
+ *  all are returned already in the FAILED state.
+ */
+public class PendingRequest {
+    public static enum Status { PENDING, COMPLETED, TIMED_OUT, CANCELLED, FAILED };
+
+    private final String    _name;
+    private final MacAddress _address;
+    private final int       _iSeq;
+    private final int       _iResponsePrefix;
+    private final long      _lDeadline;
+
+    private final CountDownLatch _doneLatch = new CountDownLatch(1);
+
+    private Status          _status     = Status.PENDING;
+
+    /**
+     * @param address   the device the request was sent to, or null if it was
+     *  broadcast
+     */
+    public PendingRequest(String name, MacAddress address, int iSeq, int iResponsePrefix,
+                          long lDeadline) {
+        _name = name;
+        _address = address;
+        _iSeq = iSeq;
+        _iResponsePrefix = iResponsePrefix;
+        _lDeadline = lDeadline;
+        return;
+    }
+
+    /**
+     * Creates a request handle for a request that could not be sent
+     *
+     * @param name
+     * @return a request already in the FAILED state
+     */
+    public static PendingRequest failed(String name) {
+        PendingRequest req = new PendingRequest(name, null, 0, 0, 0);
+        req.fail();
+        return req;
+    }
+
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * @return the device the request was sent to, or null if it was broadcast
+     */
+    public MacAddress getAddress() {
+        return _address;
+    }
+
+    /**
+     * @return true if a response or event from the given device concerns
+     *  this request. Broadcast requests concern every device.
+     */
+    public boolean isFor(MacAddress address) {
+        return (_address == null) || _address.matches(address);
+    }
+
+    public int getSequence() {
+        return _iSeq;
+    }
+
+    public int getResponsePrefix() {
+        return _iResponsePrefix;
+    }
+
+    /**
+     * @return the time (in System.currentTimeMillis() terms) after which
+     *  this request is considered to have timed out
+     */
+    public long getDeadline() {
+        return _lDeadline;
+    }
+
+    public synchronized Status getStatus() {
+        return _status;
+    }
+
+    public synchronized boolean isDone() {
+        return _status != Status.PENDING;
+    }
+
+    public synchronized boolean isFailed() {
+        return _status == Status.FAILED;
+    }
+
+    /**
+     * Blocks until this request is done or its own deadline passes
+     *
+     * @return the status of the request when the wait ended
+     * @throws InterruptedException
+     */
+    public Status await() throws InterruptedException {
+        return await(_lDeadline);
+    }
+
+    /**
+     * Blocks until this request is done or the given deadline passes
+     *
+     * @param lDeadline in System.currentTimeMillis() terms
+     * @return the status of the request when the wait ended, which is still
+     *  PENDING if the deadline passed first
+     * @throws InterruptedException
+     */
+    public Status await(long lDeadline) throws InterruptedException {
+        long lRemaining = lDeadline - System.currentTimeMillis();
+        if (lRemaining > 0) {
+            _doneLatch.await(lRemaining, TimeUnit.MILLISECONDS);
+        }
+        return getStatus();
+    }
+
+    /* Status transitions are only made once; later calls are ignored. The
+     *  response itself is consumed by its ResponseHandler and is not kept
+     *  here since received data envelopes are recycled once handled. */
+    public boolean complete() {
+        return finish(Status.COMPLETED);
+    }
+
+    public boolean expire() {
+        return finish(Status.TIMED_OUT);
+    }
+
+    public boolean cancel() {
+        return finish(Status.CANCELLED);
+    }
+
+    public boolean fail() {
+        return finish(Status.FAILED);
+    }
+
+    public String toString() {
+        return _name + " #" + _iSeq + " (" + getStatus() + ")";
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private boolean finish(Status status) {
+        synchronized (this) {
+            if (_status != Status.PENDING) {
+                return false;
+            }
+            _status = status;
+        }
+        _doneLatch.countDown();
+        return true;
+    }
+}
@@ -1,36 +1,129 @@
 package net.sojourner.projectsidekick.types;
 
-import net.sojourner.projectsidekick.utils.Logger;
+import java.util.List;
 
 /**
+ * Envelope for data received from a remote device.
+ *
+ * Envelopes are pooled: get one through obtain() and hand it back through
+ *  recycle() once it has been handled. The payload is copied into a
+ *  fixed-size backing array, so only the first getLength() bytes of
+ *  getData() are valid. The payload is only decoded into a String when
+ *  getText() is called.
+ *
  * Created by francis on 3/23/16.
  */
 public class ReceivedData {
+    public static final int MAX_DATA_LEN = 1024;
+
+    private static final int MAX_POOL_SIZE = 16;
+    private static final Object _poolLock = new Object();
+    private static ReceivedData _pool = null;
+    private static int _iPoolSize = 0;
+    private static long _lPoolHits = 0;
+    private static long _lPoolMisses = 0;
+
     private String _senderName = "";
     private String _senderAddress = "";
-    private byte[] _aData;
+    private final byte[] _aData = new byte[MAX_DATA_LEN];
+    private int _iLen = 0;
+    private String _text = null;
+    private List<MasterListItem> _deviceList = null;
+    private ReceivedData _next = null;
 
-    public ReceivedData(String sender, String address, byte[] data) {
-        _aData = new byte[data.length];
+    private ReceivedData() {
+        return;
+    }
 
-			/* Copy the data into a buffer */
-        System.arraycopy(data, 0, _aData, 0, _aData.length);
+    /**
+     * Gets an envelope from the pool, or a new one if the pool is empty, and
+     *  fills it in with a copy of the given data
+     *
+     * @param sender
+     * @param address
+     * @param data
+     * @param iOffs
+     * @param iLen  truncated to MAX_DATA_LEN
+     * @return
+     */
+    public static ReceivedData obtain(String sender, String address, byte[] data, int iOffs,
+                                      int iLen) {
+        ReceivedData recvData = null;
+        synchronized (_poolLock) {
+            if (_pool != null) {
+                recvData = _pool;
+                _pool = recvData._next;
+                recvData._next = null;
+                _iPoolSize--;
+                _lPoolHits++;
+            } else {
+                _lPoolMisses++;
+            }
+        }
 
-			/* Copy the sender name */
-        _senderName = sender;
+        if (recvData == null) {
+            recvData = new ReceivedData();
+        }
 
-			/* Copy the sender address */
-        _senderAddress = address;//getFixedMacAddress(address);
+        /* Copy the data into a buffer */
+        recvData._iLen = Math.min(iLen, MAX_DATA_LEN);
+        System.arraycopy(data, iOffs, recvData._aData, 0, recvData._iLen);
 
-        Logger.info("Data received: " + new String(_aData).trim());
+        /* Copy the sender name */
+        recvData._senderName = sender;
+
+        /* Copy the sender address */
+        recvData._senderAddress = address;
+
+        return recvData;
+    }
+
+    public static ReceivedData obtain(String sender, String address, byte[] data) {
+        return obtain(sender, address, data, 0, data.length);
+    }
+
+    /**
+     * Returns this envelope to the pool. It must not be used afterwards.
+     */
+    public void recycle() {
+        _senderName = "";
+        _senderAddress = "";
+        _iLen = 0;
+        _text = null;
+        _deviceList = null;
+
+        synchronized (_poolLock) {
+            if (_iPoolSize < MAX_POOL_SIZE) {
+                _next = _pool;
+                _pool = this;
+                _iPoolSize++;
+            }
+        }
 
         return;
     }
 
+    /**
+     * @return the backing array. Only the first getLength() bytes are valid.
+     */
     public byte[] getData() {
         return _aData;
     }
 
+    public int getLength() {
+        return _iLen;
+    }
+
+    /**
+     * @return the payload decoded as a String, decoded on first use
+     */
+    public String getText() {
+        if (_text == null) {
+            _text = new String(_aData, 0, _iLen);
+        }
+        return _text;
+    }
+
     public String getSenderAddress() {
         return _senderAddress;
     }
@@ -38,4 +131,38 @@ public class ReceivedData {
     public String getSenderName() {
         return _senderName;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the device list decoded from this GET LIST response while it
+     *  streamed in, or null if there is none
+     */
+    public List<MasterListItem> getDeviceList() {
+        return _deviceList;
+    }
+
+    public void setDeviceList(List<MasterListItem> deviceList) {
+        _deviceList = deviceList;
+        return;
+    }
+
+    /* *************** */
+    /* Pool Statistics */
+    /* *************** */
+    public static long getPoolHits() {
+        synchronized (_poolLock) {
+            return _lPoolHits;
+        }
+    }
+
+    public static long getPoolMisses() {
+        synchronized (_poolLock) {
+            return _lPoolMisses;
+        }
+    }
+
+    public static int getPoolSize() {
+        synchronized (_poolLock) {
+            return _iPoolSize;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package net.sojourner.projectsidekick.utils;
+
+import net.sojourner.projectsidekick.types.MasterListItem;
+
+/**
+ * Push-style decoder for the payload of a GET LIST (RLST) response.
+ *
+ * Bytes can be fed in as they arrive from the radio, in fragments of any
+ *  size. Each master list entry is emitted to the listener as soon as its
+ *  delimiter has been seen, so the list does not need to be fully buffered
+ *  before it can be displayed.
+ *
+ *  Entry Format: "<id><status><hex-encoded name><padding><hex-encoded address>"
+ *  List Format:  "<entry>,<entry>,...;"
+ *
+ * The device name is at most MAX_DEVICE_NAME_LEN characters and is either
+ *  space padded to full length or terminated by a "00" pair followed by
+ *  zero padding.
+ */
+public class DeviceListDecoder {
+    public interface Listener {
+        public void onItemDecoded(MasterListItem item);
+        public void onListComplete(int iItemCount);
+    }
+
+    private static final int MAX_ADDR_LEN = 32;
+
+    /* Decoder states */
+    private static final int ST_ID              = 0;
+    private static final int ST_ID_PAD          = 1;
+    private static final int ST_STATUS          = 2;
+    private static final int ST_STATUS_PAD      = 3;
+    private static final int ST_NAME            = 4;
+    private static final int ST_SEEK_ZERO_PAD   = 5;
+    private static final int ST_SEEK_SPACE_PAD  = 6;
+    private static final int ST_ADDR            = 7;
+    private static final int ST_SKIP            = 8;
+    private static final int ST_DONE            = 9;
+
+    /* Maps an ASCII hex digit to its value, or -1 if it is not a hex digit */
+    private static final byte NIBBLE[] = new byte[128];
+    static {
+        for (int iIdx = 0; iIdx < NIBBLE.length; iIdx++) {
+            NIBBLE[iIdx] = -1;
+        }
+        for (int iIdx = 0; iIdx < 10; iIdx++) {
+            NIBBLE['0' + iIdx] = (byte) iIdx;
+        }
+        for (int iIdx = 0; iIdx < 6; iIdx++) {
+            NIBBLE['a' + iIdx] = (byte) (10 + iIdx);
+            NIBBLE['A' + iIdx] = (byte) (10 + iIdx);
+        }
+    }
+
+    private Listener _listener = null;
+
+    private int     _state          = ST_ID;
+    private int     _iItemCount     = 0;
+    private boolean _bEntryValid    = false;
+
+    /* Current entry */
+    private int     _iDvcId         = 0;
+    private int     _iStatus        = 0;
+    private char    _name[]         = new char[SKUtils.MAX_DEVICE_NAME_LEN];
+    private int     _iNameLen       = 0;
+    private char    _addr[]         = new char[MAX_ADDR_LEN];
+    private int     _iAddrLen       = 0;
+
+    /* Hex pair accumulator */
+    private int     _iHexHi         = -1;
+    private int     _iRawHi         = 0;
+
+    public DeviceListDecoder(Listener listener) {
+        _listener = listener;
+        reset();
+        return;
+    }
+
+    /**
+     * Discards any partially decoded entry and prepares for a new list
+     */
+    public void reset() {
+        _state = ST_ID;
+        _iItemCount = 0;
+        resetEntry();
+        return;
+    }
+
+    public boolean isComplete() {
+        return _state == ST_DONE;
+    }
+
+    public int getItemCount() {
+        return _iItemCount;
+    }
+
+    public void feed(byte[] data) {
+        feed(data, 0, data.length);
+        return;
+    }
+
+    /**
+     * Feeds the next fragment of the list payload to the decoder. Bytes
+     *  received after the list terminator are ignored until reset().
+     *
+     * @param data
+     * @param iOffs
+     * @param iLen
+     */
+    public void feed(byte[] data, int iOffs, int iLen) {
+        int iEnd = iOffs + iLen;
+        for (int iIdx = iOffs; iIdx < iEnd; iIdx++) {
+            if (_state == ST_DONE) {
+                return;
+            }
+            consume(data[iIdx] & 0xFF);
+        }
+        return;
+    }
+
+    /**
+     * Signals that no more bytes will arrive for this list. Emits any
+     *  pending entry if the list was not explicitly terminated.
+     */
+    public void finish() {
+        if (_state == ST_DONE) {
+            return;
+        }
+        completeEntry();
+        completeList();
+        return;
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private void consume(int b) {
+        /* Delimiters take precedence in every state */
+        if (b == ',') {
+            completeEntry();
+            return;
+        } else if (b == ';') {
+            completeEntry();
+            completeList();
+            return;
+        }
+
+        switch (_state) {
+            case ST_ID:
+                _bEntryValid = true;
+                _iDvcId = b;
+                /* If our device id is in ASCII, map it to the actual integer value */
+                if (_iDvcId >= '1') {
+                    _iDvcId -= '0';
+                }
+                _state = (b == 0) ? ST_ID_PAD : ST_STATUS;
+                break;
+            case ST_ID_PAD:
+                _state = ST_STATUS;
+                break;
+            case ST_STATUS:
+                _iStatus = b;
+                _state = (b == '0') ? ST_STATUS_PAD : ST_NAME;
+                break;
+            case ST_STATUS_PAD:
+                _state = ST_NAME;
+                break;
+            case ST_NAME:
+                consumeNameNibble(b);
+                break;
+            case ST_SEEK_ZERO_PAD:
+                /* Skip over the zero padding after a null-terminated name */
+                if (b > '0') {
+                    _state = ST_ADDR;
+                    consumeAddrNibble(b);
+                }
+                break;
+            case ST_SEEK_SPACE_PAD:
+                consumeSpacePadNibble(b);
+                break;
+            case ST_ADDR:
+                consumeAddrNibble(b);
+                break;
+            case ST_SKIP:
+            default:
+                break;
+        }
+
+        return;
+    }
+
+    private void consumeNameNibble(int b) {
+        /* Check if our hex digit is sane */
+        if ((b < ' ') || (b > '~')) {
+            boolean bZeroPadded = (_iHexHi >= 0) && (_iRawHi == '0');
+            _state = bZeroPadded ? ST_SEEK_ZERO_PAD : ST_SEEK_SPACE_PAD;
+            _iHexHi = -1;
+            return;
+        }
+
+        int iNibble = NIBBLE[b];
+        if (iNibble < 0) {
+            invalidateEntry();
+            return;
+        }
+
+        if (_iHexHi < 0) {
+            _iHexHi = iNibble;
+            _iRawHi = b;
+            return;
+        }
+
+        int iRawHi = _iRawHi;
+        char cConv = (char) ((_iHexHi << 4) | iNibble);
+        _iHexHi = -1;
+
+        if (cConv == 0) {
+            /* Name is null-terminated; what follows is zero padding */
+            _state = ST_SEEK_ZERO_PAD;
+            return;
+        }
+
+        _name[_iNameLen++] = cConv;
+
+        /* In the fixed width implementation, we can use the MAX_DEVICE_NAME_LEN */
+        if (_iNameLen >= SKUtils.MAX_DEVICE_NAME_LEN) {
+            _state = (iRawHi == '0') ? ST_SEEK_ZERO_PAD : ST_SEEK_SPACE_PAD;
+        }
+
+        return;
+    }
+
+    private void consumeSpacePadNibble(int b) {
+        if (_iHexHi < 0) {
+            _iHexHi = b;
+            return;
+        }
+
+        int iRawHi = _iHexHi;
+        _iHexHi = -1;
+
+        /* Skip over hex-encoded space padding ("20") */
+        if ((iRawHi == '2') && (b == '0')) {
+            return;
+        }
+
+        _state = ST_ADDR;
+        consumeAddrNibble(iRawHi);
+        consumeAddrNibble(b);
+
+        return;
+    }
+
+    private void consumeAddrNibble(int b) {
+        if ((b >= NIBBLE.length) || (NIBBLE[b] < 0)) {
+            invalidateEntry();
+            return;
+        }
+
+        if (_iHexHi < 0) {
+            _iHexHi = NIBBLE[b];
+            _iRawHi = b;
+            return;
+        }
+
+        int iRawHi = _iRawHi;
+        char cConv = (char) ((_iHexHi << 4) | NIBBLE[b]);
+        _iHexHi = -1;
+
+        /* A "20" or "00" pair marks the end of the address */
+        if ((b == '0') && ((iRawHi == '2') || (iRawHi == '0'))) {
+            _state = ST_SKIP;
+            return;
+        }
+
+        if (_iAddrLen >= MAX_ADDR_LEN) {
+            invalidateEntry();
+            return;
+        }
+        _addr[_iAddrLen++] = cConv;
+
+        return;
+    }
+
+    private void invalidateEntry() {
+        Logger.warn("Malformed device list entry skipped");
+        _bEntryValid = false;
+        _state = ST_SKIP;
+        return;
+    }
+
+    private void completeEntry() {
+        if (_bEntryValid && (_iAddrLen > 0)) {
+            MasterListItem item = new MasterListItem(_iDvcId,
+                    trimmedName(),
+                    restoredAddress(),
+                    (_iStatus == '1'));
+            _iItemCount++;
+
+            if (_listener != null) {
+                _listener.onItemDecoded(item);
+            }
+        } else if (_bEntryValid) {
+            Logger.err("Got to end of entry without finding device address");
+        }
+
+        resetEntry();
+        return;
+    }
+
+    private void completeList() {
+        _state = ST_DONE;
+        if (_listener != null) {
+            _listener.onListComplete(_iItemCount);
+        }
+        return;
+    }
+
+    private void resetEntry() {
+        if (_state != ST_DONE) {
+            _state = ST_ID;
+        }
+        _bEntryValid = false;
+        _iDvcId = 0;
+        _iStatus = 0;
+        _iNameLen = 0;
+        _iAddrLen = 0;
+        _iHexHi = -1;
+        _iRawHi = 0;
+        return;
+    }
+
+    private String trimmedName() {
+        int iStart = 0;
+        int iEnd = _iNameLen;
+        while ((iStart < iEnd) && (_name[iStart] <= ' ')) {
+            iStart++;
+        }
+        while ((iEnd > iStart) && (_name[iEnd - 1] <= ' ')) {
+            iEnd--;
+        }
+        return new String(_name, iStart, iEnd - iStart);
+    }
+
+    private String restoredAddress() {
+        /* Re-insert the ':' separators stripped by compressDeviceAddress() */
+        char restored[] = new char[_iAddrLen + ((_iAddrLen - 1) / 2)];
+        int iOut = 0;
+        for (int iIdx = 0; iIdx < _iAddrLen; iIdx++) {
+            if (((iIdx % 2) == 0) && (iIdx > 0)) {
+                restored[iOut++] = ':';
+            }
+            restored[iOut++] = _addr[iIdx];
+        }
+        return new String(restored, 0, iOut);
+    }
+}
@@ -0,0 +1,200 @@
+package net.sojourner.projectsidekick.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sojourner.projectsidekick.types.MacAddress;
+
+/**
+ * Index of discovered devices, keyed by their packed MAC address.
+ *
+ * It is safe to update the index from scan callbacks while other threads
+ *  read it. Entries not seen again within the TTL are evicted whenever the
+ *  index is iterated or fills up. When it is full and nothing has expired,
+ *  the least recently seen entry is replaced. Snapshots are point-in-time
+ *  copies and do not lock out writers.
+ */
+public class DiscoveryIndex {
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final long DEFAULT_TTL = 5 * 60 * 1000;
+
+    public static final class Entry {
+        private final MacAddress    _address;
+        private final long          _lFirstSeen;
+        private volatile String     _name;
+        private volatile long       _lLastSeen;
+        private volatile int        _iRssi;
+
+        private Entry(MacAddress address, long lTime) {
+            _address = address;
+            _lFirstSeen = lTime;
+            _lLastSeen = lTime;
+            return;
+        }
+
+        public MacAddress getAddress() {
+            return _address;
+        }
+
+        public String getName() {
+            return _name;
+        }
+
+        public long getFirstSeen() {
+            return _lFirstSeen;
+        }
+
+        public long getLastSeen() {
+            return _lLastSeen;
+        }
+
+        public int getRssi() {
+            return _iRssi;
+        }
+    }
+
+    private final ConcurrentHashMap<MacAddress, Entry> _entries =
+            new ConcurrentHashMap<MacAddress, Entry>();
+    private final int _iCapacity;
+    private final long _lTtl;
+
+    public DiscoveryIndex() {
+        this(DEFAULT_CAPACITY, DEFAULT_TTL);
+        return;
+    }
+
+    public DiscoveryIndex(int iCapacity, long lTtl) {
+        _iCapacity = iCapacity;
+        _lTtl = lTtl;
+        return;
+    }
+
+    /**
+     * Records a sighting of a device
+     *
+     * @param name      kept from an earlier sighting if null
+     * @param address
+     * @param iRssi
+     * @return the updated entry, or null if the address is malformed
+     */
+    public Entry update(String name, String address, int iRssi) {
+        MacAddress mac = MacAddress.parse(address);
+        if (mac == null) {
+            return null;
+        }
+
+        long lNow = System.currentTimeMillis();
+        Entry entry = _entries.get(mac);
+        if (entry == null) {
+            if (_entries.size() >= _iCapacity) {
+                makeRoom(lNow);
+            }
+
+            Entry newEntry = new Entry(mac, lNow);
+            entry = _entries.putIfAbsent(mac, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+
+        if (name != null) {
+            entry._name = name;
+        }
+        entry._iRssi = iRssi;
+        entry._lLastSeen = lNow;
+
+        return entry;
+    }
+
+    public Entry get(String address) {
+        MacAddress mac = MacAddress.parse(address);
+        if (mac == null) {
+            return null;
+        }
+        return _entries.get(mac);
+    }
+
+    /**
+     * @param name
+     * @return the address of the most recently seen device with this name,
+     *  or null if there is none
+     */
+    public String findAddress(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        Entry found = null;
+        for (Entry entry : _entries.values()) {
+            if (name.equals(entry._name) &&
+                    ((found == null) || (entry._lLastSeen > found._lLastSeen))) {
+                found = entry;
+            }
+        }
+
+        return (found != null) ? found._address.toString() : null;
+    }
+
+    /**
+     * @return the entries that have not expired, in no particular order
+     */
+    public List<Entry> snapshot() {
+        long lNow = System.currentTimeMillis();
+        List<Entry> entries = new ArrayList<Entry>(_entries.size());
+        for (Entry entry : _entries.values()) {
+            if ((lNow - entry._lLastSeen) > _lTtl) {
+                _entries.remove(entry._address, entry);
+                continue;
+            }
+            entries.add(entry);
+        }
+
+        return entries;
+    }
+
+    /**
+     * @return the names of the devices that have not expired; devices which
+     *  did not advertise a name are left out
+     */
+    public List<String> getNames() {
+        List<String> names = new ArrayList<String>();
+        for (Entry entry : snapshot()) {
+            String name = entry._name;
+            if (name != null) {
+                names.add(name);
+            }
+        }
+
+        return names;
+    }
+
+    public int size() {
+        return _entries.size();
+    }
+
+    public void clear() {
+        _entries.clear();
+        return;
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private void makeRoom(long lNow) {
+        Entry oldest = null;
+        for (Entry entry : _entries.values()) {
+            if ((lNow - entry._lLastSeen) > _lTtl) {
+                _entries.remove(entry._address, entry);
+            } else if ((oldest == null) || (entry._lLastSeen < oldest._lLastSeen)) {
+                oldest = entry;
+            }
+        }
+
+        if ((_entries.size() >= _iCapacity) && (oldest != null)) {
+            _entries.remove(oldest._address, oldest);
+        }
+
+        return;
+    }
+}
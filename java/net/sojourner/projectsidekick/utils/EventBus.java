@@ -0,0 +1,211 @@
+package net.sojourner.projectsidekick.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Typed publish/subscribe for events that stay within this process.
+ *
+ * Each Topic keeps its own listener list, which is copied on write so that
+ *  publishing never takes a lock. Events on a plain topic are delivered
+ *  right away on the publishing thread.
+ *
+ * Topics created with a coalescing time are meant for high-rate events:
+ *  events published within that window are collapsed so that only the
+ *  latest one per key is delivered, on the event bus thread, when the window
+ *  closes. Events published to a topic with no listeners are dropped.
+ */
+public class EventBus {
+    public interface Listener<T> {
+        public void onEvent(T event);
+    }
+
+    public static final class Topic<T> {
+        private final String    _name;
+        private final long      _lCoalesceTime;
+        private final CopyOnWriteArrayList<Listener<T>> _listeners =
+                new CopyOnWriteArrayList<Listener<T>>();
+
+        /* Latest event per key, waiting for the coalescing window to close */
+        private final Map<Object, T> _pending = new LinkedHashMap<Object, T>();
+        private boolean _bFlushScheduled = false;
+
+        public Topic(String name) {
+            this(name, 0);
+            return;
+        }
+
+        /**
+         * @param name
+         * @param lCoalesceTime coalescing window in milliseconds, or zero to
+         *  deliver every event as soon as it is published
+         */
+        public Topic(String name, long lCoalesceTime) {
+            _name = name;
+            _lCoalesceTime = lCoalesceTime;
+            return;
+        }
+
+        public String getName() {
+            return _name;
+        }
+
+        public long getCoalesceTime() {
+            return _lCoalesceTime;
+        }
+
+        public boolean hasListeners() {
+            return !_listeners.isEmpty();
+        }
+    }
+
+    private static EventBus _eventBus = null;
+
+    private final ScheduledExecutorService _scheduler;
+    private final AtomicLong _lPublished = new AtomicLong(0);
+    private final AtomicLong _lDelivered = new AtomicLong(0);
+    private final AtomicLong _lCoalesced = new AtomicLong(0);
+
+    private EventBus() {
+        _scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "SidekickEventBus");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        return;
+    }
+
+    public static synchronized EventBus getInstance() {
+        if (_eventBus == null) {
+            _eventBus = new EventBus();
+        }
+
+        return _eventBus;
+    }
+
+    public <T> void subscribe(Topic<T> topic, Listener<T> listener) {
+        topic._listeners.addIfAbsent(listener);
+        return;
+    }
+
+    public <T> void unsubscribe(Topic<T> topic, Listener<T> listener) {
+        topic._listeners.remove(listener);
+        return;
+    }
+
+    /**
+     * Publishes an event. On a coalescing topic it replaces any earlier
+     *  event that has not been delivered yet.
+     */
+    public <T> void publish(Topic<T> topic, T event) {
+        publish(topic, topic, event);
+        return;
+    }
+
+    /**
+     * Publishes an event. On a coalescing topic it only replaces an earlier
+     *  undelivered event with the same key, e.g. the address of the device
+     *  that the event is about.
+     */
+    public <T> void publish(final Topic<T> topic, Object key, T event) {
+        if (!topic.hasListeners()) {
+            return;
+        }
+        _lPublished.incrementAndGet();
+
+        if (topic._lCoalesceTime <= 0) {
+            deliver(topic, event);
+            return;
+        }
+
+        synchronized (topic._pending) {
+            if (topic._pending.put(key, event) != null) {
+                _lCoalesced.incrementAndGet();
+            }
+
+            if (topic._bFlushScheduled) {
+                return;
+            }
+            topic._bFlushScheduled = true;
+        }
+
+        _scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                flush(topic);
+                return;
+            }
+        }, topic._lCoalesceTime, TimeUnit.MILLISECONDS);
+
+        return;
+    }
+
+    /**
+     * Runs a task on the event bus thread after the given delay, e.g. to
+     *  publish something that has been collected over a period of time
+     */
+    public void schedule(Runnable task, long lDelay) {
+        _scheduler.schedule(task, lDelay, TimeUnit.MILLISECONDS);
+        return;
+    }
+
+    /* ******* */
+    /* Getters */
+    /* ******* */
+    public long getPublishedCount() {
+        return _lPublished.get();
+    }
+
+    public long getDeliveredCount() {
+        return _lDelivered.get();
+    }
+
+    /**
+     * @return the number of events replaced by a later one before delivery
+     */
+    public long getCoalescedCount() {
+        return _lCoalesced.get();
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private <T> void flush(Topic<T> topic) {
+        List<T> events;
+        synchronized (topic._pending) {
+            events = new ArrayList<T>(topic._pending.values());
+            topic._pending.clear();
+            topic._bFlushScheduled = false;
+        }
+
+        for (T event : events) {
+            deliver(topic, event);
+        }
+
+        return;
+    }
+
+    private <T> void deliver(Topic<T> topic, T event) {
+        for (Listener<T> listener : topic._listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                Logger.err("Exception occurred: " + e.getMessage());
+            }
+            _lDelivered.incrementAndGet();
+        }
+
+        return;
+    }
+}
@@ -0,0 +1,224 @@
+package net.sojourner.projectsidekick.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reassembles frames from the byte fragments delivered by a Bluetooth link.
+ *
+ *  Frame Format: "<prefix or opcode>[<seq>]<payload>;"
+ *
+ * Fragments may hold any number of whole frames plus the start or end of
+ *  another; each frame is delivered to the listener as soon as its
+ *  terminator has been seen, and a trailing partial frame is kept until the
+ *  rest of it arrives. The byte following a binary (v2) response opcode
+ *  with OPCODE_SEQ set is a sequence number and is never treated as a
+ *  terminator.
+ *
+ * A fragment listener, if set, is also told about the bytes of a frame
+ *  that is still incomplete as they arrive, e.g. to decode long responses
+ *  before their terminator is in.
+ *
+ * Frames are delivered as slices of the internal buffer, without copying,
+ *  and are only valid for the duration of the callback. The buffer grows
+ *  as needed and only the partial frame left after a fragment is moved
+ *  back to its start. Frames longer than the maximum frame length are
+ *  dropped up to and including their terminator.
+ *
+ * Instances are not thread-safe; each link should use its own.
+ */
+public class FrameAssembler {
+    public interface Listener {
+        public void onFrame(byte[] data, int iOffs, int iLen);
+    }
+
+    public interface FragmentListener {
+        /**
+         * Called with the bytes that have arrived for an incomplete frame
+         *  since the last call. The frame so far is held in data from iOffs
+         *  up to iOffs + iPos + iLen, with the new bytes starting at
+         *  iOffs + iPos. An iPos of zero marks the start of a new frame.
+         *  The frame is delivered in full to the Listener once complete.
+         */
+        public void onFragment(byte[] data, int iOffs, int iPos, int iLen);
+    }
+
+    private static final int DEFAULT_CAPACITY = 128;
+    private static final int MIN_READ_LEN = 64;
+
+    private final Listener  _listener;
+    private final int       _iMaxFrameLen;
+    private FragmentListener _fragmentListener = null;
+
+    private byte    _data[];
+    private int     _iLen           = 0;
+    private int     _iScanPos       = 0;
+    private int     _iReported      = 0;
+    private boolean _bDiscarding    = false;
+    private long    _lFrameCount    = 0;
+    private long    _lDroppedCount  = 0;
+
+    public FrameAssembler(int iMaxFrameLen, Listener listener) {
+        _iMaxFrameLen = iMaxFrameLen;
+        _listener = listener;
+        _data = new byte[Math.min(DEFAULT_CAPACITY, iMaxFrameLen)];
+        return;
+    }
+
+    public void setFragmentListener(FragmentListener fragmentListener) {
+        _fragmentListener = fragmentListener;
+        return;
+    }
+
+    /**
+     * Discards any partial frame
+     */
+    public void reset() {
+        _iLen = 0;
+        _iScanPos = 0;
+        _iReported = 0;
+        _bDiscarding = false;
+        return;
+    }
+
+    /**
+     * Appends a fragment and delivers every frame that it completes
+     */
+    public void feed(byte[] data, int iOffs, int iLen) {
+        if ((data == null) || (iLen <= 0)) {
+            return;
+        }
+
+        ensureCapacity(iLen);
+        System.arraycopy(data, iOffs, _data, _iLen, iLen);
+        _iLen += iLen;
+
+        process();
+        return;
+    }
+
+    public void feed(byte[] data) {
+        if (data == null) {
+            return;
+        }
+        feed(data, 0, data.length);
+        return;
+    }
+
+    /**
+     * Reads once from the stream straight into the internal buffer, blocking
+     *  if no data is available yet, and delivers every frame that completes
+     *
+     * @param inputStream
+     * @return the number of bytes read, or -1 at the end of the stream
+     * @throws IOException
+     */
+    public int readFrom(InputStream inputStream) throws IOException {
+        ensureCapacity(MIN_READ_LEN);
+
+        int iBytesRead = inputStream.read(_data, _iLen, _data.length - _iLen);
+        if (iBytesRead > 0) {
+            _iLen += iBytesRead;
+            process();
+        }
+
+        return iBytesRead;
+    }
+
+    /* ******* */
+    /* Getters */
+    /* ******* */
+
+    /**
+     * @return the number of bytes held for a frame that is not complete yet
+     */
+    public int getPendingLength() {
+        return _iLen;
+    }
+
+    public long getFrameCount() {
+        return _lFrameCount;
+    }
+
+    public long getDroppedCount() {
+        return _lDroppedCount;
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private void process() {
+        int iStart = 0;
+        int iIdx = _iScanPos;
+        while (iIdx < _iLen) {
+            /* The sequence number of a binary response may have any value,
+             *  including that of the terminator, so it is skipped */
+            if ((iIdx == iStart) && (!_bDiscarding) && isSequencedResponse(_data[iIdx])) {
+                iIdx += 2;
+                continue;
+            }
+
+            if (_data[iIdx] == FrameCodec.FRAME_TERM) {
+                if (_bDiscarding) {
+                    /* This is the end of a frame that was too long */
+                    _bDiscarding = false;
+                } else {
+                    _lFrameCount++;
+                    _listener.onFrame(_data, iStart, iIdx + 1 - iStart);
+                }
+                iStart = iIdx + 1;
+            }
+            iIdx++;
+        }
+
+        /* Move the partial frame, if any, to the front of the buffer */
+        int iRemaining = _iLen - iStart;
+        if ((iStart > 0) && (iRemaining > 0)) {
+            System.arraycopy(_data, iStart, _data, 0, iRemaining);
+        }
+        _iLen = iRemaining;
+        _iScanPos = iIdx - iStart;
+        if (iStart > 0) {
+            /* Whatever is left belongs to a frame that nobody has seen yet */
+            _iReported = 0;
+        }
+
+        if (_iLen > _iMaxFrameLen) {
+            /* No terminator within the largest frame we accept. Drop what we
+             *  have and skip the rest of the frame as it arrives. */
+            Logger.err("Frame exceeds " + _iMaxFrameLen + " bytes; discarding");
+            if (!_bDiscarding) {
+                _lDroppedCount++;
+            }
+            _bDiscarding = true;
+            _iLen = 0;
+            _iScanPos = 0;
+            _iReported = 0;
+        }
+
+        if ((_fragmentListener != null) && (!_bDiscarding) && (_iLen > _iReported)) {
+            _fragmentListener.onFragment(_data, 0, _iReported, _iLen - _iReported);
+            _iReported = _iLen;
+        }
+
+        return;
+    }
+
+    private static boolean isSequencedResponse(byte bFirst) {
+        return ((bFirst & ProtocolV2.OPCODE_RESPONSE) != 0) &&
+                ((bFirst & ProtocolV2.OPCODE_SEQ) != 0);
+    }
+
+    private void ensureCapacity(int iExtra) {
+        if ((_iLen + iExtra) <= _data.length) {
+            return;
+        }
+
+        int iNewCap = Math.max(_data.length * 2, _iLen + iExtra);
+        byte newData[] = new byte[iNewCap];
+        System.arraycopy(_data, 0, newData, 0, _iLen);
+        _data = newData;
+
+        return;
+    }
+}
@@ -0,0 +1,435 @@
+package net.sojourner.projectsidekick.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cursor-based reader for the frames exchanged with the SIDEKICK device.
+ *
+ *  Format: "<4-char prefix><field>,<field>,...;"
+ *
+ * Frames in the binary (v2) format replace the prefix with a single response
+ *  opcode byte (see ProtocolV2); readPrefix() maps it back to the equivalent
+ *  packed prefix so that the rest of the payload is read the same way.
+ *
+ * Fields are read directly off the underlying byte array so that no
+ *  intermediate Strings are created. Parse failures never throw; instead
+ *  the codec latches the first error it encounters and all subsequent reads
+ *  return their default values. Callers check hasError() once after reading
+ *  all the fields they need.
+ *
+ * This class does not depend on any Android APIs.
+ */
+public class FrameCodec {
+    public static final int PREFIX_LEN      = 4;
+    public static final int PREFIX_NONE     = 0;
+
+    public static final byte FIELD_DELIM    = ',';
+    public static final byte FRAME_TERM     = ';';
+
+    /* Packed response prefixes */
+    public static final int RES_REGISTER        = ('R' << 24) | ('R' << 16) | ('E' << 8) | 'G';
+    public static final int RES_GET_LIST        = ('R' << 24) | ('L' << 16) | ('S' << 8) | 'T';
+    public static final int RES_SET_NAME        = ('R' << 24) | ('N' << 16) | ('M' << 8) | 'E';
+    public static final int RES_DELETE          = ('R' << 24) | ('D' << 16) | ('E' << 8) | 'L';
+    public static final int RES_GUARD_THEF_SET  = ('R' << 24) | ('G' << 16) | ('S' << 8) | 'L';
+    public static final int RES_GUARD_THEF      = ('R' << 24) | ('A' << 16) | ('T' << 8) | 'M';
+    public static final int RES_REPORT_THEF     = ('R' << 24) | ('A' << 16) | ('T' << 8) | 'O';
+    public static final int RES_GUARD_LOSS_SET  = ('R' << 24) | ('A' << 16) | ('L' << 8) | 'S';
+    public static final int RES_GUARD_LOSS      = ('R' << 24) | ('A' << 16) | ('L' << 8) | 'M';
+    public static final int RES_REPORT_LOSS     = ('R' << 24) | ('A' << 16) | ('L' << 8) | 'O';
+    public static final int RES_TRIGGER_ALARM   = ('R' << 24) | ('M' << 16) | ('A' << 8) | 'L';
+    public static final int RES_SK_TRIG_ALARM   = ('R' << 24) | ('R' << 16) | ('E' << 8) | 'D';
+
+    /* Error codes */
+    public static final int ERR_NONE        = 0;
+    public static final int ERR_UNDERFLOW   = 1;
+    public static final int ERR_BAD_DIGIT   = 2;
+    public static final int ERR_OVERFLOW    = 3;
+    public static final int ERR_BAD_DELIM   = 4;
+    public static final int ERR_NO_TERM     = 5;
+    public static final int ERR_BAD_BUFFER  = 6;
+
+    private byte[]  _data   = null;
+    private int     _start  = 0;
+    private int     _pos    = 0;
+    private int     _limit  = 0;
+    private int     _error  = ERR_NONE;
+    private int     _errPos = -1;
+    private int     _iSeq   = PendingRequestTable.SEQ_NONE;
+
+    public FrameCodec() {
+        return;
+    }
+
+    public FrameCodec(byte[] data) {
+        wrap(data);
+        return;
+    }
+
+    /**
+     * Points the codec at a new frame and clears any latched error
+     *
+     * @param data
+     * @return this codec, positioned at the start of the frame
+     */
+    public FrameCodec wrap(byte[] data) {
+        if (data == null) {
+            return wrap(null, 0, 0);
+        }
+        return wrap(data, 0, data.length);
+    }
+
+    public FrameCodec wrap(byte[] data, int iOffs, int iLen) {
+        _data = data;
+        _start = iOffs;
+        _pos = iOffs;
+        _limit = iOffs + iLen;
+        _error = ERR_NONE;
+        _errPos = -1;
+        _iSeq = PendingRequestTable.SEQ_NONE;
+
+        if ((data == null) || (iOffs < 0) || (iLen < 0) || (_limit > data.length)) {
+            _data = null;
+            _start = 0;
+            _pos = 0;
+            _limit = 0;
+            setError(ERR_BAD_BUFFER);
+        }
+
+        return this;
+    }
+
+    /**
+     * Points the codec at the remaining bytes of the given buffer. Only
+     *  array-backed buffers are supported since the codec reads the
+     *  backing array directly. The buffer's own position is not modified.
+     *
+     * @param buffer
+     * @return this codec
+     */
+    public FrameCodec wrap(ByteBuffer buffer) {
+        if ((buffer == null) || (!buffer.hasArray())) {
+            return wrap(null, 0, 0);
+        }
+        return wrap(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    }
+
+    /* ************** */
+    /* Cursor Methods */
+    /* ************** */
+    public int getPosition() {
+        return _pos - _start;
+    }
+
+    public void setPosition(int iPos) {
+        if ((iPos < 0) || ((_start + iPos) > _limit)) {
+            setError(ERR_UNDERFLOW);
+            return;
+        }
+        _pos = _start + iPos;
+        return;
+    }
+
+    public int remaining() {
+        return _limit - _pos;
+    }
+
+    public boolean hasRemaining() {
+        return _pos < _limit;
+    }
+
+    public int peek() {
+        if (_pos >= _limit) {
+            return -1;
+        }
+        return _data[_pos] & 0xFF;
+    }
+
+    public void skip(int iCount) {
+        if ((_pos + iCount) > _limit) {
+            _pos = _limit;
+            setError(ERR_UNDERFLOW);
+            return;
+        }
+        _pos += iCount;
+        return;
+    }
+
+    /* ************ */
+    /* Error Status */
+    /* ************ */
+    public boolean hasError() {
+        return _error != ERR_NONE;
+    }
+
+    public int getError() {
+        return _error;
+    }
+
+    /**
+     * @return the frame-relative position where the first error was
+     *  detected, or -1 if no error has occurred
+     */
+    public int getErrorPosition() {
+        return _errPos;
+    }
+
+    public void clearError() {
+        _error = ERR_NONE;
+        _errPos = -1;
+        return;
+    }
+
+    /* *************** */
+    /* Primitive Reads */
+    /* *************** */
+
+    /**
+     * Reads the 4-byte frame prefix packed big-endian into an int so that
+     *  it can be compared against the RES_* constants without allocation.
+     *  A leading v2 response opcode is consumed on its own and mapped to
+     *  the same packed prefix, along with its sequence byte if it has one
+     *  (see getSequence()).
+     *
+     * @return the packed prefix or PREFIX_NONE if not enough bytes remain
+     *  or the opcode is unknown
+     */
+    public int readPrefix() {
+        if (_error != ERR_NONE) {
+            return PREFIX_NONE;
+        }
+
+        if ((_pos < _limit) && ((_data[_pos] & ProtocolV2.OPCODE_RESPONSE) != 0)) {
+            int iOpcode = _data[_pos++] & 0xFF;
+            if ((iOpcode & ProtocolV2.OPCODE_SEQ) != 0) {
+                _iSeq = readByte();
+                if (_error != ERR_NONE) {
+                    _iSeq = PendingRequestTable.SEQ_NONE;
+                    return PREFIX_NONE;
+                }
+            }
+            return ProtocolV2.prefixForOpcode(iOpcode);
+        }
+
+        if ((_pos + PREFIX_LEN) > _limit) {
+            setError(ERR_UNDERFLOW);
+            return PREFIX_NONE;
+        }
+
+        int iPrefix = ((_data[_pos] & 0xFF) << 24) |
+                ((_data[_pos + 1] & 0xFF) << 16) |
+                ((_data[_pos + 2] & 0xFF) << 8) |
+                (_data[_pos + 3] & 0xFF);
+        _pos += PREFIX_LEN;
+
+        return iPrefix;
+    }
+
+    /**
+     * @return the sequence number read along with a v2 response opcode or
+     *  SEQ_NONE if the frame does not carry one
+     */
+    public int getSequence() {
+        return _iSeq;
+    }
+
+    /**
+     * @return the next raw byte (0-255) or -1 if none remain
+     */
+    public int readByte() {
+        if (_error != ERR_NONE) {
+            return -1;
+        }
+
+        if (_pos >= _limit) {
+            setError(ERR_UNDERFLOW);
+            return -1;
+        }
+
+        return _data[_pos++] & 0xFF;
+    }
+
+    /**
+     * Reads a signed decimal integer field. Leading blanks are skipped and the
+     *  field ends at the first non-digit, which is left unconsumed.
+     *
+     * @return the parsed value or 0 on error
+     */
+    public int readInt() {
+        long lValue = readLong();
+        if (_error != ERR_NONE) {
+            return 0;
+        }
+
+        if ((lValue > Integer.MAX_VALUE) || (lValue < Integer.MIN_VALUE)) {
+            setError(ERR_OVERFLOW);
+            return 0;
+        }
+
+        return (int) lValue;
+    }
+
+    /**
+     * Reads a signed decimal long field. Leading blanks are skipped and the
+     *  field ends at the first non-digit, which is left unconsumed.
+     *
+     * @return the parsed value or 0 on error
+     */
+    public long readLong() {
+        if (_error != ERR_NONE) {
+            return 0;
+        }
+
+        skipBlanks();
+
+        boolean bNegative = false;
+        if ((_pos < _limit) && (_data[_pos] == '-')) {
+            bNegative = true;
+            _pos++;
+        }
+
+        int iDigitStart = _pos;
+        long lValue = 0;
+        while (_pos < _limit) {
+            int iDigit = _data[_pos] - '0';
+            if ((iDigit < 0) || (iDigit > 9)) {
+                break;
+            }
+
+            /* Accumulate as a negative number so that Long.MIN_VALUE is reachable */
+            if (lValue < ((Long.MIN_VALUE + iDigit) / 10)) {
+                setError(ERR_OVERFLOW);
+                return 0;
+            }
+            lValue = (lValue * 10) - iDigit;
+            _pos++;
+        }
+
+        if (_pos == iDigitStart) {
+            setError((_pos >= _limit) ? ERR_UNDERFLOW : ERR_BAD_DIGIT);
+            return 0;
+        }
+
+        if (!bNegative) {
+            if (lValue == Long.MIN_VALUE) {
+                setError(ERR_OVERFLOW);
+                return 0;
+            }
+            return -lValue;
+        }
+
+        return lValue;
+    }
+
+    /**
+     * Consumes a field delimiter (',')
+     *
+     * @return true if a delimiter was consumed
+     */
+    public boolean readDelimiter() {
+        if (_error != ERR_NONE) {
+            return false;
+        }
+
+        skipBlanks();
+        if ((_pos >= _limit) || (_data[_pos] != FIELD_DELIM)) {
+            setError(ERR_BAD_DELIM);
+            return false;
+        }
+        _pos++;
+
+        return true;
+    }
+
+    /**
+     * Consumes the frame terminator (';'). Anything after the terminator is
+     *  left unconsumed.
+     *
+     * @return true if the terminator was consumed
+     */
+    public boolean readTerminator() {
+        if (_error != ERR_NONE) {
+            return false;
+        }
+
+        skipBlanks();
+        if ((_pos >= _limit) || (_data[_pos] != FRAME_TERM)) {
+            setError(ERR_NO_TERM);
+            return false;
+        }
+        _pos++;
+
+        return true;
+    }
+
+    /**
+     * @return true if the next byte is the frame terminator. Does not consume.
+     */
+    public boolean atTerminator() {
+        return (_pos < _limit) && (_data[_pos] == FRAME_TERM);
+    }
+
+    /**
+     * Locates the frame terminator starting from the current position
+     *
+     * @return the frame-relative index of the terminator or -1 if none
+     */
+    public int indexOfTerminator() {
+        for (int iIdx = _pos; iIdx < _limit; iIdx++) {
+            if (_data[iIdx] == FRAME_TERM) {
+                return iIdx - _start;
+            }
+        }
+        return -1;
+    }
+
+    /* ************** */
+    /* Static Helpers */
+    /* ************** */
+
+    /**
+     * Packs a 4-char ASCII prefix into its int form. Intended for constants
+     *  and logging only since it works on a String.
+     */
+    public static int packPrefix(String prefix) {
+        if ((prefix == null) || (prefix.length() < PREFIX_LEN)) {
+            return PREFIX_NONE;
+        }
+
+        return ((prefix.charAt(0) & 0xFF) << 24) |
+                ((prefix.charAt(1) & 0xFF) << 16) |
+                ((prefix.charAt(2) & 0xFF) << 8) |
+                (prefix.charAt(3) & 0xFF);
+    }
+
+    /**
+     * Unpacks a packed prefix back into a String. For logging only.
+     */
+    public static String prefixToString(int iPrefix) {
+        char cPrefix[] = new char[PREFIX_LEN];
+        cPrefix[0] = (char) ((iPrefix >>> 24) & 0xFF);
+        cPrefix[1] = (char) ((iPrefix >>> 16) & 0xFF);
+        cPrefix[2] = (char) ((iPrefix >>> 8) & 0xFF);
+        cPrefix[3] = (char) (iPrefix & 0xFF);
+        return new String(cPrefix);
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private void skipBlanks() {
+        /* Mirrors String.trim(): anything at or below a space is a blank */
+        while ((_pos < _limit) && ((_data[_pos] & 0xFF) <= ' ')) {
+            _pos++;
+        }
+        return;
+    }
+
+    private void setError(int iError) {
+        if (_error == ERR_NONE) {
+            _error = iError;
+            _errPos = _pos - _start;
+        }
+        return;
+    }
+}
@@ -0,0 +1,258 @@
+package net.sojourner.projectsidekick.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded ring buffer drained by a single dedicated dispatcher thread.
+ *
+ * Items are handed to the consumer one at a time, in the order in which they
+ *  were offered, so responses from a link are never handled concurrently or
+ *  out of order. The dispatcher parks while the ring is empty and drains
+ *  everything that has been queued each time it is woken up.
+ *
+ * The ring itself is single-producer/single-consumer and the dispatcher
+ *  never takes a lock. There is more than one producer in practice, though:
+ *  GATT callbacks arrive on binder threads and each RFCOMM link has its own
+ *  reader thread, and two of them may deliver at the same time once several
+ *  links are up. offer() is therefore synchronized, which turns those
+ *  producers into a single one as far as the ring is concerned. The lock is
+ *  only contended when two links deliver at once. Items offered while the
+ *  ring is full are dropped and counted.
+ */
+public class InboundPipeline<T> {
+    public static final long DEFAULT_STOP_TIMEOUT = 1000;
+
+    public interface Consumer<T> {
+        public void onItem(T item);
+    }
+
+    private final Object        _ring[];
+    private final int           _iMask;
+    private final Consumer<T>   _consumer;
+    private final String        _name;
+
+    /* Next slot to read and next slot to write; only ever increase */
+    private final AtomicLong    _lHead      = new AtomicLong(0);
+    private final AtomicLong    _lTail      = new AtomicLong(0);
+
+    private final AtomicLong    _lDelivered = new AtomicLong(0);
+    private final AtomicLong    _lDropped   = new AtomicLong(0);
+    private volatile int        _iMaxBatch  = 0;
+
+    private volatile Thread     _dispatcherThread   = null;
+    private volatile boolean    _bRunning           = false;
+    private volatile boolean    _bParked            = false;
+
+    /**
+     * @param name      name of the dispatcher thread
+     * @param iCapacity rounded up to the next power of two
+     * @param consumer  called on the dispatcher thread for each item
+     */
+    public InboundPipeline(String name, int iCapacity, Consumer<T> consumer) {
+        int iSize = 1;
+        while (iSize < iCapacity) {
+            iSize <<= 1;
+        }
+
+        _ring = new Object[iSize];
+        _iMask = iSize - 1;
+        _consumer = consumer;
+        _name = name;
+        return;
+    }
+
+    public synchronized void start() {
+        if (_bRunning) {
+            return;
+        }
+
+        _bRunning = true;
+        _dispatcherThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dispatchLoop();
+                return;
+            }
+        }, _name);
+        _dispatcherThread.start();
+
+        return;
+    }
+
+    public List<T> stop() {
+        return stop(DEFAULT_STOP_TIMEOUT);
+    }
+
+    /**
+     * Stops the dispatcher thread and waits for it to finish the item it is
+     *  handling, if any
+     *
+     * @param lTimeout  how long to wait for the dispatcher, in milliseconds
+     * @return the items that were still queued, in order, so that the caller
+     *  can release them. This is empty if the dispatcher did not stop in
+     *  time, since the ring cannot be drained safely while it runs.
+     */
+    public List<T> stop(long lTimeout) {
+        Thread dispatcher;
+        synchronized (this) {
+            _bRunning = false;
+            dispatcher = _dispatcherThread;
+            _dispatcherThread = null;
+        }
+
+        List<T> remaining = new ArrayList<T>();
+        if (dispatcher == null) {
+            return remaining;
+        }
+
+        LockSupport.unpark(dispatcher);
+        if (dispatcher != Thread.currentThread()) {
+            try {
+                dispatcher.join(lTimeout);
+            } catch (InterruptedException e) {
+                Logger.warn("Dispatcher join interrupted: " + _name);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (dispatcher.isAlive()) {
+            Logger.warn("Dispatcher did not stop in time: " + _name);
+            return remaining;
+        }
+
+        /* The dispatcher is gone, so this thread is now the only consumer */
+        synchronized (this) {
+            drainTo(remaining);
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Queues an item for the dispatcher thread
+     *
+     * @param item
+     * @return false if the pipeline is stopped or the ring was full, in
+     *  which case the item was not queued
+     */
+    public synchronized boolean offer(T item) {
+        if (!_bRunning) {
+            return false;
+        }
+
+        long lTail = _lTail.get();
+        if ((lTail - _lHead.get()) > _iMask) {
+            _lDropped.incrementAndGet();
+            return false;
+        }
+
+        _ring[(int) lTail & _iMask] = item;
+
+        /* Publish the item before checking whether the dispatcher is parked so
+         *  that it either sees the item or gets unparked */
+        _lTail.set(lTail + 1);
+        if (_bParked) {
+            Thread dispatcher = _dispatcherThread;
+            if (dispatcher != null) {
+                LockSupport.unpark(dispatcher);
+            }
+        }
+
+        return true;
+    }
+
+    /* ******* */
+    /* Getters */
+    /* ******* */
+    public int getCapacity() {
+        return _ring.length;
+    }
+
+    public int getDepth() {
+        return (int) (_lTail.get() - _lHead.get());
+    }
+
+    public long getDeliveredCount() {
+        return _lDelivered.get();
+    }
+
+    public long getDroppedCount() {
+        return _lDropped.get();
+    }
+
+    /**
+     * @return the largest number of items drained in a single wakeup
+     */
+    public int getMaxBatchSize() {
+        return _iMaxBatch;
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    @SuppressWarnings("unchecked")
+    private void drainTo(List<T> items) {
+        long lHead = _lHead.get();
+        long lTail = _lTail.get();
+        while (lHead != lTail) {
+            int iSlot = (int) lHead & _iMask;
+            items.add((T) _ring[iSlot]);
+            _ring[iSlot] = null;
+            lHead++;
+        }
+        _lHead.set(lHead);
+
+        return;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatchLoop() {
+        Logger.info("Dispatcher started: " + _name);
+
+        while (_bRunning) {
+            long lHead = _lHead.get();
+            long lTail = _lTail.get();
+
+            if (lHead == lTail) {
+                /* Re-check after announcing that we are about to park since the
+                 *  producer only unparks us if it sees the flag */
+                _bParked = true;
+                if ((_lTail.get() == lHead) && _bRunning) {
+                    LockSupport.park(this);
+                }
+                _bParked = false;
+                continue;
+            }
+
+            /* Drain everything that was queued before this wakeup */
+            int iBatch = 0;
+            while (lHead != lTail) {
+                int iSlot = (int) lHead & _iMask;
+                T item = (T) _ring[iSlot];
+                _ring[iSlot] = null;
+
+                /* Release the slot before handling the item */
+                lHead++;
+                _lHead.set(lHead);
+
+                try {
+                    _consumer.onItem(item);
+                } catch (RuntimeException e) {
+                    Logger.err("Exception occurred: " + e.getMessage());
+                }
+                iBatch++;
+            }
+
+            _lDelivered.addAndGet(iBatch);
+            if (iBatch > _iMaxBatch) {
+                _iMaxBatch = iBatch;
+            }
+        }
+
+        Logger.info("Dispatcher stopped: " + _name);
+        return;
+    }
+}
@@ -0,0 +1,124 @@
+package net.sojourner.projectsidekick.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size in-memory record of the most recent log messages.
+ *
+ * Writers claim a slot with a single atomic increment and never block each
+ *  other; once the buffer is full the oldest entries are overwritten. A
+ *  snapshot taken while messages are being written may skip entries that
+ *  are being replaced at that moment.
+ */
+public class LogRingBuffer {
+    public static final class Entry {
+        private final long      _lTime;
+        private final int       _iLevel;
+        private final String    _tag;
+        private final String    _msg;
+
+        private Entry(long lTime, int iLevel, String tag, String msg) {
+            _lTime = lTime;
+            _iLevel = iLevel;
+            _tag = tag;
+            _msg = msg;
+            return;
+        }
+
+        public long getTime() {
+            return _lTime;
+        }
+
+        public int getLevel() {
+            return _iLevel;
+        }
+
+        public String getTag() {
+            return _tag;
+        }
+
+        public String getMessage() {
+            return _msg;
+        }
+
+        public String toString() {
+            return _lTime + " " + levelToChar(_iLevel) + "/" + _tag + ": " + _msg;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry>   _entries;
+    private final int                           _iMask;
+    private final AtomicLong                    _lNext = new AtomicLong(0);
+
+    /**
+     * @param iCapacity rounded up to the next power of two
+     */
+    public LogRingBuffer(int iCapacity) {
+        int iSize = 1;
+        while (iSize < iCapacity) {
+            iSize <<= 1;
+        }
+
+        _entries = new AtomicReferenceArray<Entry>(iSize);
+        _iMask = iSize - 1;
+        return;
+    }
+
+    public void add(int iLevel, String tag, String msg) {
+        long lIdx = _lNext.getAndIncrement();
+        _entries.set((int) lIdx & _iMask, new Entry(System.currentTimeMillis(), iLevel, tag, msg));
+        return;
+    }
+
+    /**
+     * @param iCount
+     * @return up to iCount of the most recent entries, oldest first
+     */
+    public List<Entry> getRecent(int iCount) {
+        long lEnd = _lNext.get();
+        long lStart = Math.max(0, lEnd - Math.min(iCount, _entries.length()));
+
+        List<Entry> recent = new ArrayList<Entry>((int) (lEnd - lStart));
+        for (long lIdx = lStart; lIdx < lEnd; lIdx++) {
+            Entry entry = _entries.get((int) lIdx & _iMask);
+            if (entry != null) {
+                recent.add(entry);
+            }
+        }
+
+        return recent;
+    }
+
+    public int getCapacity() {
+        return _entries.length();
+    }
+
+    /**
+     * @return the number of messages written since this buffer was created,
+     *  including those that have since been overwritten
+     */
+    public long getTotalCount() {
+        return _lNext.get();
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private static char levelToChar(int iLevel) {
+        switch (iLevel) {
+            case Logger.LEVEL_DEBUG:
+                return 'D';
+            case Logger.LEVEL_INFO:
+                return 'I';
+            case Logger.LEVEL_WARN:
+                return 'W';
+            case Logger.LEVEL_ERROR:
+                return 'E';
+            default:
+                return '?';
+        }
+    }
+}
@@ -1,23 +1,224 @@
 package net.sojourner.projectsidekick.utils;
 
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
 import android.util.Log;
 
+/**
+ * Level-gated logger.
+ *
+ * Every message belongs to a Tag whose level can be changed at runtime.
+ *  Messages below the level of their tag are discarded before they are
+ *  formatted, so hot paths should use the format-style overloads (or check
+ *  isEnabled() first) instead of concatenating their messages up front.
+ *  The untagged overloads use the default tag.
+ *
+ * Enabled messages go to logcat and, if one has been enabled, to an
+ *  in-memory LogRingBuffer. Logcat output can be switched off on its own so
+ *  that recent events can still be pulled from the ring buffer without the
+ *  cost of logcat I/O.
+ */
 public class Logger {
+	public static final int LEVEL_DEBUG	= Log.DEBUG;
+	public static final int LEVEL_INFO	= Log.INFO;
+	public static final int LEVEL_WARN	= Log.WARN;
+	public static final int LEVEL_ERROR	= Log.ERROR;
+	public static final int LEVEL_OFF	= Log.ASSERT + 1;
+
+	public static final String DEFAULT_TAG = "ProjectSidekick";
+
+	public static final class Tag {
+		private final String _name;
+		private volatile int _iLevel;
+
+		private Tag(String name, int iLevel) {
+			_name = name;
+			_iLevel = iLevel;
+			return;
+		}
+
+		public String getName() {
+			return _name;
+		}
+
+		public int getLevel() {
+			return _iLevel;
+		}
+
+		public void setLevel(int iLevel) {
+			_iLevel = iLevel;
+			return;
+		}
+
+		public boolean isEnabled(int iLevel) {
+			return iLevel >= _iLevel;
+		}
+	}
+
+	private static final ConcurrentHashMap<String, Tag> _tags =
+			new ConcurrentHashMap<String, Tag>();
+	private static volatile int _iDefaultLevel = LEVEL_DEBUG;
+	private static final Tag _defaultTag = tag(DEFAULT_TAG);
+
+	private static volatile boolean _bLogcatEnabled = true;
+	private static volatile LogRingBuffer _ringBuffer = null;
+
+	/* ************* */
+	/* Configuration */
+	/* ************* */
+
+	/**
+	 * @return the tag with the given name, created with the default level if
+	 * 	it does not exist yet
+	 */
+	public static Tag tag(String name) {
+		Tag tag = _tags.get(name);
+		if (tag == null) {
+			Tag newTag = new Tag(name, _iDefaultLevel);
+			tag = _tags.putIfAbsent(name, newTag);
+			if (tag == null) {
+				tag = newTag;
+			}
+		}
+		return tag;
+	}
+
+	public static void setLevel(String tagName, int iLevel) {
+		tag(tagName).setLevel(iLevel);
+		return;
+	}
+
+	/**
+	 * Sets the level of the default tag and of tags created afterwards
+	 */
+	public static void setDefaultLevel(int iLevel) {
+		_iDefaultLevel = iLevel;
+		_defaultTag.setLevel(iLevel);
+		return;
+	}
+
+	public static void setLogcatEnabled(boolean bEnabled) {
+		_bLogcatEnabled = bEnabled;
+		return;
+	}
+
+	/**
+	 * Starts recording enabled messages in a ring buffer of the given size,
+	 * 	replacing any previous one. A size of zero or less stops recording.
+	 */
+	public static void setRingBufferSize(int iSize) {
+		_ringBuffer = (iSize > 0) ? new LogRingBuffer(iSize) : null;
+		return;
+	}
+
+	/**
+	 * @return the ring buffer currently being recorded to, or null
+	 */
+	public static LogRingBuffer getRingBuffer() {
+		return _ringBuffer;
+	}
+
+	public static boolean isEnabled(int iLevel) {
+		return _defaultTag.isEnabled(iLevel);
+	}
+
+	public static boolean isEnabled(Tag tag, int iLevel) {
+		return tag.isEnabled(iLevel);
+	}
+
+	/* ***************** */
+	/* Untagged Messages */
+	/* ***************** */
 	public static void err(String msg) {
-		Log.e("Error", msg);
+		log(_defaultTag, LEVEL_ERROR, "Error", msg, null);
 		return;
 	}
 	public static void info(String msg) {
-		Log.i("Info", msg);
+		log(_defaultTag, LEVEL_INFO, "Info", msg, null);
 		return;
 	}
 	public static void warn(String msg) {
-		Log.w("Warn", msg);
+		log(_defaultTag, LEVEL_WARN, "Warn", msg, null);
 		return;
 	}
 
 	public static void dbg(String msg) {
-		Log.d("Debug", msg);
+		log(_defaultTag, LEVEL_DEBUG, "Debug", msg, null);
+		return;
+	}
+
+	public static void err(String format, Object... args) {
+		log(_defaultTag, LEVEL_ERROR, "Error", format, args);
+		return;
+	}
+
+	public static void info(String format, Object... args) {
+		log(_defaultTag, LEVEL_INFO, "Info", format, args);
+		return;
+	}
+
+	public static void warn(String format, Object... args) {
+		log(_defaultTag, LEVEL_WARN, "Warn", format, args);
+		return;
+	}
+
+	public static void dbg(String format, Object... args) {
+		log(_defaultTag, LEVEL_DEBUG, "Debug", format, args);
+		return;
+	}
+
+	/* *************** */
+	/* Tagged Messages */
+	/* *************** */
+	public static void err(Tag tag, String format, Object... args) {
+		log(tag, LEVEL_ERROR, tag.getName(), format, args);
+		return;
+	}
+
+	public static void info(Tag tag, String format, Object... args) {
+		log(tag, LEVEL_INFO, tag.getName(), format, args);
+		return;
+	}
+
+	public static void warn(Tag tag, String format, Object... args) {
+		log(tag, LEVEL_WARN, tag.getName(), format, args);
+		return;
+	}
+
+	public static void dbg(Tag tag, String format, Object... args) {
+		log(tag, LEVEL_DEBUG, tag.getName(), format, args);
+		return;
+	}
+
+	/* *************** */
+	/* Private Methods */
+	/* *************** */
+	private static void log(Tag tag, int iLevel, String logcatTag, String format,
+			Object args[]) {
+		if (!tag.isEnabled(iLevel)) {
+			return;
+		}
+
+		LogRingBuffer ringBuffer = _ringBuffer;
+		if ((!_bLogcatEnabled) && (ringBuffer == null)) {
+			return;
+		}
+
+		/* Only format messages that will actually be written somewhere */
+		String msg = format;
+		if ((args != null) && (args.length > 0)) {
+			msg = String.format(Locale.US, format, args);
+		}
+
+		if (_bLogcatEnabled) {
+			Log.println(iLevel, logcatTag, msg);
+		}
+
+		if (ringBuffer != null) {
+			ringBuffer.add(iLevel, tag.getName(), msg);
+		}
+
 		return;
 	}
 }
@@ -0,0 +1,161 @@
+package net.sojourner.projectsidekick.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sojourner.projectsidekick.types.MacAddress;
+import net.sojourner.projectsidekick.types.PendingRequest;
+
+/**
+ * Tracks the requests that are in flight so that each response completes
+ *  the request that it answers.
+ *
+ * Every request records the device it was sent to, and a response is only
+ *  matched against requests sent to the device it came from. Requests that
+ *  were broadcast match a response from any device.
+ *
+ * Every request gets an 8-bit sequence number (never SEQ_NONE). Responses
+ *  that echo a sequence number complete exactly that request; if it has
+ *  already timed out, the response is reported as late and should be
+ *  dropped. Responses without a sequence number (protocol v1) complete the
+ *  oldest pending request on the same link expecting the same response
+ *  prefix.
+ *
+ * Entries are kept in the order they were sent. All methods are thread-safe.
+ *
+ * A matched request is only removed by take(); the caller completes it once
+ *  the response has been handled so that threads waiting on the request see
+ *  the effects of the handler.
+ */
+public class PendingRequestTable {
+    public static final int SEQ_NONE = 0;
+
+    private static final int SEQ_MAX = 0xFF;
+
+    private final List<PendingRequest> _pending = new ArrayList<PendingRequest>();
+    private int _iNextSeq = 1;
+
+    /**
+     * Creates and tracks a new pending request
+     *
+     * @param name              request name, for logging
+     * @param address           the device the request is sent to, or null if
+     *                          it is broadcast
+     * @param iResponsePrefix   the packed prefix of the expected response
+     * @param lTimeout          time to wait for the response, in ms
+     * @return the new request
+     */
+    public synchronized PendingRequest add(String name, MacAddress address, int iResponsePrefix,
+                                           long lTimeout) {
+        PendingRequest req = new PendingRequest(name, address, nextSequence(), iResponsePrefix,
+                System.currentTimeMillis() + lTimeout);
+        _pending.add(req);
+        return req;
+    }
+
+    public synchronized void remove(PendingRequest req) {
+        _pending.remove(req);
+        return;
+    }
+
+    /**
+     * Finds and removes the request that a response answers
+     *
+     * @param address   the device the response came from
+     * @param iPrefix   the packed prefix of the response
+     * @param iSeq      the sequence number echoed by the response or SEQ_NONE
+     * @return the matched request or null if no pending request matches
+     */
+    public synchronized PendingRequest take(MacAddress address, int iPrefix, int iSeq) {
+        int iSize = _pending.size();
+        for (int iIdx = 0; iIdx < iSize; iIdx++) {
+            PendingRequest req = _pending.get(iIdx);
+            if ((req.getResponsePrefix() != iPrefix) || !req.isFor(address)) {
+                continue;
+            }
+
+            if ((iSeq != SEQ_NONE) && (req.getSequence() != iSeq)) {
+                continue;
+            }
+
+            _pending.remove(iIdx);
+            return req;
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes and times out all requests whose deadline has passed
+     *
+     * @param lNow
+     * @return the requests that timed out
+     */
+    public synchronized List<PendingRequest> expire(long lNow) {
+        List<PendingRequest> expired = new ArrayList<PendingRequest>();
+        for (int iIdx = _pending.size() - 1; iIdx >= 0; iIdx--) {
+            PendingRequest req = _pending.get(iIdx);
+            if (req.getDeadline() <= lNow) {
+                _pending.remove(iIdx);
+                req.expire();
+                expired.add(0, req);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * @return the earliest deadline among pending requests or -1 if none
+     */
+    public synchronized long getNextDeadline() {
+        long lNext = -1;
+        for (PendingRequest req : _pending) {
+            if ((lNext < 0) || (req.getDeadline() < lNext)) {
+                lNext = req.getDeadline();
+            }
+        }
+        return lNext;
+    }
+
+    public synchronized int size() {
+        return _pending.size();
+    }
+
+    public synchronized void cancelAll() {
+        for (PendingRequest req : _pending) {
+            req.cancel();
+        }
+        _pending.clear();
+        return;
+    }
+
+    /**
+     * Cancels the requests whose responses can no longer arrive because the
+     *  link to the given device went down. Broadcast requests are left to
+     *  time out since other links may still answer them.
+     *
+     * @param address
+     * @return the requests that were cancelled
+     */
+    public synchronized List<PendingRequest> cancelAll(MacAddress address) {
+        List<PendingRequest> cancelled = new ArrayList<PendingRequest>();
+        for (int iIdx = _pending.size() - 1; iIdx >= 0; iIdx--) {
+            PendingRequest req = _pending.get(iIdx);
+            if ((req.getAddress() != null) && req.getAddress().matches(address)) {
+                _pending.remove(iIdx);
+                req.cancel();
+                cancelled.add(0, req);
+            }
+        }
+        return cancelled;
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private int nextSequence() {
+        int iSeq = _iNextSeq;
+        _iNextSeq = (_iNextSeq >= SEQ_MAX) ? 1 : (_iNextSeq + 1);
+        return iSeq;
+    }
+}
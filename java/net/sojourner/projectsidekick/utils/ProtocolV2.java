@@ -0,0 +1,177 @@
+package net.sojourner.projectsidekick.utils;
+
+import net.sojourner.projectsidekick.types.MacAddress;
+
+/**
+ * Encoder for the compact binary (v2) request format.
+ *
+ *  Request Format:  "<opcode>[<seq>]<body length varint><body>"
+ *  Response Format: "<opcode | OPCODE_RESPONSE>[<seq>]<ASCII payload>;"
+ *
+ * The sequence byte is only present when the opcode has OPCODE_SEQ set. A
+ *  SIDEKICK echoes the sequence number of a request in its response so that
+ *  several requests can be in flight at once (see PendingRequestTable).
+ *
+ * Requests are written into a RequestEncoder, which fills in the body
+ *  length once the body is complete.
+ *
+ * MAC addresses are sent as 6 raw bytes, integers as unsigned LEB128 varints
+ *  (zig-zag encoded when they may be negative) and names as a length byte
+ *  followed by their ASCII characters.
+ *
+ * The first byte of a frame holds the opcode in its low six bits
+ *  (OPCODE_MASK), and every opcode is below 0x20. OPCODE_SEQ (0x40) is set
+ *  when a sequence byte follows. Responses also have OPCODE_RESPONSE (0x80)
+ *  set, so their first byte is never ASCII and cannot be mistaken for the
+ *  first character of a v1 prefix; FrameAssembler relies on this to skip the
+ *  sequence byte of a response. A request with OPCODE_SEQ set does fall in
+ *  the ASCII range, which is why v2 requests are only sent once v2 has been
+ *  negotiated.
+ *
+ * The protocol version is negotiated during registration: the XREG payload
+ *  offers VERSION_MAX and a v2-capable SIDEKICK echoes the version it accepts
+ *  in its RREG reply. Devices that do not reply with a version stay on v1.
+ *
+ * This class does not depend on any Android APIs.
+ */
+public class ProtocolV2 {
+    public static final int VERSION_ASCII   = 1;
+    public static final int VERSION_BINARY  = 2;
+    public static final int VERSION_MAX     = VERSION_BINARY;
+
+    public static final int OPCODE_RESPONSE = 0x80;
+    public static final int OPCODE_SEQ      = 0x40;
+    public static final int OPCODE_MASK     = 0x3F;
+
+    /* Request opcodes */
+    public static final int OP_REGISTER         = 0x01;
+    public static final int OP_GET_LIST         = 0x02;
+    public static final int OP_SET_NAME         = 0x03;
+    public static final int OP_DELETE           = 0x04;
+    public static final int OP_GUARD_THEF_SET   = 0x05;
+    public static final int OP_GUARD_THEF       = 0x06;
+    public static final int OP_REPORT_THEF      = 0x07;
+    public static final int OP_GUARD_LOSS_SET   = 0x08;
+    public static final int OP_GUARD_LOSS       = 0x09;
+    public static final int OP_REPORT_LOSS      = 0x0A;
+    public static final int OP_TRIGGER_ALARM    = 0x0B;
+    public static final int OP_SK_TRIG_ALARM    = 0x0C;
+
+    public static final int MAC_LEN             = MacAddress.LENGTH;
+    public static final int MAX_VARINT_LEN      = 5;
+
+    /* Maps a response opcode (without OPCODE_RESPONSE) to its v1 packed prefix */
+    private static final int RESPONSE_PREFIXES[] = {
+        FrameCodec.PREFIX_NONE,
+        FrameCodec.RES_REGISTER,
+        FrameCodec.RES_GET_LIST,
+        FrameCodec.RES_SET_NAME,
+        FrameCodec.RES_DELETE,
+        FrameCodec.RES_GUARD_THEF_SET,
+        FrameCodec.RES_GUARD_THEF,
+        FrameCodec.RES_REPORT_THEF,
+        FrameCodec.RES_GUARD_LOSS_SET,
+        FrameCodec.RES_GUARD_LOSS,
+        FrameCodec.RES_REPORT_LOSS,
+        FrameCodec.RES_TRIGGER_ALARM,
+        FrameCodec.RES_SK_TRIG_ALARM,
+    };
+
+    /**
+     * Maps a one-byte response opcode to the packed prefix of the equivalent
+     *  ASCII response so that both formats share the same handlers
+     *
+     * @param iOpcode
+     * @return the packed prefix or PREFIX_NONE if the opcode is unknown
+     */
+    public static int prefixForOpcode(int iOpcode) {
+        if ((iOpcode & OPCODE_RESPONSE) == 0) {
+            return FrameCodec.PREFIX_NONE;
+        }
+
+        int iOp = iOpcode & OPCODE_MASK;
+        if (iOp >= RESPONSE_PREFIXES.length) {
+            return FrameCodec.PREFIX_NONE;
+        }
+
+        return RESPONSE_PREFIXES[iOp];
+    }
+
+    /* **************** */
+    /* Request Encoders */
+    /* **************** */
+
+    /**
+     * Body: "<mac:6><name len><name><max version varint>"
+     */
+    public static RequestEncoder encodeRegister(RequestEncoder enc, String name, String addr,
+                                                int iSeq) {
+        return enc.beginFrame(OP_REGISTER, iSeq)
+                .putMac(MacAddress.parse(addr))
+                .putName(name)
+                .putVarint(VERSION_MAX)
+                .endFrame();
+    }
+
+    public static RequestEncoder encodeGetList(RequestEncoder enc, int iSeq) {
+        return enc.beginFrame(OP_GET_LIST, iSeq).endFrame();
+    }
+
+    /**
+     * Body: "<name len><name>"
+     */
+    public static RequestEncoder encodeSetName(RequestEncoder enc, String name, int iSeq) {
+        return enc.beginFrame(OP_SET_NAME, iSeq).putName(name).endFrame();
+    }
+
+    /**
+     * Body: "<device id varint>"
+     */
+    public static RequestEncoder encodeDelete(RequestEncoder enc, int iDeviceId, int iSeq) {
+        return enc.beginFrame(OP_DELETE, iSeq).putVarint(iDeviceId).endFrame();
+    }
+
+    /**
+     * Body: the guard setup string ("<id><0|1>...") as is, since it is
+     *  already one byte per field
+     */
+    public static RequestEncoder encodeGuardListMod(RequestEncoder enc, String guardSetup,
+                                                    int iSeq) {
+        return enc.beginFrame(OP_GUARD_THEF_SET, iSeq).putAscii(guardSetup).endFrame();
+    }
+
+    /**
+     * Body: "<mac:6>"
+     */
+    public static RequestEncoder encodeGuardReady(RequestEncoder enc, String addr, int iSeq) {
+        return enc.beginFrame(OP_GUARD_THEF, iSeq).putMac(MacAddress.parse(addr)).endFrame();
+    }
+
+    /**
+     * Body: "<device id varint><guard status><alarm status><rssi zig-zag varint>"
+     */
+    public static RequestEncoder encodeReport(RequestEncoder enc, int iDeviceId, int iGuardStatus,
+                                              int iAlarmStatus, int iRssi, int iSeq) {
+        return enc.beginFrame(OP_REPORT_THEF, iSeq)
+                .putVarint(iDeviceId)
+                .putByte(iGuardStatus)
+                .putByte(iAlarmStatus)
+                .putVarint(zigZag(iRssi))
+                .endFrame();
+    }
+
+    /**
+     * Body: "<alarm mode><rssi zig-zag varint>"
+     */
+    public static RequestEncoder encodeTriggerAlarm(RequestEncoder enc, int iMode, int iRssi,
+                                                    int iSeq) {
+        return enc.beginFrame(OP_TRIGGER_ALARM, iSeq)
+                .putByte(iMode)
+                .putVarint(zigZag(iRssi))
+                .endFrame();
+    }
+
+    public static int zigZag(int iValue) {
+        return (iValue << 1) ^ (iValue >> 31);
+    }
+}
@@ -0,0 +1,333 @@
+package net.sojourner.projectsidekick.utils;
+
+import java.nio.ByteBuffer;
+
+import net.sojourner.projectsidekick.types.MacAddress;
+
+/**
+ * Writes outbound requests directly into a reusable ByteBuffer.
+ *
+ *  ASCII (v1) Format:  "<4-char prefix><payload>;"
+ *  Binary (v2) Format: see ProtocolV2
+ *
+ * Request prefixes are pre-encoded as packed ints (in the same form as the
+ *  FrameCodec response prefixes) and integers and MAC addresses are written
+ *  as digits straight into the buffer, so encoding a request allocates
+ *  nothing once the buffer has grown to fit the largest request. The
+ *  encoded frame is read back through array() and length(); callers split
+ *  it into chunks by offset instead of copying it.
+ *
+ * Callers should hold on to a single instance and begin() each request on
+ *  it. Instances are not thread-safe.
+ */
+public class RequestEncoder {
+    /* Packed request prefixes */
+    public static final int REQ_REGISTER        = ('X' << 24) | ('R' << 16) | ('E' << 8) | 'G';
+    public static final int REQ_GET_LIST        = ('X' << 24) | ('L' << 16) | ('S' << 8) | 'T';
+    public static final int REQ_SET_NAME        = ('X' << 24) | ('N' << 16) | ('M' << 8) | 'E';
+    public static final int REQ_DELETE          = ('X' << 24) | ('D' << 16) | ('E' << 8) | 'L';
+    public static final int REQ_GUARD_THEF_SET  = ('X' << 24) | ('G' << 16) | ('S' << 8) | 'L';
+    public static final int REQ_GUARD_THEF      = ('X' << 24) | ('A' << 16) | ('T' << 8) | 'M';
+    public static final int REQ_REPORT_THEF     = ('X' << 24) | ('A' << 16) | ('T' << 8) | 'O';
+    public static final int REQ_GUARD_LOSS_SET  = ('X' << 24) | ('A' << 16) | ('L' << 8) | 'S';
+    public static final int REQ_GUARD_LOSS      = ('X' << 24) | ('A' << 16) | ('L' << 8) | 'M';
+    public static final int REQ_REPORT_LOSS     = ('X' << 24) | ('A' << 16) | ('L' << 8) | 'O';
+    public static final int REQ_TRIGGER_ALARM   = ('X' << 24) | ('M' << 16) | ('A' << 8) | 'L';
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int MAX_INT_DIGITS = 11;
+    private static final byte HEX_DIGITS[] = {
+        '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+
+    private ByteBuffer  _buffer     = null;
+    private int         _iBodyStart = -1;
+
+    public RequestEncoder() {
+        this(DEFAULT_CAPACITY);
+        return;
+    }
+
+    public RequestEncoder(int iCapacity) {
+        _buffer = ByteBuffer.allocate(iCapacity);
+        return;
+    }
+
+    /**
+     * Starts a new ASCII (v1) request with the given packed prefix
+     */
+    public RequestEncoder begin(int iPrefix) {
+        _buffer.clear();
+        _iBodyStart = -1;
+        return putPrefix(iPrefix);
+    }
+
+    /**
+     * Starts a new binary (v2) request. The body length is filled in by
+     *  endFrame() once the body has been written.
+     *
+     * @param iOpcode
+     * @param iSeq      the request sequence number or SEQ_NONE
+     */
+    public RequestEncoder beginFrame(int iOpcode, int iSeq) {
+        _buffer.clear();
+        if (iSeq != PendingRequestTable.SEQ_NONE) {
+            _buffer.put((byte) (iOpcode | ProtocolV2.OPCODE_SEQ));
+            _buffer.put((byte) iSeq);
+        } else {
+            _buffer.put((byte) iOpcode);
+        }
+
+        /* Reserve a single byte for the length; most bodies fit in it */
+        _buffer.put((byte) 0);
+        _iBodyStart = _buffer.position();
+
+        return this;
+    }
+
+    /**
+     * Writes the body length of a binary (v2) request, moving the body up if
+     *  the length does not fit in the single reserved byte
+     */
+    public RequestEncoder endFrame() {
+        if (_iBodyStart < 0) {
+            return this;
+        }
+
+        int iBodyLen = _buffer.position() - _iBodyStart;
+        int iExtra = varintLength(iBodyLen) - 1;
+        if (iExtra > 0) {
+            ensureCapacity(iExtra);
+            byte data[] = _buffer.array();
+            System.arraycopy(data, _iBodyStart, data, _iBodyStart + iExtra, iBodyLen);
+            _buffer.position(_buffer.position() + iExtra);
+        }
+
+        int iPos = _iBodyStart - 1;
+        int iValue = iBodyLen;
+        byte data[] = _buffer.array();
+        while ((iValue & ~0x7F) != 0) {
+            data[iPos++] = (byte) ((iValue & 0x7F) | 0x80);
+            iValue >>>= 7;
+        }
+        data[iPos] = (byte) iValue;
+
+        _iBodyStart = -1;
+        return this;
+    }
+
+    /**
+     * Terminates an ASCII (v1) request
+     */
+    public RequestEncoder end() {
+        return putByte(FrameCodec.FRAME_TERM);
+    }
+
+    /* ************** */
+    /* Field Encoders */
+    /* ************** */
+    public RequestEncoder putPrefix(int iPrefix) {
+        ensureCapacity(FrameCodec.PREFIX_LEN);
+        _buffer.putInt(iPrefix);
+        return this;
+    }
+
+    public RequestEncoder putByte(int iValue) {
+        ensureCapacity(1);
+        _buffer.put((byte) iValue);
+        return this;
+    }
+
+    public RequestEncoder putDelimiter() {
+        return putByte(FrameCodec.FIELD_DELIM);
+    }
+
+    public RequestEncoder putBytes(byte[] data, int iOffs, int iLen) {
+        ensureCapacity(iLen);
+        _buffer.put(data, iOffs, iLen);
+        return this;
+    }
+
+    /**
+     * Writes the chars of the given String as single ASCII bytes
+     */
+    public RequestEncoder putAscii(String str) {
+        int iStrLen = str.length();
+        ensureCapacity(iStrLen);
+        for (int iIdx = 0; iIdx < iStrLen; iIdx++) {
+            _buffer.put((byte) str.charAt(iIdx));
+        }
+        return this;
+    }
+
+    /**
+     * Writes the given String as exactly iWidth ASCII bytes, truncating it or
+     *  padding it with spaces as needed
+     */
+    public RequestEncoder putAscii(String str, int iWidth) {
+        ensureCapacity(iWidth);
+        int iStrLen = Math.min(str.length(), iWidth);
+        for (int iIdx = 0; iIdx < iWidth; iIdx++) {
+            _buffer.put((byte) ((iIdx < iStrLen) ? str.charAt(iIdx) : ' '));
+        }
+        return this;
+    }
+
+    /**
+     * Writes an integer as ASCII decimal digits
+     */
+    public RequestEncoder putDecimal(int iValue) {
+        ensureCapacity(MAX_INT_DIGITS);
+
+        /* Work with negative values so that MIN_VALUE needs no special case */
+        int iRemaining = iValue;
+        if (iRemaining < 0) {
+            _buffer.put((byte) '-');
+        } else {
+            iRemaining = -iRemaining;
+        }
+
+        byte data[] = _buffer.array();
+        int iStart = _buffer.position();
+        int iPos = iStart + decimalLength(iRemaining);
+        _buffer.position(iPos);
+        do {
+            data[--iPos] = (byte) ('0' - (iRemaining % 10));
+            iRemaining /= 10;
+        } while (iRemaining != 0);
+
+        return this;
+    }
+
+    /**
+     * Writes a MAC address as 12 hex digits without separators
+     */
+    public RequestEncoder putHex(MacAddress mac) {
+        ensureCapacity(MacAddress.LENGTH * 2);
+        long lValue = (mac != null) ? mac.toLong() : 0;
+        for (int iShift = 40; iShift >= 0; iShift -= 8) {
+            int iOctet = (int) (lValue >>> iShift) & 0xFF;
+            _buffer.put(HEX_DIGITS[iOctet >>> 4]);
+            _buffer.put(HEX_DIGITS[iOctet & 0xF]);
+        }
+        return this;
+    }
+
+    /**
+     * Writes an address given as hex digits with or without ':' separators
+     *  as 12 hex digits. Addresses that cannot be parsed are written as is,
+     *  with any separators dropped.
+     */
+    public RequestEncoder putHex(String addr) {
+        MacAddress mac = MacAddress.parse(addr);
+        if (mac != null) {
+            return putHex(mac);
+        }
+
+        int iAddrLen = addr.length();
+        ensureCapacity(iAddrLen);
+        for (int iIdx = 0; iIdx < iAddrLen; iIdx++) {
+            char c = addr.charAt(iIdx);
+            if (c != ':') {
+                _buffer.put((byte) c);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint
+     */
+    public RequestEncoder putVarint(int iValue) {
+        ensureCapacity(ProtocolV2.MAX_VARINT_LEN);
+        while ((iValue & ~0x7F) != 0) {
+            _buffer.put((byte) ((iValue & 0x7F) | 0x80));
+            iValue >>>= 7;
+        }
+        _buffer.put((byte) iValue);
+        return this;
+    }
+
+    /**
+     * Writes a MAC address as 6 raw bytes. Missing addresses are written as
+     *  zeroes.
+     */
+    public RequestEncoder putMac(MacAddress mac) {
+        ensureCapacity(MacAddress.LENGTH);
+        if (mac == null) {
+            for (int iIdx = 0; iIdx < MacAddress.LENGTH; iIdx++) {
+                _buffer.put((byte) 0);
+            }
+            return this;
+        }
+
+        mac.writeTo(_buffer.array(), _buffer.position());
+        _buffer.position(_buffer.position() + MacAddress.LENGTH);
+        return this;
+    }
+
+    /**
+     * Writes a length-prefixed name truncated to MAX_DEVICE_NAME_LEN chars
+     */
+    public RequestEncoder putName(String name) {
+        int iLen = Math.min(name.length(), SKUtils.MAX_DEVICE_NAME_LEN);
+        putByte(iLen);
+        ensureCapacity(iLen);
+        for (int iIdx = 0; iIdx < iLen; iIdx++) {
+            _buffer.put((byte) name.charAt(iIdx));
+        }
+        return this;
+    }
+
+    /* ******* */
+    /* Getters */
+    /* ******* */
+
+    /**
+     * @return the backing array. Only the first length() bytes are valid and
+     *  the array may be replaced when the encoder grows.
+     */
+    public byte[] array() {
+        return _buffer.array();
+    }
+
+    public int length() {
+        return _buffer.position();
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private void ensureCapacity(int iExtra) {
+        if (_buffer.remaining() >= iExtra) {
+            return;
+        }
+
+        int iLen = _buffer.position();
+        int iNewCap = Math.max(_buffer.capacity() * 2, iLen + iExtra);
+        ByteBuffer newBuffer = ByteBuffer.allocate(iNewCap);
+        newBuffer.put(_buffer.array(), 0, iLen);
+        _buffer = newBuffer;
+
+        return;
+    }
+
+    /* Counts the digits of a value that is zero or negative */
+    private static int decimalLength(int iNegValue) {
+        int iLen = 1;
+        while (iNegValue <= -10) {
+            iNegValue /= 10;
+            iLen++;
+        }
+        return iLen;
+    }
+
+    private static int varintLength(int iValue) {
+        int iLen = 1;
+        while ((iValue & ~0x7F) != 0) {
+            iValue >>>= 7;
+            iLen++;
+        }
+        return iLen;
+    }
+}
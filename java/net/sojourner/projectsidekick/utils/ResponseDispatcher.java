@@ -0,0 +1,130 @@
+package net.sojourner.projectsidekick.utils;
+
+import net.sojourner.projectsidekick.interfaces.ResponseHandler;
+import net.sojourner.projectsidekick.types.ReceivedData;
+import net.sojourner.projectsidekick.types.ServiceState;
+
+/**
+ * Routes received responses to the handler registered for their packed
+ *  4-byte prefix (see FrameCodec).
+ *
+ * Handlers are stored in a small open-addressed table so that a lookup is a
+ *  single hash and (almost always) a single array probe with no allocation.
+ *  Each handler is registered along with the service states in which its
+ *  response is valid; responses arriving in any other state are rejected
+ *  before the handler runs.
+ */
+public class ResponseDispatcher {
+    public static enum Result { HANDLED, REJECTED, UNKNOWN };
+
+    private static final int TABLE_BITS = 5;
+    private static final int TABLE_SIZE = (1 << TABLE_BITS);
+    private static final int TABLE_MASK = (TABLE_SIZE - 1);
+    private static final int ALL_STATES = 0xFFFFFFFF;
+
+    private final int               _prefixes[]     = new int[TABLE_SIZE];
+    private final int               _stateMasks[]   = new int[TABLE_SIZE];
+    private final ResponseHandler   _handlers[]     = new ResponseHandler[TABLE_SIZE];
+
+    public ResponseDispatcher() {
+        return;
+    }
+
+    /**
+     * Registers a handler for the given response prefix
+     *
+     * @param iPrefix       the packed response prefix
+     * @param handler
+     * @param validStates   states in which this response is accepted. If none
+     *                      are given, the response is accepted in any state.
+     * @return
+     */
+    public synchronized boolean register(int iPrefix, ResponseHandler handler,
+                                         ServiceState... validStates) {
+        if ((iPrefix == FrameCodec.PREFIX_NONE) || (handler == null)) {
+            Logger.err("Invalid response handler registration");
+            return false;
+        }
+
+        int iStateMask = ALL_STATES;
+        if ((validStates != null) && (validStates.length > 0)) {
+            iStateMask = 0;
+            for (ServiceState state : validStates) {
+                iStateMask |= (1 << state.ordinal());
+            }
+        }
+
+        int iSlot = findSlot(iPrefix);
+        if (iSlot < 0) {
+            Logger.err("Response handler table is full");
+            return false;
+        }
+
+        _prefixes[iSlot] = iPrefix;
+        _stateMasks[iSlot] = iStateMask;
+        _handlers[iSlot] = handler;
+
+        return true;
+    }
+
+    public synchronized boolean isRegistered(int iPrefix) {
+        int iSlot = findSlot(iPrefix);
+        return (iSlot >= 0) && (_prefixes[iSlot] == iPrefix);
+    }
+
+    /**
+     * Invokes the handler registered for the given prefix if the response is
+     *  valid in the current service state
+     *
+     * @param iPrefix
+     * @param state     the current service state
+     * @param response
+     * @param iPayloadOffs  offset of the payload following the prefix or opcode
+     * @return HANDLED if the handler ran, REJECTED if the response is not valid
+     *  in the current state, or UNKNOWN if no handler has been registered
+     */
+    public Result dispatch(int iPrefix, ServiceState state, ReceivedData response,
+                           int iPayloadOffs) {
+        ResponseHandler handler;
+        int iStateMask;
+
+        if (iPrefix == FrameCodec.PREFIX_NONE) {
+            return Result.UNKNOWN;
+        }
+
+        synchronized (this) {
+            int iSlot = findSlot(iPrefix);
+            if ((iSlot < 0) || (_prefixes[iSlot] != iPrefix)) {
+                return Result.UNKNOWN;
+            }
+            handler = _handlers[iSlot];
+            iStateMask = _stateMasks[iSlot];
+        }
+
+        if ((iStateMask & (1 << state.ordinal())) == 0) {
+            Logger.warn("Invalid state for " + FrameCodec.prefixToString(iPrefix) +
+                    " responses: " + state);
+            return Result.REJECTED;
+        }
+
+        handler.onResponse(response, iPayloadOffs);
+
+        return Result.HANDLED;
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private int findSlot(int iPrefix) {
+        /* Fibonacci hashing spreads the mostly-similar ASCII prefixes */
+        int iSlot = (iPrefix * 0x9E3779B9) >>> (32 - TABLE_BITS);
+        for (int iProbe = 0; iProbe < TABLE_SIZE; iProbe++) {
+            int iKey = _prefixes[iSlot];
+            if ((iKey == iPrefix) || (iKey == FrameCodec.PREFIX_NONE)) {
+                return iSlot;
+            }
+            iSlot = (iSlot + 1) & TABLE_MASK;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,194 @@
+package net.sojourner.projectsidekick.utils;
+
+/**
+ * Smooths a stream of RSSI samples with a one-dimensional Kalman filter.
+ *
+ * A sample that is further from the estimate than OUTLIER_SIGMAS standard
+ *  deviations is dropped, unless MAX_CONSECUTIVE_OUTLIERS samples in a row
+ *  were dropped, in which case the signal is taken to have really changed
+ *  and the filter starts over from that sample.
+ *
+ * The filtered values of the last few samples are kept in a ring buffer of
+ *  primitives, from which a trend slope is fitted by least squares. Samples
+ *  may be added from one thread while others read the results.
+ */
+public class RssiFilter {
+    public static final int DEFAULT_WINDOW = 16;
+    public static final int RSSI_UNKNOWN = -65535;
+
+    /* Variance of a single reading, and how much the true RSSI drifts per sample */
+    private static final float MEASUREMENT_VARIANCE = 16.0f;
+    private static final float PROCESS_VARIANCE = 0.5f;
+
+    private static final float OUTLIER_SIGMAS = 3.0f;
+    private static final int MAX_CONSECUTIVE_OUTLIERS = 3;
+
+    /* Filtered values and their sample times, oldest at _iHead */
+    private final float _values[];
+    private final long _times[];
+    private int _iHead = 0;
+    private int _iCount = 0;
+
+    private boolean _bHasEstimate = false;
+    private float _fEstimate = 0.0f;
+    private float _fVariance = 0.0f;
+    private int _iOutliers = 0;
+
+    private long _lSamples = 0;
+    private long _lRejected = 0;
+
+    public RssiFilter() {
+        this(DEFAULT_WINDOW);
+        return;
+    }
+
+    /**
+     * @param iWindow number of filtered values the trend is fitted over
+     */
+    public RssiFilter(int iWindow) {
+        _values = new float[iWindow];
+        _times = new long[iWindow];
+        return;
+    }
+
+    public boolean add(int iRssi) {
+        return add(iRssi, System.currentTimeMillis());
+    }
+
+    /**
+     * @param iRssi
+     * @param lTime when the sample was taken, in milliseconds
+     * @return false if the sample was rejected as an outlier
+     */
+    public synchronized boolean add(int iRssi, long lTime) {
+        _lSamples++;
+
+        if (!_bHasEstimate) {
+            restart(iRssi);
+            record(lTime);
+            return true;
+        }
+
+        /* Predict, then check the sample against the predicted spread */
+        float fVariance = _fVariance + PROCESS_VARIANCE;
+        float fInnovation = iRssi - _fEstimate;
+        float fSpread = OUTLIER_SIGMAS * (float) Math.sqrt(fVariance + MEASUREMENT_VARIANCE);
+        if (Math.abs(fInnovation) > fSpread) {
+            _iOutliers++;
+            if (_iOutliers < MAX_CONSECUTIVE_OUTLIERS) {
+                _lRejected++;
+                return false;
+            }
+
+            /* The link really changed, so the old history no longer applies */
+            restart(iRssi);
+            _iCount = 0;
+            record(lTime);
+            return true;
+        }
+        _iOutliers = 0;
+
+        float fGain = fVariance / (fVariance + MEASUREMENT_VARIANCE);
+        _fEstimate += fGain * fInnovation;
+        _fVariance = (1.0f - fGain) * fVariance;
+        record(lTime);
+
+        return true;
+    }
+
+    public synchronized void reset() {
+        _bHasEstimate = false;
+        _iOutliers = 0;
+        _iHead = 0;
+        _iCount = 0;
+        return;
+    }
+
+    /* ******* */
+    /* Getters */
+    /* ******* */
+    public synchronized boolean hasValue() {
+        return _bHasEstimate;
+    }
+
+    /**
+     * @return the filtered RSSI, or RSSI_UNKNOWN if no samples were taken
+     */
+    public synchronized int getValue() {
+        if (!_bHasEstimate) {
+            return RSSI_UNKNOWN;
+        }
+        return Math.round(_fEstimate);
+    }
+
+    /**
+     * @return the trend of the filtered RSSI over the window in dB per
+     *  second, which is negative while the device moves away, or zero if
+     *  there are too few values to tell
+     */
+    public synchronized float getSlope() {
+        if (_iCount < 2) {
+            return 0.0f;
+        }
+
+        /* Fit relative to the oldest sample to keep the sums small */
+        long lBase = _times[_iHead];
+        double dSumT = 0.0;
+        double dSumV = 0.0;
+        for (int iIdx = 0; iIdx < _iCount; iIdx++) {
+            int iPos = (_iHead + iIdx) % _values.length;
+            dSumT += (_times[iPos] - lBase) / 1000.0;
+            dSumV += _values[iPos];
+        }
+
+        double dMeanT = dSumT / _iCount;
+        double dMeanV = dSumV / _iCount;
+        double dCov = 0.0;
+        double dVar = 0.0;
+        for (int iIdx = 0; iIdx < _iCount; iIdx++) {
+            int iPos = (_iHead + iIdx) % _values.length;
+            double dT = ((_times[iPos] - lBase) / 1000.0) - dMeanT;
+            dCov += dT * (_values[iPos] - dMeanV);
+            dVar += dT * dT;
+        }
+
+        if (dVar <= 0.0) {
+            return 0.0f;
+        }
+        return (float) (dCov / dVar);
+    }
+
+    public synchronized long getSampleCount() {
+        return _lSamples;
+    }
+
+    public synchronized long getRejectedCount() {
+        return _lRejected;
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private void restart(int iRssi) {
+        _fEstimate = iRssi;
+        _fVariance = MEASUREMENT_VARIANCE;
+        _bHasEstimate = true;
+        _iOutliers = 0;
+        return;
+    }
+
+    private void record(long lTime) {
+        int iPos;
+        if (_iCount < _values.length) {
+            iPos = (_iHead + _iCount) % _values.length;
+            _iCount++;
+        } else {
+            iPos = _iHead;
+            _iHead = (_iHead + 1) % _values.length;
+        }
+
+        _values[iPos] = _fEstimate;
+        _times[iPos] = lTime;
+        return;
+    }
+}
@@ -1,10 +1,9 @@
 package net.sojourner.projectsidekick.utils;
 
+import net.sojourner.projectsidekick.types.MasterListItem;
 import net.sojourner.projectsidekick.types.PSStatus;
 import net.sojourner.projectsidekick.types.ReportModeInfo;
 
-import java.io.StringReader;
-
 /**
  * Created by francis on 3/24/16.
  */
@@ -19,39 +18,37 @@ public class SKUtils {
     private static final long SEC_TO_MS                 = 1000;
 
     public static String compressDeviceName(String name) {
-        String dvcName = "";
-        for (int iIdx = 0; iIdx < MAX_DEVICE_NAME_LEN; iIdx++) {
-			/* Add spaces if the device name is less than the set maximum */
-            if (iIdx >= name.length()) {
-                dvcName += ' ';
-                continue;
-            }
+        char dvcName[] = new char[MAX_DEVICE_NAME_LEN];
+        int iLen = Math.min(name.length(), MAX_DEVICE_NAME_LEN);
+        name.getChars(0, iLen, dvcName, 0);
 
-            dvcName += name.charAt(iIdx);
+        /* Add spaces if the device name is less than the set maximum */
+        for (int iIdx = iLen; iIdx < MAX_DEVICE_NAME_LEN; iIdx++) {
+            dvcName[iIdx] = ' ';
         }
 
-        return dvcName;
+        return new String(dvcName);
     }
 
     public static String compressDeviceAddress(String addr) {
         return addr.replace(":", "");
     }
     public static String restoreDeviceAddress(String addr) {
-        String dvcAddr = "";
-
-        if (addr.contains(":")) {
+        if (addr.indexOf(':') >= 0) {
             return addr;
         }
 
-        for (int iIdx = 0; iIdx < addr.length(); iIdx++) {
+        int iLen = addr.length();
+        StringBuilder dvcAddr = new StringBuilder(iLen + (iLen / 2));
+        for (int iIdx = 0; iIdx < iLen; iIdx++) {
             if ( ((iIdx%2) == 0) && (iIdx > 0) ) {
-                dvcAddr += ":";
+                dvcAddr.append(':');
             }
 
-            dvcAddr += addr.charAt(iIdx);
+            dvcAddr.append(addr.charAt(iIdx));
         }
 
-        return dvcAddr;
+        return dvcAddr.toString();
     }
 
     public static long calculateChannelWindow(int iChannel) {
@@ -59,24 +56,43 @@ public class SKUtils {
     }
 
     public static PSStatus updateReportParams(ReportModeInfo reportInfo, byte[] data, int iOffs) {
-        int iBytesToRead = data.length - iOffs;
+        return updateReportParams(reportInfo, data, iOffs, data.length);
+    }
+
+    /**
+     * @param iLen  number of valid bytes in data, counted from its start
+     */
+    public static PSStatus updateReportParams(ReportModeInfo reportInfo, byte[] data, int iOffs,
+                                              int iLen) {
+        int iBytesToRead = iLen - iOffs;
         if (iBytesToRead < 0) {
             Logger.err("No bytes to read after header");
             return PSStatus.FAILED;
         }
 
-        String dataStr = new String(data, 4, iBytesToRead).trim().replace(";", "");
-        String dataPart[] = dataStr.split(",");
-
-        int iChannel = 0;
-        int iSyncTimeSecs = 0;
-        long lMaxTime = 0;
-        try {
-            iChannel = Integer.parseInt(dataPart[0]);
-            iSyncTimeSecs = Integer.parseInt(dataPart[1]);
-            lMaxTime = Long.parseLong(dataPart[2]);
-        } catch (NumberFormatException e) {
-            Logger.err("Failed to parse report param data: " + dataStr);
+        return updateReportParams(reportInfo, new FrameCodec().wrap(data, iOffs, iBytesToRead));
+    }
+
+    /**
+     * Updates the report parameters from a codec positioned at the start of
+     *  the payload.
+     *
+     *  Format: "<channel>,<sync time secs>,<max wait time>;"
+     *
+     * @param reportInfo
+     * @param codec
+     * @return
+     */
+    public static PSStatus updateReportParams(ReportModeInfo reportInfo, FrameCodec codec) {
+        int iChannel = codec.readInt();
+        codec.readDelimiter();
+        int iSyncTimeSecs = codec.readInt();
+        codec.readDelimiter();
+        long lMaxTime = codec.readLong();
+
+        if (codec.hasError()) {
+            Logger.err("Failed to parse report param data: error " + codec.getError() +
+                    " at offset " + codec.getErrorPosition());
             return PSStatus.FAILED;
         }
 
@@ -93,144 +109,44 @@ public class SKUtils {
         return PSStatus.OK;
     }
 
-    /* TODO !!! This part badly needs refactoring */
+    /**
+     * Decodes a GET LIST payload into a comma-separated list of master list
+     *  item strings in the format expected by MasterListItem.parse().
+     *
+     *  Format: "<id>|<device name>|<address>|<guardStatus>,..."
+     *
+     * Callers that can consume items one at a time should use a
+     *  DeviceListDecoder directly instead.
+     *
+     * @param list
+     * @param iInitOffs
+     * @return
+     */
     public static String decodeBinaryDeviceList(byte[] list, int iInitOffs) {
-        String dvcListStr = "";
-        String rawListStr = new String(list, iInitOffs, (list.length-iInitOffs) );
+        final StringBuilder dvcListStr = new StringBuilder();
 
-        String rawListPart[] = rawListStr.split(",");
-
-        for (int iIdx = 0; iIdx < rawListPart.length; iIdx++) {
-            StringReader sr = new StringReader(rawListPart[iIdx]);
-
-            Logger.info("Raw Device String: " + rawListPart[iIdx]);
-
-            try {
-                int iDvcId = sr.read();
-				/* Waste an extra read if our byte is '0' */
-                if (iDvcId == 0) {
-                    sr.read();
+        DeviceListDecoder decoder = new DeviceListDecoder(new DeviceListDecoder.Listener() {
+            @Override
+            public void onItemDecoded(MasterListItem item) {
+                if (dvcListStr.length() > 0) {
+                    dvcListStr.append(',');
                 }
-
-				/* If our device id is in ASCII, map it to the actual integer value through subtraction */
-                if (iDvcId >= 49) {
-                    iDvcId -= 48;
-                }
-                Logger.info("Device Id: " + iDvcId);
-
-                int iStatus = sr.read();
-                Logger.info("Device Status: " + (iStatus > '0' ? "Guarded" : "Not Guarded"));
-				/* Waste an extra read if our byte is '0' */
-                if (iStatus == '0') {
-                    sr.read();
-                }
-
-                char cHexPair[] = new char[2];
-
-				/* Capture the device name */
-                String deviceName = "";
-                int cConv = 0;
-                int iCount = 0;
-                while (sr.read(cHexPair, 0, 2) > 0) {
-					/* Check if our Hex Pair is sane */
-                    if ((cHexPair[0] < ' ') || (cHexPair[0] > '~')) {
-                        break;
-                    }
-
-                    if ((cHexPair[1] < ' ') || (cHexPair[1] > '~')) {
-                        break;
-                    }
-
-                    cConv = Integer.decode("0x" + cHexPair[0] + "" + cHexPair[1]);
-                    deviceName += (char) cConv;
-
-                    if ((cHexPair[1] == '0') && (cHexPair[0] == '0')) {
-                        break;
-                    } else if ((cHexPair[0] == ';') || (cHexPair[1] == ';')) {
-                        break;
-                    }
-
-					/* In the fixed width implementation, we can use the MAX_DEVICE_NAME_LEN */
-                    iCount++;
-                    if (iCount >= MAX_DEVICE_NAME_LEN) {
-                        break;
-                    }
-                }
-                Logger.info("Device Name: " + deviceName.trim());
-
-				/* Skip over the unnecessary */
-                boolean isNextPartFound = false;
-                if (cHexPair[0] == '0') {
-                    char cRead = '0';
-                    while (cRead <= '0') {
-                        cRead = (char)(sr.read());
-                        if (cRead < 0) {
-                            break;
-                        }
-                        Logger.dbg("Found: " + cRead);
-                    }
-
-                    if (cRead > '0') {
-                        cHexPair[0] = cRead;
-                        cHexPair[1] = (char) sr.read();
-                        isNextPartFound = true;
-                        Logger.dbg("Found: " + cHexPair[0] + ", " + cHexPair[1]);
-                    }
-                } else {
-                    while (sr.read(cHexPair, 0, 2) > 0) {
-                        if (cHexPair[0] != '2' || cHexPair[1] != '0') {
-                            isNextPartFound = true;
-                            break;
-                        }
-                    }
-                }
-
-                if (!isNextPartFound) {
-                    Logger.err("Got to end of string without finding device address start");
-                    sr.close();
-                    break;
-                }
-
-				/* Capture the device address */
-                String deviceAddr = "";
-
-                cConv = Integer.decode("0x" + cHexPair[0] + "" + cHexPair[1]);
-                deviceAddr += (char) cConv;
-
-                Logger.dbg("Capturing device address...");
-                while (sr.read(cHexPair, 0, 2) > 0) {
-                    Logger.dbg("Found: " + cHexPair[0] + ", " + cHexPair[1]);
-                    if ((cHexPair[0] == ';') || (cHexPair[1] == ';')) {
-                        Logger.dbg("Got to end of string");
-                        break;
-                    }
-                    cConv = Integer.decode("0x" + cHexPair[0] + "" + cHexPair[1]);
-                    deviceAddr += (char) cConv;
-
-                    if (cHexPair[1] == '0') {
-                        if ( (cHexPair[0] == '2') || (cHexPair[0] == '0') ) {
-                            break;
-                        }
-                    }
-                }
-                Logger.info("Device Address (Raw): " + deviceAddr);
-                Logger.info("Device Address: " + SKUtils.restoreDeviceAddress(deviceAddr));
-
-                dvcListStr += iDvcId +
-                        "|" + deviceName.trim() +
-                        "|" + SKUtils.restoreDeviceAddress(deviceAddr) +
-                        "|" + (iStatus == '1' ? "Guarded" : "Not Guarded");
-
-                sr.close();
-            } catch (Exception e) {
-                Logger.err("Exception occurred: " + e.getMessage());
+                dvcListStr.append(item.getId())
+                        .append('|').append(item.getName())
+                        .append('|').append(item.getAddress())
+                        .append('|').append(item.isGuarded() ? "Guarded" : "Not Guarded");
+                return;
             }
 
-            if ((iIdx+1) < rawListPart.length) {
-                dvcListStr += ",";
+            @Override
+            public void onListComplete(int iItemCount) {
+                return;
             }
-        }
+        });
+
+        decoder.feed(list, iInitOffs, list.length - iInitOffs);
+        decoder.finish();
 
-        return dvcListStr;
+        return dvcListStr.toString();
     }
 }
@@ -0,0 +1,200 @@
+package net.sojourner.projectsidekick.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Folds scan results into one record per device address.
+ *
+ * Each record keeps the last-seen time and a smoothed RSSI. Once per
+ *  reporting window, the records that changed during it are handed to the
+ *  listener as a single batch, on the event bus thread. However many
+ *  advertisements arrive, at most one batch is reported per window, and a
+ *  device appears in a batch at most once.
+ */
+public class ScanAggregator {
+    public static final long DEFAULT_WINDOW = 250;
+
+    /* Weight of a new sample in the smoothed RSSI, as 1/n */
+    private static final int RSSI_SMOOTHING = 4;
+
+    public interface Listener {
+        public void onScanBatch(List<Sighting> batch);
+    }
+
+    public static final class Sighting {
+        private final String    _address;
+        private String          _name;
+        private int             _iRssi;
+        private long            _lLastSeen;
+        private int             _iCount;
+        private boolean         _bChanged = false;
+
+        private Sighting(String address) {
+            _address = address;
+            return;
+        }
+
+        private Sighting(Sighting other) {
+            _address = other._address;
+            _name = other._name;
+            _iRssi = other._iRssi;
+            _lLastSeen = other._lLastSeen;
+            _iCount = other._iCount;
+            return;
+        }
+
+        public String getAddress() {
+            return _address;
+        }
+
+        public String getName() {
+            return _name;
+        }
+
+        /**
+         * @return the smoothed RSSI
+         */
+        public int getRssi() {
+            return _iRssi;
+        }
+
+        public long getLastSeen() {
+            return _lLastSeen;
+        }
+
+        /**
+         * @return the number of advertisements seen from this device
+         */
+        public int getCount() {
+            return _iCount;
+        }
+    }
+
+    private final Listener _listener;
+    private final HashMap<String, Sighting> _sightings = new HashMap<String, Sighting>();
+    private final List<Sighting> _changed = new ArrayList<Sighting>();
+    private volatile long _lWindow = DEFAULT_WINDOW;
+    private boolean _bFlushScheduled = false;
+
+    private long _lAdvertisements = 0;
+    private long _lBatches = 0;
+
+    private final Runnable _flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+            return;
+        }
+    };
+
+    public ScanAggregator(Listener listener) {
+        _listener = listener;
+        return;
+    }
+
+    public void setWindow(long lWindow) {
+        _lWindow = lWindow;
+        return;
+    }
+
+    /**
+     * Records one advertisement
+     *
+     * @param name
+     * @param address
+     * @param iRssi
+     * @return true if this is the first time that this address was seen
+     */
+    public boolean record(String name, String address, int iRssi) {
+        boolean bNew = false;
+        boolean bSchedule = false;
+
+        synchronized (this) {
+            _lAdvertisements++;
+
+            Sighting sighting = _sightings.get(address);
+            if (sighting == null) {
+                sighting = new Sighting(address);
+                sighting._iRssi = iRssi;
+                _sightings.put(address, sighting);
+                bNew = true;
+            } else {
+                sighting._iRssi += (iRssi - sighting._iRssi) / RSSI_SMOOTHING;
+            }
+
+            if (name != null) {
+                sighting._name = name;
+            }
+            sighting._lLastSeen = System.currentTimeMillis();
+
+            /* A device is only listed once per batch however often it is seen */
+            if (!sighting._bChanged) {
+                sighting._bChanged = true;
+                _changed.add(sighting);
+            }
+            sighting._iCount++;
+
+            if (!_bFlushScheduled) {
+                _bFlushScheduled = true;
+                bSchedule = true;
+            }
+        }
+
+        if (bSchedule) {
+            EventBus.getInstance().schedule(_flushTask, _lWindow);
+        }
+
+        return bNew;
+    }
+
+    /**
+     * Forgets every device seen so far
+     */
+    public synchronized void clear() {
+        _sightings.clear();
+        _changed.clear();
+        return;
+    }
+
+    /* ******* */
+    /* Getters */
+    /* ******* */
+    public synchronized int getDeviceCount() {
+        return _sightings.size();
+    }
+
+    public synchronized long getAdvertisementCount() {
+        return _lAdvertisements;
+    }
+
+    public synchronized long getBatchCount() {
+        return _lBatches;
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private void flush() {
+        List<Sighting> batch;
+        synchronized (this) {
+            _bFlushScheduled = false;
+            if (_changed.isEmpty()) {
+                return;
+            }
+
+            /* Hand out copies since the records keep changing */
+            batch = new ArrayList<Sighting>(_changed.size());
+            for (Sighting sighting : _changed) {
+                sighting._bChanged = false;
+                batch.add(new Sighting(sighting));
+            }
+            _changed.clear();
+            _lBatches++;
+        }
+
+        _listener.onScanBatch(batch);
+        return;
+    }
+}
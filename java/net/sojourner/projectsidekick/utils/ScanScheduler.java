@@ -0,0 +1,313 @@
+package net.sojourner.projectsidekick.utils;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import net.sojourner.projectsidekick.types.MacAddress;
+
+/**
+ * Decides how long each BLE scan runs and how long to wait before the next.
+ *
+ * While a registered device has not been seen lately, or when there are no
+ *  registered devices to look for, scans run back to back. Once every
+ *  registered device has been seen, the interval between scans doubles after
+ *  each scan, up to MAX_RELAXED_INTERVAL, and drops back as soon as one of
+ *  them goes missing. On top of that, the radio is never on for longer than
+ *  the hourly budget within any trailing hour.
+ *
+ * The scheduler does not start or stop scans itself. It reads the time from
+ *  a Clock, so it can be driven from a plain JVM without Android.
+ */
+public class ScanScheduler {
+    public interface Clock {
+        public long now();
+    }
+
+    /* Monotonic, so that changes to the wall clock do not skew the budget */
+    public static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long now() {
+            return System.nanoTime() / 1000000;
+        }
+    };
+
+    public static final long AGGRESSIVE_WINDOW = 4000;
+    public static final long AGGRESSIVE_INTERVAL = 5000;
+    public static final long RELAXED_WINDOW = 1500;
+    public static final long MIN_RELAXED_INTERVAL = 10000;
+    public static final long MAX_RELAXED_INTERVAL = 5 * 60 * 1000;
+    public static final long DEFAULT_HOURLY_BUDGET = 6 * 60 * 1000;
+
+    /* A device seen this recently is present even if the last scan missed it */
+    public static final long PRESENCE_TIMEOUT = 30000;
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    /* Scans shorter than this are skipped rather than squeezed into the budget */
+    private static final long MIN_WINDOW = 500;
+
+    public static final class Plan {
+        private final long      _lWindow;
+        private final long      _lInterval;
+        private final boolean   _bAggressive;
+
+        private Plan(long lWindow, long lInterval, boolean bAggressive) {
+            _lWindow = lWindow;
+            _lInterval = lInterval;
+            _bAggressive = bAggressive;
+            return;
+        }
+
+        /**
+         * @return how long the radio should stay on, or zero to skip this scan
+         */
+        public long getWindow() {
+            return _lWindow;
+        }
+
+        /**
+         * @return time from the start of this scan to the start of the next
+         */
+        public long getInterval() {
+            return _lInterval;
+        }
+
+        public boolean isAggressive() {
+            return _bAggressive;
+        }
+    }
+
+    private final Clock _clock;
+    private final long _lHourlyBudget;
+
+    /* Last sighting of each registered device; null if not seen yet */
+    private final HashMap<MacAddress, Long> _lastSeen = new HashMap<MacAddress, Long>();
+
+    /* Completed scans which overlap the trailing hour, oldest first, as {start, end} */
+    private final ArrayDeque<long[]> _scans = new ArrayDeque<long[]>();
+
+    private boolean _bHasScanned = false;
+    private boolean _bScanning = false;
+    private long _lScanStart = 0;
+    private long _lLastScanStart = 0;
+    private long _lRelaxedInterval = MIN_RELAXED_INTERVAL;
+
+    private long _lFirstScanStart = 0;
+    private long _lTotalOnTime = 0;
+    private long _lSkipped = 0;
+
+    public ScanScheduler() {
+        this(SYSTEM_CLOCK, DEFAULT_HOURLY_BUDGET);
+        return;
+    }
+
+    public ScanScheduler(Clock clock, long lHourlyBudget) {
+        _clock = clock;
+        _lHourlyBudget = lHourlyBudget;
+        return;
+    }
+
+    /**
+     * Sets the devices to look out for. Sightings of devices that remain
+     *  registered are kept.
+     */
+    public synchronized void setRegisteredDevices(Collection<MacAddress> devices) {
+        HashMap<MacAddress, Long> lastSeen = new HashMap<MacAddress, Long>(_lastSeen);
+        _lastSeen.clear();
+        for (MacAddress mac : devices) {
+            _lastSeen.put(mac, lastSeen.get(mac));
+        }
+
+        _lRelaxedInterval = MIN_RELAXED_INTERVAL;
+        return;
+    }
+
+    /**
+     * Records a sighting. Devices which are not registered are ignored.
+     */
+    public synchronized void onDeviceSeen(MacAddress mac) {
+        if (_lastSeen.containsKey(mac)) {
+            _lastSeen.put(mac, _clock.now());
+        }
+        return;
+    }
+
+    /**
+     * @return the plan for the scan that is about to start
+     */
+    public synchronized Plan next() {
+        long lNow = _clock.now();
+
+        long lWindow;
+        long lInterval;
+        boolean bAggressive = isAnyMissing(lNow);
+        if (bAggressive) {
+            lWindow = AGGRESSIVE_WINDOW;
+            lInterval = AGGRESSIVE_INTERVAL;
+            _lRelaxedInterval = MIN_RELAXED_INTERVAL;
+        } else {
+            lWindow = RELAXED_WINDOW;
+            lInterval = _lRelaxedInterval;
+            _lRelaxedInterval = Math.min(_lRelaxedInterval * 2, MAX_RELAXED_INTERVAL);
+        }
+
+        /* Shorten the scan to what is left of the budget, or skip it and wait
+         *  until the oldest scan ages out of the trailing hour */
+        long lRemaining = _lHourlyBudget - getOnTime(lNow);
+        if (lWindow > lRemaining) {
+            lWindow = lRemaining;
+        }
+
+        if (lWindow < MIN_WINDOW) {
+            lWindow = 0;
+            if (!_scans.isEmpty()) {
+                long lFreed = _scans.peekFirst()[1] + HOUR - lNow;
+                lInterval = Math.max(lInterval, Math.max(lFreed, MIN_WINDOW));
+            }
+            _lSkipped++;
+        }
+
+        return new Plan(lWindow, lInterval, bAggressive);
+    }
+
+    public synchronized void onScanStarted() {
+        if (_bScanning) {
+            return;
+        }
+
+        _lScanStart = _clock.now();
+        if (!_bHasScanned) {
+            _lFirstScanStart = _lScanStart;
+            _bHasScanned = true;
+        }
+        _bScanning = true;
+
+        return;
+    }
+
+    public synchronized void onScanStopped() {
+        if (!_bScanning) {
+            return;
+        }
+
+        long lNow = _clock.now();
+        _scans.addLast(new long[] { _lScanStart, lNow });
+        _lTotalOnTime += lNow - _lScanStart;
+        _lLastScanStart = _lScanStart;
+        _bScanning = false;
+
+        return;
+    }
+
+    /* ******* */
+    /* Getters */
+    /* ******* */
+    /**
+     * @return radio-on time within the trailing hour, in milliseconds
+     */
+    public synchronized long getRadioOnTime() {
+        return getOnTime(_clock.now());
+    }
+
+    /**
+     * @return the fraction of the trailing hour, or of the time since the
+     *  first scan if that is shorter, during which the radio was on
+     */
+    public synchronized float getDutyCycle() {
+        if (!_bHasScanned) {
+            return 0.0f;
+        }
+
+        long lNow = _clock.now();
+        long lElapsed = Math.min(lNow - _lFirstScanStart, HOUR);
+        if (lElapsed <= 0) {
+            return 0.0f;
+        }
+
+        return (float) getOnTime(lNow) / lElapsed;
+    }
+
+    /**
+     * @return the fraction of time since the first scan during which the
+     *  radio was on
+     */
+    public synchronized float getTotalDutyCycle() {
+        if (!_bHasScanned) {
+            return 0.0f;
+        }
+
+        long lNow = _clock.now();
+        long lElapsed = lNow - _lFirstScanStart;
+        if (lElapsed <= 0) {
+            return 0.0f;
+        }
+
+        long lOnTime = _lTotalOnTime;
+        if (_bScanning) {
+            lOnTime += lNow - _lScanStart;
+        }
+
+        return (float) lOnTime / lElapsed;
+    }
+
+    /**
+     * @return the number of scans skipped because the budget was used up
+     */
+    public synchronized long getSkippedCount() {
+        return _lSkipped;
+    }
+
+    public long getHourlyBudget() {
+        return _lHourlyBudget;
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private boolean isAnyMissing(long lNow) {
+        if (_lastSeen.isEmpty()) {
+            return true;
+        }
+
+        for (Long lSeen : _lastSeen.values()) {
+            if (lSeen == null) {
+                return true;
+            }
+
+            boolean bSeenInLastScan = _bHasScanned && (lSeen >= _lLastScanStart);
+            if (!bSeenInLastScan && ((lNow - lSeen) > PRESENCE_TIMEOUT)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Drops scans that ended more than an hour ago and adds up the part of
+     *  the rest that falls within the trailing hour, including any scan
+     *  still running
+     */
+    private long getOnTime(long lNow) {
+        long lHourStart = lNow - HOUR;
+        long lOnTime = 0;
+
+        Iterator<long[]> iter = _scans.iterator();
+        while (iter.hasNext()) {
+            long scan[] = iter.next();
+            if (scan[1] <= lHourStart) {
+                iter.remove();
+                continue;
+            }
+            lOnTime += scan[1] - Math.max(scan[0], lHourStart);
+        }
+
+        if (_bScanning) {
+            lOnTime += lNow - Math.max(_lScanStart, lHourStart);
+        }
+
+        return lOnTime;
+    }
+}
@@ -0,0 +1,77 @@
+package net.sojourner.projectsidekick.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per request type counters for outbound traffic: the number of requests
+ *  sent, the total bytes they took on the air and the number of radio
+ *  writes (chunks) needed to send them.
+ *
+ * Request types are identified by name and are kept in the order they were
+ *  first seen. All methods are thread-safe.
+ */
+public class TxStatistics {
+    private final List<String>  _types      = new ArrayList<String>();
+    private final List<long[]>  _counters   = new ArrayList<long[]>();
+
+    private static final int IDX_REQUESTS   = 0;
+    private static final int IDX_BYTES      = 1;
+    private static final int IDX_CHUNKS     = 2;
+    private static final int NUM_COUNTERS   = 3;
+
+    public synchronized void record(String type, int iBytes, int iChunks) {
+        long counters[] = getCounters(type);
+        counters[IDX_REQUESTS]++;
+        counters[IDX_BYTES] += iBytes;
+        counters[IDX_CHUNKS] += iChunks;
+        return;
+    }
+
+    public synchronized void clear() {
+        _types.clear();
+        _counters.clear();
+        return;
+    }
+
+    public synchronized String[] getTypes() {
+        return _types.toArray(new String[_types.size()]);
+    }
+
+    public synchronized long[] getRequestCounts() {
+        return collect(IDX_REQUESTS);
+    }
+
+    public synchronized long[] getByteCounts() {
+        return collect(IDX_BYTES);
+    }
+
+    public synchronized long[] getChunkCounts() {
+        return collect(IDX_CHUNKS);
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private long[] getCounters(String type) {
+        /* There are only a handful of request types so a linear scan is enough */
+        int iIdx = _types.indexOf(type);
+        if (iIdx >= 0) {
+            return _counters.get(iIdx);
+        }
+
+        long counters[] = new long[NUM_COUNTERS];
+        _types.add(type);
+        _counters.add(counters);
+
+        return counters;
+    }
+
+    private long[] collect(int iCounter) {
+        long values[] = new long[_counters.size()];
+        for (int iIdx = 0; iIdx < values.length; iIdx++) {
+            values[iIdx] = _counters.get(iIdx)[iCounter];
+        }
+        return values;
+    }
+}
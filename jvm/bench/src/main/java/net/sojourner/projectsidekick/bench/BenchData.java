@@ -0,0 +1,118 @@
+package net.sojourner.projectsidekick.bench;
+
+import java.nio.charset.StandardCharsets;
+
+import net.sojourner.projectsidekick.types.MasterListItem;
+import net.sojourner.projectsidekick.utils.SKUtils;
+
+/**
+ * Builds the device names, addresses and frames the benchmarks run on.
+ *  Device iIdx always gets the same name and address, so results can be
+ *  compared between runs.
+ */
+final class BenchData {
+    private static final char HEX[] = "0123456789ABCDEF".toCharArray();
+
+    private BenchData() {
+        return;
+    }
+
+    static String name(int iIdx) {
+        return "Sidekick " + iIdx;
+    }
+
+    static String address(int iIdx) {
+        return String.format("5C:F8:21:%02X:%02X:%02X",
+                (iIdx >> 16) & 0xFF, (iIdx >> 8) & 0xFF, iIdx & 0xFF);
+    }
+
+    static boolean isGuarded(int iIdx) {
+        return (iIdx % 2) == 0;
+    }
+
+    /**
+     * @return one master list item per device, with ids from 1 to 9 the way
+     *  a SIDEKICK hands them out in ASCII
+     */
+    static MasterListItem[] items(int iCount) {
+        MasterListItem items[] = new MasterListItem[iCount];
+        for (int iIdx = 0; iIdx < iCount; iIdx++) {
+            items[iIdx] = new MasterListItem(id(iIdx), name(iIdx), address(iIdx),
+                    isGuarded(iIdx));
+        }
+        return items;
+    }
+
+    /**
+     * @return the item strings MasterListItem.parse() takes
+     *
+     *  Format: "<id>|<device name>|<address>|<guardStatus>"
+     */
+    static String[] itemStrings(int iCount) {
+        String itemStrs[] = new String[iCount];
+        for (int iIdx = 0; iIdx < iCount; iIdx++) {
+            itemStrs[iIdx] = id(iIdx) + "|" + name(iIdx) + "|" + address(iIdx) + "|" +
+                    (isGuarded(iIdx) ? "Guarded" : "Not Guarded");
+        }
+        return itemStrs;
+    }
+
+    /**
+     * @return a complete RLST frame listing iCount devices with space padded
+     *  names
+     */
+    static byte[] deviceListFrame(int iCount) {
+        StringBuilder frame = new StringBuilder("RLST");
+        for (int iIdx = 0; iIdx < iCount; iIdx++) {
+            if (iIdx > 0) {
+                frame.append(',');
+            }
+            frame.append((char) ('0' + id(iIdx)));
+            frame.append(isGuarded(iIdx) ? "1" : "00");
+            appendHex(frame, SKUtils.compressDeviceName(name(iIdx)));
+            appendHex(frame, SKUtils.compressDeviceAddress(address(iIdx)));
+        }
+        frame.append(';');
+
+        return ascii(frame.toString());
+    }
+
+    /**
+     * @return one RATO report frame per device
+     *
+     *  Format: "RATO<channel>,<sync time secs>,<max wait time>;"
+     */
+    static byte[][] reportFrames(int iCount) {
+        byte frames[][] = new byte[iCount][];
+        for (int iIdx = 0; iIdx < iCount; iIdx++) {
+            frames[iIdx] = ascii("RATO" + ((iIdx % 8) + 1) + "," + (iIdx % 30) + ",60000;");
+        }
+        return frames;
+    }
+
+    static byte[] ascii(String str) {
+        return str.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static void check(boolean bCondition, String msg) {
+        if (!bCondition) {
+            throw new IllegalStateException(msg);
+        }
+        return;
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private static int id(int iIdx) {
+        return (iIdx % 9) + 1;
+    }
+
+    private static void appendHex(StringBuilder frame, String str) {
+        for (int iIdx = 0; iIdx < str.length(); iIdx++) {
+            char c = str.charAt(iIdx);
+            frame.append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+        }
+        return;
+    }
+}
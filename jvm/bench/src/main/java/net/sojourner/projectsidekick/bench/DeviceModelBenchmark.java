@@ -0,0 +1,110 @@
+package net.sojourner.projectsidekick.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sojourner.projectsidekick.types.KnownDevice;
+import net.sojourner.projectsidekick.types.MasterListItem;
+import net.sojourner.projectsidekick.utils.Logger;
+
+/**
+ * The device model operations the app runs over its whole device list.
+ *  Each benchmark handles the whole set of iDeviceCount devices per
+ *  invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeviceModelBenchmark {
+    @Param({ "1", "16", "64", "255" })
+    public int iDeviceCount;
+
+    private KnownDevice _knownDevices[] = null;
+    private String _addresses[] = null;
+    private String _itemStrs[] = null;
+    private MasterListItem _items[] = null;
+
+    @Setup
+    public void setUp() {
+        Logger.setLogcatEnabled(false);
+
+        _knownDevices = new KnownDevice[iDeviceCount];
+        _addresses = new String[iDeviceCount];
+        for (int iIdx = 0; iIdx < iDeviceCount; iIdx++) {
+            _knownDevices[iIdx] = new KnownDevice(BenchData.name(iIdx), BenchData.address(iIdx));
+            _addresses[iIdx] = BenchData.address(iIdx);
+        }
+        _itemStrs = BenchData.itemStrings(iDeviceCount);
+        _items = BenchData.items(iDeviceCount);
+
+        /* Make sure the fixtures match the way the benchmarks expect */
+        BenchData.check(findKnownDevice(_addresses[iDeviceCount - 1]) != null,
+                "Known device not found");
+        for (String itemStr : _itemStrs) {
+            BenchData.check(MasterListItem.parse(itemStr) != null, "Item did not parse");
+        }
+
+        return;
+    }
+
+    /**
+     * Looks every address up in the known device list the way
+     *  ProjectSidekickApp does, so the number of matches tried grows with the
+     *  square of the device count
+     */
+    @Benchmark
+    public void addressMatches(Blackhole bh) {
+        for (String address : _addresses) {
+            bh.consume(findKnownDevice(address));
+        }
+        return;
+    }
+
+    @Benchmark
+    public void parseMasterListItem(Blackhole bh) {
+        for (String itemStr : _itemStrs) {
+            bh.consume(MasterListItem.parse(itemStr));
+        }
+        return;
+    }
+
+    /**
+     * Same loop as MasterListAdapter.getGuardSetup(), which cannot run
+     *  without Android
+     */
+    @Benchmark
+    public String getGuardSetup() {
+        StringBuilder guardStr = new StringBuilder(_items.length * 4);
+        for (MasterListItem item : _items) {
+            item.appendGuardSetup(guardStr);
+        }
+        return guardStr.toString();
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private KnownDevice findKnownDevice(String address) {
+        for (KnownDevice kd : _knownDevices) {
+            if (kd.addressMatches(address)) {
+                return kd;
+            }
+        }
+        return null;
+    }
+}
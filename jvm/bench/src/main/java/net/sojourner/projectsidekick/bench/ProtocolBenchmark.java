@@ -0,0 +1,100 @@
+package net.sojourner.projectsidekick.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sojourner.projectsidekick.types.PSStatus;
+import net.sojourner.projectsidekick.types.ReportModeInfo;
+import net.sojourner.projectsidekick.utils.FrameCodec;
+import net.sojourner.projectsidekick.utils.Logger;
+import net.sojourner.projectsidekick.utils.SKUtils;
+
+/**
+ * The SKUtils helpers that run for every frame or device. Each benchmark
+ *  handles the whole set of iDeviceCount devices per invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark {
+    @Param({ "1", "16", "64", "255" })
+    public int iDeviceCount;
+
+    private byte _listFrame[] = null;
+    private byte _reportFrames[][] = null;
+    private String _names[] = null;
+    private String _compressedAddrs[] = null;
+    private ReportModeInfo _reportInfo = null;
+
+    @Setup
+    public void setUp() {
+        Logger.setLogcatEnabled(false);
+
+        _listFrame = BenchData.deviceListFrame(iDeviceCount);
+        _reportFrames = BenchData.reportFrames(iDeviceCount);
+        _names = new String[iDeviceCount];
+        _compressedAddrs = new String[iDeviceCount];
+        for (int iIdx = 0; iIdx < iDeviceCount; iIdx++) {
+            _names[iIdx] = BenchData.name(iIdx);
+            _compressedAddrs[iIdx] = SKUtils.compressDeviceAddress(BenchData.address(iIdx));
+        }
+        _reportInfo = new ReportModeInfo(0, 0, 0);
+
+        /* Make sure the fixtures decode the way the benchmarks expect */
+        String list = SKUtils.decodeBinaryDeviceList(_listFrame, FrameCodec.PREFIX_LEN);
+        BenchData.check(list.split(",").length == iDeviceCount, "Device list did not decode");
+        BenchData.check(list.contains(BenchData.address(iDeviceCount - 1)),
+                "Device address did not decode");
+        for (byte frame[] : _reportFrames) {
+            BenchData.check(SKUtils.updateReportParams(_reportInfo, frame,
+                    FrameCodec.PREFIX_LEN, frame.length) == PSStatus.OK, "Report did not parse");
+        }
+
+        return;
+    }
+
+    @Benchmark
+    public String decodeBinaryDeviceList() {
+        return SKUtils.decodeBinaryDeviceList(_listFrame, FrameCodec.PREFIX_LEN);
+    }
+
+    @Benchmark
+    public void updateReportParams(Blackhole bh) {
+        for (byte frame[] : _reportFrames) {
+            bh.consume(SKUtils.updateReportParams(_reportInfo, frame, FrameCodec.PREFIX_LEN,
+                    frame.length));
+        }
+        return;
+    }
+
+    @Benchmark
+    public void compressDeviceName(Blackhole bh) {
+        for (String name : _names) {
+            bh.consume(SKUtils.compressDeviceName(name));
+        }
+        return;
+    }
+
+    @Benchmark
+    public void restoreDeviceAddress(Blackhole bh) {
+        for (String addr : _compressedAddrs) {
+            bh.consume(SKUtils.restoreDeviceAddress(addr));
+        }
+        return;
+    }
+}
@@ -0,0 +1,30 @@
+package android.util;
+
+/**
+ * Stand-in for the Android logger so that Logger can be used on a plain
+ *  JVM. Only what Logger needs is provided; messages go to stderr.
+ */
+public final class Log {
+    public static final int VERBOSE = 2;
+    public static final int DEBUG   = 3;
+    public static final int INFO    = 4;
+    public static final int WARN    = 5;
+    public static final int ERROR   = 6;
+    public static final int ASSERT  = 7;
+
+    private static final String LEVEL_NAMES = "??VDIWEA";
+
+    private Log() {
+        return;
+    }
+
+    public static int println(int iPriority, String tag, String msg) {
+        char cLevel = '?';
+        if ((iPriority >= 0) && (iPriority < LEVEL_NAMES.length())) {
+            cLevel = LEVEL_NAMES.charAt(iPriority);
+        }
+
+        System.err.println(cLevel + "/" + tag + ": " + msg);
+        return msg.length();
+    }
+}
@@ -0,0 +1,422 @@
+package net.sojourner.projectsidekick.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import net.sojourner.projectsidekick.types.PSStatus;
+import net.sojourner.projectsidekick.types.ReportModeInfo;
+
+public class FrameCodecTest {
+    /* Every response prefix handled by ProjectSidekickService, with its v2 opcode */
+    private static final Object RESPONSES[][] = {
+        { "RREG", FrameCodec.RES_REGISTER,       ProtocolV2.OP_REGISTER },
+        { "RLST", FrameCodec.RES_GET_LIST,       ProtocolV2.OP_GET_LIST },
+        { "RNME", FrameCodec.RES_SET_NAME,       ProtocolV2.OP_SET_NAME },
+        { "RDEL", FrameCodec.RES_DELETE,         ProtocolV2.OP_DELETE },
+        { "RGSL", FrameCodec.RES_GUARD_THEF_SET, ProtocolV2.OP_GUARD_THEF_SET },
+        { "RATM", FrameCodec.RES_GUARD_THEF,     ProtocolV2.OP_GUARD_THEF },
+        { "RATO", FrameCodec.RES_REPORT_THEF,    ProtocolV2.OP_REPORT_THEF },
+        { "RALS", FrameCodec.RES_GUARD_LOSS_SET, ProtocolV2.OP_GUARD_LOSS_SET },
+        { "RALM", FrameCodec.RES_GUARD_LOSS,     ProtocolV2.OP_GUARD_LOSS },
+        { "RALO", FrameCodec.RES_REPORT_LOSS,    ProtocolV2.OP_REPORT_LOSS },
+        { "RMAL", FrameCodec.RES_TRIGGER_ALARM,  ProtocolV2.OP_TRIGGER_ALARM },
+        { "RRED", FrameCodec.RES_SK_TRIG_ALARM,  ProtocolV2.OP_SK_TRIG_ALARM },
+    };
+
+    /* ******** */
+    /* Prefixes */
+    /* ******** */
+    @Test
+    public void readsEveryAsciiResponsePrefix() {
+        FrameCodec codec = new FrameCodec();
+        for (Object response[] : RESPONSES) {
+            codec.wrap(ascii(response[0] + "0;"));
+
+            assertEquals((String) response[0], response[1], codec.readPrefix());
+            assertEquals(PendingRequestTable.SEQ_NONE, codec.getSequence());
+            assertEquals(0, codec.readInt());
+            assertTrue(codec.readTerminator());
+            assertFalse(codec.hasError());
+        }
+        return;
+    }
+
+    @Test
+    public void packedPrefixesRoundTrip() {
+        for (Object response[] : RESPONSES) {
+            String prefix = (String) response[0];
+            assertEquals(response[1], FrameCodec.packPrefix(prefix));
+            assertEquals(prefix, FrameCodec.prefixToString((Integer) response[1]));
+        }
+        return;
+    }
+
+    @Test
+    public void mapsEveryV2OpcodeToItsPrefix() {
+        FrameCodec codec = new FrameCodec();
+        for (Object response[] : RESPONSES) {
+            int iOpcode = ProtocolV2.OPCODE_RESPONSE | (Integer) response[2];
+            codec.wrap(frame(new byte[] { (byte) iOpcode }, "1;"));
+
+            assertEquals((String) response[0], response[1], codec.readPrefix());
+            assertEquals(PendingRequestTable.SEQ_NONE, codec.getSequence());
+            assertEquals(1, codec.getPosition());
+            assertEquals(1, codec.readInt());
+            assertTrue(codec.readTerminator());
+            assertFalse(codec.hasError());
+        }
+        return;
+    }
+
+    @Test
+    public void readsV2SequenceByte() {
+        FrameCodec codec = new FrameCodec();
+        for (Object response[] : RESPONSES) {
+            int iOpcode = ProtocolV2.OPCODE_RESPONSE | ProtocolV2.OPCODE_SEQ |
+                    (Integer) response[2];
+            codec.wrap(frame(new byte[] { (byte) iOpcode, (byte) 0xC8 }, "0;"));
+
+            assertEquals((String) response[0], response[1], codec.readPrefix());
+            assertEquals(200, codec.getSequence());
+            assertEquals(2, codec.getPosition());
+            assertEquals(0, codec.readInt());
+            assertTrue(codec.readTerminator());
+            assertFalse(codec.hasError());
+        }
+        return;
+    }
+
+    @Test
+    public void unknownV2OpcodeHasNoPrefix() {
+        FrameCodec codec = new FrameCodec(new byte[] {
+            (byte) (ProtocolV2.OPCODE_RESPONSE | ProtocolV2.OPCODE_MASK), '0', ';'
+        });
+
+        assertEquals(FrameCodec.PREFIX_NONE, codec.readPrefix());
+        assertFalse(codec.hasError());
+        return;
+    }
+
+    @Test
+    public void rewrapClearsSequence() {
+        FrameCodec codec = new FrameCodec();
+        codec.wrap(new byte[] {
+            (byte) (ProtocolV2.OPCODE_RESPONSE | ProtocolV2.OPCODE_SEQ | ProtocolV2.OP_DELETE), 7
+        });
+        codec.readPrefix();
+        assertEquals(7, codec.getSequence());
+
+        codec.wrap(ascii("RDEL0;"));
+        assertEquals(PendingRequestTable.SEQ_NONE, codec.getSequence());
+        return;
+    }
+
+    /* ****** */
+    /* Fields */
+    /* ****** */
+    @Test
+    public void readsReportParams() {
+        FrameCodec codec = new FrameCodec(ascii("RATO 3, 15 ,-60000 ;"));
+
+        assertEquals(FrameCodec.RES_REPORT_THEF, codec.readPrefix());
+        assertEquals(3, codec.readInt());
+        assertTrue(codec.readDelimiter());
+        assertEquals(15, codec.readInt());
+        assertTrue(codec.readDelimiter());
+        assertEquals(-60000L, codec.readLong());
+        assertTrue(codec.readTerminator());
+        assertFalse(codec.hasRemaining());
+        assertFalse(codec.hasError());
+        return;
+    }
+
+    @Test
+    public void readsLongLimits() {
+        FrameCodec codec = new FrameCodec(ascii(Long.MAX_VALUE + "," + Long.MIN_VALUE + ";"));
+
+        assertEquals(Long.MAX_VALUE, codec.readLong());
+        assertTrue(codec.readDelimiter());
+        assertEquals(Long.MIN_VALUE, codec.readLong());
+        assertTrue(codec.readTerminator());
+        assertFalse(codec.hasError());
+        return;
+    }
+
+    @Test
+    public void honoursOffsetAndLength() {
+        byte data[] = ascii("xxRDEL5;yy");
+        FrameCodec codec = new FrameCodec().wrap(data, 2, 6);
+
+        assertEquals(FrameCodec.RES_DELETE, codec.readPrefix());
+        assertEquals(5, codec.readInt());
+        assertEquals(5, codec.indexOfTerminator());
+        assertTrue(codec.atTerminator());
+        assertTrue(codec.readTerminator());
+        assertFalse(codec.hasRemaining());
+        assertEquals(-1, codec.peek());
+        return;
+    }
+
+    @Test
+    public void readsRemainingBytesOfByteBuffer() {
+        ByteBuffer buffer = ByteBuffer.wrap(ascii("..RGSL1;"));
+        buffer.position(2);
+        FrameCodec codec = new FrameCodec().wrap(buffer);
+
+        assertEquals(FrameCodec.RES_GUARD_THEF_SET, codec.readPrefix());
+        assertEquals(1, codec.readInt());
+        assertTrue(codec.readTerminator());
+        assertEquals(2, buffer.position());
+        return;
+    }
+
+    /* *********************** */
+    /* Malformed and Truncated */
+    /* *********************** */
+    @Test
+    public void truncatedPrefixIsUnderflow() {
+        FrameCodec codec = new FrameCodec(ascii("RRE"));
+
+        assertEquals(FrameCodec.PREFIX_NONE, codec.readPrefix());
+        assertError(codec, FrameCodec.ERR_UNDERFLOW, 0);
+        return;
+    }
+
+    @Test
+    public void missingSequenceByteIsUnderflow() {
+        FrameCodec codec = new FrameCodec(new byte[] {
+            (byte) (ProtocolV2.OPCODE_RESPONSE | ProtocolV2.OPCODE_SEQ | ProtocolV2.OP_REGISTER)
+        });
+
+        assertEquals(FrameCodec.PREFIX_NONE, codec.readPrefix());
+        assertEquals(PendingRequestTable.SEQ_NONE, codec.getSequence());
+        assertError(codec, FrameCodec.ERR_UNDERFLOW, 1);
+        return;
+    }
+
+    @Test
+    public void truncatedFieldIsUnderflow() {
+        FrameCodec codec = new FrameCodec(ascii("RATO3,"));
+
+        codec.readPrefix();
+        assertEquals(3, codec.readInt());
+        assertTrue(codec.readDelimiter());
+        assertEquals(0, codec.readInt());
+        assertError(codec, FrameCodec.ERR_UNDERFLOW, 6);
+        return;
+    }
+
+    @Test
+    public void nonDigitIsBadDigit() {
+        FrameCodec codec = new FrameCodec(ascii("RATOx;"));
+
+        codec.readPrefix();
+        assertEquals(0, codec.readInt());
+        assertError(codec, FrameCodec.ERR_BAD_DIGIT, 4);
+        return;
+    }
+
+    @Test
+    public void loneMinusIsBadDigit() {
+        FrameCodec codec = new FrameCodec(ascii("-;"));
+
+        assertEquals(0, codec.readLong());
+        assertError(codec, FrameCodec.ERR_BAD_DIGIT, 1);
+        return;
+    }
+
+    @Test
+    public void wrongSeparatorIsBadDelimiter() {
+        FrameCodec codec = new FrameCodec(ascii("3;15;"));
+
+        assertEquals(3, codec.readInt());
+        assertFalse(codec.readDelimiter());
+        assertError(codec, FrameCodec.ERR_BAD_DELIM, 1);
+        return;
+    }
+
+    @Test
+    public void missingTerminatorIsReported() {
+        FrameCodec codec = new FrameCodec(ascii("RDEL0"));
+
+        codec.readPrefix();
+        assertEquals(0, codec.readInt());
+        assertEquals(-1, codec.indexOfTerminator());
+        assertFalse(codec.readTerminator());
+        assertError(codec, FrameCodec.ERR_NO_TERM, 5);
+        return;
+    }
+
+    @Test
+    public void intOutOfRangeIsOverflow() {
+        FrameCodec codec = new FrameCodec(ascii("2147483648;"));
+
+        assertEquals(0, codec.readInt());
+        assertEquals(FrameCodec.ERR_OVERFLOW, codec.getError());
+        return;
+    }
+
+    @Test
+    public void longOutOfRangeIsOverflow() {
+        FrameCodec codec = new FrameCodec(ascii("9223372036854775808;"));
+
+        assertEquals(0, codec.readLong());
+        assertEquals(FrameCodec.ERR_OVERFLOW, codec.getError());
+
+        codec.wrap(ascii("-9223372036854775809;"));
+        assertEquals(0, codec.readLong());
+        assertEquals(FrameCodec.ERR_OVERFLOW, codec.getError());
+        return;
+    }
+
+    @Test
+    public void invalidBuffersAreBadBuffer() {
+        FrameCodec codec = new FrameCodec();
+
+        codec.wrap((byte[]) null);
+        assertError(codec, FrameCodec.ERR_BAD_BUFFER, 0);
+
+        codec.wrap(new byte[4], 2, 3);
+        assertError(codec, FrameCodec.ERR_BAD_BUFFER, 0);
+
+        codec.wrap(new byte[4], -1, 2);
+        assertError(codec, FrameCodec.ERR_BAD_BUFFER, 0);
+
+        codec.wrap(ByteBuffer.allocateDirect(4));
+        assertError(codec, FrameCodec.ERR_BAD_BUFFER, 0);
+        assertEquals(FrameCodec.PREFIX_NONE, codec.readPrefix());
+        return;
+    }
+
+    @Test
+    public void skipAndSetPositionPastEndAreUnderflow() {
+        FrameCodec codec = new FrameCodec(ascii("RDEL"));
+
+        /* A short skip moves to the end of the frame before failing */
+        codec.skip(5);
+        assertError(codec, FrameCodec.ERR_UNDERFLOW, 4);
+        assertFalse(codec.hasRemaining());
+
+        codec.clearError();
+        codec.setPosition(0);
+        codec.setPosition(5);
+        assertError(codec, FrameCodec.ERR_UNDERFLOW, 0);
+        return;
+    }
+
+    /* *************** */
+    /* Error Reporting */
+    /* *************** */
+    @Test
+    public void firstErrorIsLatched() {
+        FrameCodec codec = new FrameCodec(ascii("RATO3x,15;"));
+
+        codec.readPrefix();
+        assertEquals(3, codec.readInt());
+        assertFalse(codec.readDelimiter());
+
+        /* Later reads return defaults and do not replace the first error */
+        assertEquals(0, codec.readInt());
+        assertEquals(0L, codec.readLong());
+        assertEquals(-1, codec.readByte());
+        assertFalse(codec.readTerminator());
+        assertEquals(FrameCodec.PREFIX_NONE, codec.readPrefix());
+        assertError(codec, FrameCodec.ERR_BAD_DELIM, 5);
+        return;
+    }
+
+    @Test
+    public void clearErrorAllowsReadingOn() {
+        FrameCodec codec = new FrameCodec(ascii("x1;"));
+
+        assertEquals(0, codec.readInt());
+        assertTrue(codec.hasError());
+
+        codec.clearError();
+        codec.skip(1);
+        assertEquals(1, codec.readInt());
+        assertTrue(codec.readTerminator());
+        assertFalse(codec.hasError());
+        assertEquals(-1, codec.getErrorPosition());
+        return;
+    }
+
+    @Test
+    public void rewrapClearsError() {
+        FrameCodec codec = new FrameCodec(ascii("RR"));
+        codec.readPrefix();
+        assertTrue(codec.hasError());
+
+        codec.wrap(ascii("RREG2;"));
+        assertFalse(codec.hasError());
+        assertEquals(FrameCodec.ERR_NONE, codec.getError());
+        assertEquals(FrameCodec.RES_REGISTER, codec.readPrefix());
+        return;
+    }
+
+    /* ************** */
+    /* Report Updates */
+    /* ************** */
+    @Test
+    public void updatesReportParams() {
+        ReportModeInfo info = new ReportModeInfo(0, 0, 0);
+        byte data[] = ascii("RATO2,0,45000;");
+
+        long lBefore = System.currentTimeMillis();
+        assertEquals(PSStatus.OK,
+                SKUtils.updateReportParams(info, data, FrameCodec.PREFIX_LEN, data.length));
+
+        assertEquals(2, info.getChannel());
+        assertEquals(45000L, info.getMaxWaitTime());
+
+        /* Sync time is clamped to one second, then offset by the channel window */
+        long lExpected = 1000 + SKUtils.calculateChannelWindow(2);
+        assertTrue(info.getSyncTime() >= lBefore + lExpected);
+        assertTrue(info.getSyncTime() <= System.currentTimeMillis() + lExpected);
+        return;
+    }
+
+    @Test
+    public void malformedReportParamsLeaveInfoUntouched() {
+        ReportModeInfo info = new ReportModeInfo(5, 60000, 123);
+        byte data[] = ascii("RATO2,,45000;");
+
+        assertEquals(PSStatus.FAILED,
+                SKUtils.updateReportParams(info, data, FrameCodec.PREFIX_LEN, data.length));
+        assertEquals(PSStatus.FAILED,
+                SKUtils.updateReportParams(info, data, data.length + 1, data.length));
+
+        assertEquals(5, info.getChannel());
+        assertEquals(60000L, info.getMaxWaitTime());
+        assertEquals(123L, info.getSyncTime());
+        return;
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+    private static void assertError(FrameCodec codec, int iError, int iPos) {
+        assertTrue(codec.hasError());
+        assertEquals(iError, codec.getError());
+        assertEquals(iPos, codec.getErrorPosition());
+        return;
+    }
+
+    private static byte[] ascii(String str) {
+        return str.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] frame(byte header[], String payload) {
+        byte body[] = ascii(payload);
+        byte data[] = new byte[header.length + body.length];
+        System.arraycopy(header, 0, data, 0, header.length);
+        System.arraycopy(body, 0, data, header.length, body.length);
+        return data;
+    }
+}
@@ -0,0 +1,69 @@
+package net.sojourner.projectsidekick.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sojourner.projectsidekick.types.MacAddress;
+import net.sojourner.projectsidekick.types.PendingRequest;
+
+public class PendingRequestTableTest {
+    private static final long TIMEOUT = 5000;
+    private static final int PREFIX = 0x524C5354;
+
+    private static final MacAddress DEVICE_A = MacAddress.parse("00:11:22:33:44:55");
+    private static final MacAddress DEVICE_B = MacAddress.parse("66:77:88:99:AA:BB");
+
+    private PendingRequestTable _table = null;
+
+    @Before
+    public void setUp() {
+        _table = new PendingRequestTable();
+        return;
+    }
+
+    @Test
+    public void matchesUnsequencedResponsesOnlyOnTheirOwnLink() {
+        PendingRequest reqA = _table.add("LIST", DEVICE_A, PREFIX, TIMEOUT);
+        PendingRequest reqB = _table.add("LIST", DEVICE_B, PREFIX, TIMEOUT);
+
+        assertSame(reqB, _table.take(DEVICE_B, PREFIX, PendingRequestTable.SEQ_NONE));
+        assertNull(_table.take(DEVICE_B, PREFIX, PendingRequestTable.SEQ_NONE));
+        assertSame(reqA, _table.take(DEVICE_A.reverse(), PREFIX, PendingRequestTable.SEQ_NONE));
+        return;
+    }
+
+    @Test
+    public void matchesSequencedResponsesOnlyOnTheirOwnLink() {
+        PendingRequest reqA = _table.add("LIST", DEVICE_A, PREFIX, TIMEOUT);
+
+        assertNull(_table.take(DEVICE_B, PREFIX, reqA.getSequence()));
+        assertSame(reqA, _table.take(DEVICE_A, PREFIX, reqA.getSequence()));
+        return;
+    }
+
+    @Test
+    public void matchesBroadcastRequestsOnAnyLink() {
+        PendingRequest req = _table.add("REPORT", null, PREFIX, TIMEOUT);
+
+        assertSame(req, _table.take(DEVICE_B, PREFIX, PendingRequestTable.SEQ_NONE));
+        return;
+    }
+
+    @Test
+    public void cancelsOnlyTheRequestsOfTheDroppedLink() {
+        PendingRequest reqA = _table.add("LIST", DEVICE_A, PREFIX, TIMEOUT);
+        PendingRequest reqB = _table.add("LIST", DEVICE_B, PREFIX, TIMEOUT);
+        PendingRequest broadcast = _table.add("REPORT", null, PREFIX, TIMEOUT);
+
+        assertEquals(1, _table.cancelAll(DEVICE_A).size());
+        assertEquals(PendingRequest.Status.CANCELLED, reqA.getStatus());
+        assertEquals(2, _table.size());
+        assertSame(reqB, _table.take(DEVICE_B, PREFIX, reqB.getSequence()));
+        assertSame(broadcast, _table.take(DEVICE_A, PREFIX, broadcast.getSequence()));
+        return;
+    }
+}
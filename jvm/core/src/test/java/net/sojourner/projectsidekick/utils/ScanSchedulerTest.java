@@ -0,0 +1,297 @@
+package net.sojourner.projectsidekick.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sojourner.projectsidekick.types.MacAddress;
+
+public class ScanSchedulerTest {
+    private static final long HOUR = 60 * 60 * 1000;
+    private static final float DELTA = 0.0001f;
+
+    private static final MacAddress DEVICE_A = MacAddress.parse("00:11:22:33:44:55");
+    private static final MacAddress DEVICE_B = MacAddress.parse("66:77:88:99:AA:BB");
+    private static final MacAddress STRANGER = MacAddress.parse("CC:DD:EE:FF:00:11");
+
+    private static class FakeClock implements ScanScheduler.Clock {
+        private long _lNow = 1000000;
+
+        @Override
+        public long now() {
+            return _lNow;
+        }
+
+        public void advance(long lTime) {
+            _lNow += lTime;
+            return;
+        }
+    }
+
+    private FakeClock _clock = null;
+    private ScanScheduler _scheduler = null;
+
+    @Before
+    public void setUp() {
+        _clock = new FakeClock();
+        _scheduler = new ScanScheduler(_clock, ScanScheduler.DEFAULT_HOURLY_BUDGET);
+        return;
+    }
+
+    /* ********** */
+    /* Aggressive */
+    /* ********** */
+    @Test
+    public void scansAggressivelyWithNoRegisteredDevices() {
+        assertAggressive(_scheduler.next());
+        return;
+    }
+
+    @Test
+    public void scansAggressivelyUntilEveryDeviceIsSeen() {
+        _scheduler.setRegisteredDevices(Arrays.asList(DEVICE_A, DEVICE_B));
+
+        runScan(_scheduler.next(), DEVICE_A);
+        assertAggressive(_scheduler.next());
+
+        runScan(_scheduler.next(), DEVICE_B);
+        assertRelaxed(_scheduler.next(), ScanScheduler.MIN_RELAXED_INTERVAL);
+        return;
+    }
+
+    @Test
+    public void ignoresUnregisteredDevices() {
+        _scheduler.setRegisteredDevices(Collections.singletonList(DEVICE_A));
+
+        runScan(_scheduler.next(), STRANGER);
+        assertAggressive(_scheduler.next());
+        return;
+    }
+
+    @Test
+    public void returnsToAggressiveWhenADeviceGoesMissing() {
+        _scheduler.setRegisteredDevices(Collections.singletonList(DEVICE_A));
+        runScan(_scheduler.next(), DEVICE_A);
+
+        /* Missed by one scan but seen recently, so still present */
+        runScan(_scheduler.next());
+        assertRelaxed(_scheduler.next(), 2 * ScanScheduler.MIN_RELAXED_INTERVAL);
+
+        _clock.advance(ScanScheduler.PRESENCE_TIMEOUT);
+        assertAggressive(_scheduler.next());
+
+        /* The back-off starts over once the device is back */
+        runScan(_scheduler.next(), DEVICE_A);
+        assertRelaxed(_scheduler.next(), ScanScheduler.MIN_RELAXED_INTERVAL);
+        return;
+    }
+
+    @Test
+    public void keepsSightingsOfDevicesThatStayRegistered() {
+        _scheduler.setRegisteredDevices(Collections.singletonList(DEVICE_A));
+        runScan(_scheduler.next(), DEVICE_A);
+
+        _scheduler.setRegisteredDevices(Arrays.asList(DEVICE_A));
+        assertFalse(_scheduler.next().isAggressive());
+
+        _scheduler.setRegisteredDevices(Arrays.asList(DEVICE_A, DEVICE_B));
+        assertAggressive(_scheduler.next());
+        return;
+    }
+
+    /* ******* */
+    /* Backoff */
+    /* ******* */
+    @Test
+    public void doublesIntervalUpToTheMaximum() {
+        _scheduler.setRegisteredDevices(Collections.singletonList(DEVICE_A));
+        runScan(_scheduler.next(), DEVICE_A);
+
+        long lExpected = ScanScheduler.MIN_RELAXED_INTERVAL;
+        while (lExpected < ScanScheduler.MAX_RELAXED_INTERVAL) {
+            ScanScheduler.Plan plan = _scheduler.next();
+            assertRelaxed(plan, lExpected);
+            runScan(plan, DEVICE_A);
+            lExpected *= 2;
+        }
+
+        for (int iIdx = 0; iIdx < 3; iIdx++) {
+            ScanScheduler.Plan plan = _scheduler.next();
+            assertRelaxed(plan, ScanScheduler.MAX_RELAXED_INTERVAL);
+            runScan(plan, DEVICE_A);
+        }
+        return;
+    }
+
+    @Test
+    public void registeringDevicesResetsBackoff() {
+        _scheduler.setRegisteredDevices(Collections.singletonList(DEVICE_A));
+        runScan(_scheduler.next(), DEVICE_A);
+        runScan(_scheduler.next(), DEVICE_A);
+        runScan(_scheduler.next(), DEVICE_A);
+
+        _scheduler.setRegisteredDevices(Collections.singletonList(DEVICE_A));
+        assertRelaxed(_scheduler.next(), ScanScheduler.MIN_RELAXED_INTERVAL);
+        return;
+    }
+
+    /* ****** */
+    /* Budget */
+    /* ****** */
+    @Test
+    public void shortensTheLastScanToTheBudget() {
+        _scheduler = new ScanScheduler(_clock, 10000);
+
+        runScan(_scheduler.next());
+        runScan(_scheduler.next());
+        assertEquals(8000, _scheduler.getRadioOnTime());
+
+        ScanScheduler.Plan plan = _scheduler.next();
+        assertEquals(2000, plan.getWindow());
+        assertEquals(ScanScheduler.AGGRESSIVE_INTERVAL, plan.getInterval());
+        assertEquals(0, _scheduler.getSkippedCount());
+        return;
+    }
+
+    @Test
+    public void skipsScansUntilTheBudgetFreesUp() {
+        _scheduler = new ScanScheduler(_clock, 10000);
+
+        long lFirstEnd = _clock.now() + ScanScheduler.AGGRESSIVE_WINDOW;
+        runScan(_scheduler.next());
+        runScan(_scheduler.next());
+        runScan(_scheduler.next());
+        assertEquals(10000, _scheduler.getRadioOnTime());
+
+        /* Wait until the first scan has left the trailing hour */
+        ScanScheduler.Plan plan = _scheduler.next();
+        assertEquals(0, plan.getWindow());
+        assertEquals(lFirstEnd + HOUR - _clock.now(), plan.getInterval());
+        assertEquals(1, _scheduler.getSkippedCount());
+
+        _clock.advance(plan.getInterval());
+        assertEquals(6000, _scheduler.getRadioOnTime());
+        assertEquals(ScanScheduler.AGGRESSIVE_WINDOW, _scheduler.next().getWindow());
+        assertEquals(1, _scheduler.getSkippedCount());
+        return;
+    }
+
+    @Test
+    public void countsRunningScanAgainstTheBudget() {
+        _scheduler = new ScanScheduler(_clock, 5000);
+
+        _scheduler.onScanStarted();
+        _clock.advance(4800);
+        assertEquals(4800, _scheduler.getRadioOnTime());
+
+        ScanScheduler.Plan plan = _scheduler.next();
+        assertEquals(0, plan.getWindow());
+        assertEquals(ScanScheduler.AGGRESSIVE_INTERVAL, plan.getInterval());
+        assertEquals(1, _scheduler.getSkippedCount());
+        return;
+    }
+
+    /* ********** */
+    /* Duty Cycle */
+    /* ********** */
+    @Test
+    public void reportsNoDutyCycleBeforeTheFirstScan() {
+        assertEquals(0.0f, _scheduler.getDutyCycle(), DELTA);
+        assertEquals(0.0f, _scheduler.getTotalDutyCycle(), DELTA);
+        assertEquals(0, _scheduler.getRadioOnTime());
+        return;
+    }
+
+    @Test
+    public void reportsAchievedDutyCycle() {
+        _scheduler.onScanStarted();
+        _clock.advance(1000);
+        _scheduler.onScanStopped();
+        _clock.advance(3000);
+
+        assertEquals(0.25f, _scheduler.getDutyCycle(), DELTA);
+        assertEquals(0.25f, _scheduler.getTotalDutyCycle(), DELTA);
+
+        /* A running scan counts as radio-on time */
+        _scheduler.onScanStarted();
+        _clock.advance(4000);
+        assertEquals(5000, _scheduler.getRadioOnTime());
+        assertEquals(0.625f, _scheduler.getDutyCycle(), DELTA);
+        assertEquals(0.625f, _scheduler.getTotalDutyCycle(), DELTA);
+        return;
+    }
+
+    @Test
+    public void dutyCycleCoversOnlyTheTrailingHour() {
+        _scheduler.onScanStarted();
+        _clock.advance(HOUR / 2);
+        _scheduler.onScanStopped();
+        _clock.advance(HOUR);
+
+        _scheduler.onScanStarted();
+        _clock.advance(HOUR / 4);
+        _scheduler.onScanStopped();
+
+        assertEquals(0.25f, _scheduler.getDutyCycle(), DELTA);
+        assertEquals(0.75f / 1.75f, _scheduler.getTotalDutyCycle(), DELTA);
+        return;
+    }
+
+    @Test
+    public void ignoresRepeatedStartsAndStops() {
+        _scheduler.onScanStopped();
+        assertEquals(0.0f, _scheduler.getTotalDutyCycle(), DELTA);
+
+        _scheduler.onScanStarted();
+        _clock.advance(1000);
+        _scheduler.onScanStarted();
+        _clock.advance(1000);
+        _scheduler.onScanStopped();
+        _scheduler.onScanStopped();
+
+        assertEquals(2000, _scheduler.getRadioOnTime());
+        assertTrue(_scheduler.getTotalDutyCycle() > 0.99f);
+        return;
+    }
+
+    /* *************** */
+    /* Private Methods */
+    /* *************** */
+
+    /**
+     * Runs the planned scan, sighting the given devices halfway through, and
+     *  advances the clock to the start of the next scan
+     */
+    private void runScan(ScanScheduler.Plan plan, MacAddress... seen) {
+        _scheduler.onScanStarted();
+        _clock.advance(plan.getWindow() / 2);
+        for (MacAddress mac : seen) {
+            _scheduler.onDeviceSeen(mac);
+        }
+        _clock.advance(plan.getWindow() - (plan.getWindow() / 2));
+        _scheduler.onScanStopped();
+
+        _clock.advance(plan.getInterval() - plan.getWindow());
+        return;
+    }
+
+    private static void assertAggressive(ScanScheduler.Plan plan) {
+        assertTrue(plan.isAggressive());
+        assertEquals(ScanScheduler.AGGRESSIVE_WINDOW, plan.getWindow());
+        assertEquals(ScanScheduler.AGGRESSIVE_INTERVAL, plan.getInterval());
+        return;
+    }
+
+    private static void assertRelaxed(ScanScheduler.Plan plan, long lInterval) {
+        assertFalse(plan.isAggressive());
+        assertEquals(ScanScheduler.RELAXED_WINDOW, plan.getWindow());
+        assertEquals(lInterval, plan.getInterval());
+        return;
+    }
+}